@@ -0,0 +1,150 @@
+package com.poc.redis.infrastructure.cache;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.domain.enumeration.Size;
+import com.poc.redis.domain.model.Authority;
+import com.poc.redis.domain.model.User;
+import com.poc.redis.infrastructure.security.AuthoritiesConstants;
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.MarshallingCodec;
+
+/**
+ * Encoding and decoding of the cached values by Redisson's default codec and by the codecs of {@code application.cache.codec}.
+ * The size of an encoded entry is printed by the setup of each trial.
+ * <p>
+ * The cached values stay under the compression threshold of application.yml, the {@code -lz4} codecs compress them
+ * anyway to tell what compression would cost and save.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    @Param({ "default", "default-lz4", "kryo", "kryo-lz4" })
+    private String codecName;
+
+    @Param({ "user", "product" })
+    private String valueName;
+
+    private Codec codec;
+
+    private Object value;
+
+    private ByteBuf encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        codec = codec(codecName);
+        value = "user".equals(valueName) ? user() : product();
+        encoded = codec.getValueEncoder().encode(value);
+        System.out.println();
+        System.out.println("# " + codecName + " " + valueName + ": " + encoded.readableBytes() + " bytes");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encoded.release();
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        ByteBuf out = codec.getValueEncoder().encode(value);
+        int length = out.readableBytes();
+        out.release();
+        return length;
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return codec.getValueDecoder().decode(encoded.duplicate(), null);
+    }
+
+    private static Codec codec(String name) {
+        switch (name) {
+            case "default":
+                // Redisson's default codec, which the caches used before.
+                return new MarshallingCodec();
+            case "default-lz4":
+                return new CompressingCodec(new MarshallingCodec(), 0);
+            case "kryo":
+                return new CompressingCodec(new CompactKryoCodec(), -1);
+            case "kryo-lz4":
+                return new CompressingCodec(new CompactKryoCodec(), 0);
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(1042L);
+        user.setLogin("jane.doe");
+        user.setPassword("$2a$10$VEjxo0jq2YG9Rbk2HmX9S.k1uZBGYUHdUcid3g/vfiEl7lwWgOH/K");
+        user.setFirstName("Jane");
+        user.setLastName("Doe");
+        user.setEmail("jane.doe@example.com");
+        user.setActivated(true);
+        user.setLangKey("en");
+        user.setImageUrl("https://www.gravatar.com/avatar/9e26471d35a78862c17e467d87cddedf");
+        user.setCreatedBy("system");
+        user.setCreatedDate(Instant.parse("2023-03-01T10:15:30Z"));
+        user.setLastModifiedBy("admin");
+        user.setLastModifiedDate(Instant.parse("2023-04-12T08:00:00Z"));
+        user.setAuthorities(
+            Stream
+                .of(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN)
+                .map(name -> {
+                    Authority authority = new Authority();
+                    authority.setName(name);
+                    return authority;
+                })
+                .collect(Collectors.toSet())
+        );
+        return user;
+    }
+
+    private static ProductDTO product() {
+        ProductCategoryDTO category = new ProductCategoryDTO();
+        category.setId(7L);
+        category.setName("Outdoor");
+        category.setDescription("Clothing and gear for hiking, running and camping");
+        ProductDTO product = new ProductDTO();
+        product.setId(123456L);
+        product.setName("Lightweight waterproof hiking jacket");
+        // Up to the 255 characters of the column.
+        product.setDescription(
+            "A breathable three-layer shell that keeps the rain out on long climbs. Taped seams, a helmet compatible hood " +
+            "and pit zips for ventilation. Packs into its own chest pocket and weighs under three hundred grams in size M."
+        );
+        product.setPrice(new BigDecimal("189.90"));
+        product.setProductSize(Size.M);
+        product.setImageUrl("/api/products/123456/image");
+        product.setImageContentType("image/jpeg");
+        product.setProductCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,193 @@
+package com.poc.redis.infrastructure.repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import org.h2.tools.Server;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of concurrent order inserts, taking their ids from the {@code sequence_generator} shared by all the
+ * entities (increment 50, as the {@code @SequenceGenerator} of {@code User} still does), or from a sequence of their own
+ * read by blocks of 1000 by {@link BlockSequenceGenerator}, as {@code ProductOrder} does.
+ * <p>
+ * Each operation persists {@code rows} orders in one transaction, with the JDBC batching of the application, through
+ * a Hibernate session on an H2 database reached over TCP, so that each call to a sequence is a round trip.
+ * Without {@code insert}, the transaction is rolled back after the ids are allocated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class IdBlockBenchmark {
+
+    @Param({ "1", "1000" })
+    private int rows;
+
+    /**
+     * Whether the orders are inserted, or the transaction rolled back once their ids are allocated, leaving only the
+     * cost of the allocation.
+     */
+    @Param({ "true", "false" })
+    private boolean insert;
+
+    private Server server;
+
+    private Connection connection;
+
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:ids;DB_CLOSE_DELAY=-1";
+        connection = DriverManager.getConnection(url, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create sequence sequence_generator start with 1050 increment by 50");
+            statement.execute("create sequence product_order_sequence start with 1050 increment by 1000");
+            for (String table : new String[] { "shared_order", "block_order" }) {
+                statement.execute(
+                    "create table " + table + " (id bigint primary key, quantity int not null, total_price decimal(21,2) not null)"
+                );
+            }
+        }
+        sessionFactory = new MetadataSources(
+            new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.URL, url)
+                .applySetting(AvailableSettings.USER, "sa")
+                .applySetting(AvailableSettings.PASS, "")
+                .applySetting(AvailableSettings.POOL_SIZE, "4")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "none")
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, "25")
+                .applySetting(AvailableSettings.ORDER_INSERTS, "true")
+                .applySetting(BlockSequenceGenerator.BLOCK_SIZES_SETTING, Map.of("product_order_sequence", 1000))
+                .build()
+        )
+            .addAnnotatedClass(SharedOrder.class)
+            .addAnnotatedClass(BlockOrder.class)
+            .buildMetadata()
+            .buildSessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        sessionFactory.close();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public long sharedSequence() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            long sum = 0;
+            for (int i = 0; i < rows; i++) {
+                SharedOrder order = new SharedOrder();
+                order.quantity = 1;
+                order.totalPrice = BigDecimal.TEN;
+                session.persist(order);
+                sum += order.id;
+            }
+            end(session);
+            return sum;
+        }
+    }
+
+    @Benchmark
+    public long blockSequence() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            long sum = 0;
+            for (int i = 0; i < rows; i++) {
+                BlockOrder order = new BlockOrder();
+                order.quantity = 1;
+                order.totalPrice = BigDecimal.TEN;
+                session.persist(order);
+                sum += order.id;
+            }
+            end(session);
+            return sum;
+        }
+    }
+
+    private void end(Session session) {
+        if (insert) {
+            session.getTransaction().commit();
+        } else {
+            session.getTransaction().rollback();
+        }
+    }
+
+    @Entity
+    @Table(name = "shared_order")
+    static class SharedOrder {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+        @SequenceGenerator(name = "sequenceGenerator", sequenceName = "sequence_generator")
+        private Long id;
+
+        @Column(name = "quantity", nullable = false)
+        private Integer quantity;
+
+        @Column(name = "total_price", precision = 21, scale = 2, nullable = false)
+        private BigDecimal totalPrice;
+    }
+
+    @Entity
+    @Table(name = "block_order")
+    static class BlockOrder {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productOrderSequenceGenerator")
+        @GenericGenerator(
+            name = "productOrderSequenceGenerator",
+            strategy = "com.poc.redis.infrastructure.repository.BlockSequenceGenerator",
+            parameters = @Parameter(name = "sequence_name", value = "product_order_sequence")
+        )
+        private Long id;
+
+        @Column(name = "quantity", nullable = false)
+        private Integer quantity;
+
+        @Column(name = "total_price", precision = 21, scale = 2, nullable = false)
+        private BigDecimal totalPrice;
+    }
+}
@@ -0,0 +1,194 @@
+package com.poc.redis.infrastructure.repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of a page of the product listing sorted by price, read by offset with its count query as
+ * {@code ProductRepository.findAllWithToOneRelationships} did, or by keyset as {@link KeysetJpaRepository#findAll} does.
+ * <p>
+ * Runs the SQL Hibernate generates for both against an in-memory H2 product table of 1M rows, with the
+ * {@code idx_product_price_id} index of the Liquibase changelog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class KeysetPaginationBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private static final int CATEGORIES = 50;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final String COLUMNS =
+        "p.id, p.name, p.description, p.price, p.product_size, p.image_content_type, p.product_category_id, c.id, c.name, c.description";
+
+    private static final String FROM = " from product p left outer join product_category c on p.product_category_id = c.id";
+
+    private static final String OFFSET_PAGE = "select distinct " + COLUMNS + FROM + " order by p.price asc, p.id asc limit ? offset ?";
+
+    private static final String OFFSET_SLICE = "select " + COLUMNS + FROM + " order by p.price asc, p.id asc limit ? offset ?";
+
+    private static final String COUNT = "select count(distinct p.id)" + FROM;
+
+    private static final String KEYSET_FIRST_PAGE = "select " + COLUMNS + FROM + " order by p.price asc, p.id asc limit ?";
+
+    private static final String KEYSET_PAGE =
+        "select " + COLUMNS + FROM + " where p.price >= ? and (p.price > ? or p.id > ?) order by p.price asc, p.id asc limit ?";
+
+    @Param({ "1", "5000" })
+    private int page;
+
+    private Connection connection;
+
+    private PreparedStatement offsetPage;
+
+    private PreparedStatement offsetSlice;
+
+    private PreparedStatement count;
+
+    private PreparedStatement keysetPage;
+
+    private BigDecimal lastPrice;
+
+    private long lastId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        // Not answering a query repeated on unchanged tables from the result of the previous one.
+        connection = DriverManager.getConnection("jdbc:h2:mem:keyset;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+            statement.execute("create table product_category (id bigint primary key, name varchar(255), description varchar(255))");
+            statement.execute(
+                "create table product (id bigint primary key, name varchar(255) not null, description varchar(255) not null, " +
+                "price decimal(21,2) not null, product_size varchar(255) not null, image blob, image_content_type varchar(255), " +
+                "product_category_id bigint references product_category(id))"
+            );
+        }
+        try (PreparedStatement insert = connection.prepareStatement("insert into product_category values (?, ?, ?)")) {
+            for (long id = 1; id <= CATEGORIES; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "Category " + id);
+                insert.setString(3, "Products of category " + id);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        Random random = new Random(42);
+        String[] sizes = { "S", "M", "L", "XL", "XXL" };
+        try (PreparedStatement insert = connection.prepareStatement("insert into product values (?, ?, ?, ?, ?, null, null, ?)")) {
+            for (long id = 1; id <= ROWS; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "Product " + id);
+                insert.setString(3, "Description of product " + id);
+                insert.setBigDecimal(4, BigDecimal.valueOf(random.nextInt(100_000), 2));
+                insert.setString(5, sizes[random.nextInt(sizes.length)]);
+                insert.setLong(6, 1 + id % CATEGORIES);
+                insert.addBatch();
+                if (id % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create index idx_product_price_id on product (price, id)");
+            statement.execute("analyze");
+        }
+        offsetPage = connection.prepareStatement(OFFSET_PAGE);
+        offsetSlice = connection.prepareStatement(OFFSET_SLICE);
+        count = connection.prepareStatement(COUNT);
+        if (page == 1) {
+            keysetPage = connection.prepareStatement(KEYSET_FIRST_PAGE);
+        } else {
+            // The cursor of the requested page: the last row of the page before.
+            keysetPage = connection.prepareStatement(KEYSET_PAGE);
+            try (
+                PreparedStatement last = connection.prepareStatement(
+                    "select price, id from product order by price asc, id asc limit 1 offset " + ((page - 1) * PAGE_SIZE - 1)
+                );
+                ResultSet row = last.executeQuery()
+            ) {
+                row.next();
+                lastPrice = row.getBigDecimal(1);
+                lastId = row.getLong(2);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long offset() throws SQLException {
+        offsetPage.setInt(1, PAGE_SIZE);
+        offsetPage.setInt(2, (page - 1) * PAGE_SIZE);
+        long read = read(offsetPage);
+        try (ResultSet total = count.executeQuery()) {
+            total.next();
+            return read + total.getLong(1);
+        }
+    }
+
+    /**
+     * The offset page alone, without the distinct and the count, for the cost of the offset itself.
+     */
+    @Benchmark
+    public long offsetWithoutCount() throws SQLException {
+        offsetSlice.setInt(1, PAGE_SIZE + 1);
+        offsetSlice.setInt(2, (page - 1) * PAGE_SIZE);
+        return read(offsetSlice);
+    }
+
+    @Benchmark
+    public long keyset() throws SQLException {
+        if (page == 1) {
+            keysetPage.setInt(1, PAGE_SIZE + 1);
+        } else {
+            keysetPage.setBigDecimal(1, lastPrice);
+            keysetPage.setBigDecimal(2, lastPrice);
+            keysetPage.setLong(3, lastId);
+            keysetPage.setInt(4, PAGE_SIZE + 1);
+        }
+        return read(keysetPage);
+    }
+
+    private static long read(PreparedStatement query) throws SQLException {
+        long sum = 0;
+        try (ResultSet rows = query.executeQuery()) {
+            while (rows.next()) {
+                sum += rows.getLong(1) + rows.getString(2).length();
+            }
+        }
+        return sum;
+    }
+}
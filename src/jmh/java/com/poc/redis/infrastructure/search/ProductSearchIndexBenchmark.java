@@ -0,0 +1,118 @@
+package com.poc.redis.infrastructure.search;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.mapper.ProductMapperImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Build time and query latency of the {@link ProductSearchIndex}, over products named and described with words of a
+ * vocabulary drawn by a Zipf-like distribution, as natural text is.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ProductSearchIndexBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20);
+
+    @Param({ "100000", "1000000" })
+    private int products;
+
+    private List<List<ProductDTO>> batches;
+
+    private ProductSearchIndex index;
+
+    private String[] queries;
+
+    private int nextQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        batches = new ArrayList<>();
+        List<ProductDTO> batch = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= products; id++) {
+            ProductDTO product = new ProductDTO();
+            product.setId(id);
+            product.setName(words(random, 3));
+            product.setDescription(words(random, 12));
+            ProductCategoryDTO category = new ProductCategoryDTO();
+            category.setId(id % 50);
+            product.setProductCategory(category);
+            batch.add(product);
+            if (batch.size() == BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        index = build();
+        // Single terms and pairs, frequent and rare.
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = words(random, 1 + i % 2);
+        }
+    }
+
+    /**
+     * The whole index, as built at startup, in batches of the size read from the database.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public ProductSearchIndex build() {
+        ProductSearchIndex built = new ProductSearchIndex(new ProductMapperImpl());
+        for (List<ProductDTO> batch : batches) {
+            built.putAll(batch);
+        }
+        return built;
+    }
+
+    /**
+     * The first page of the hits of a query of one or two terms.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public Page<ProductDTO> search() {
+        return index.search(queries[nextQuery++ & (queries.length - 1)], FIRST_PAGE);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // Word k has a probability of about 1/k.
+            int k = (int) Math.pow(VOCABULARY, random.nextDouble());
+            words.append(i == 0 ? "" : " ").append("w").append(Integer.toString(k, 36));
+        }
+        return words.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package com.poc.redis.infrastructure.storage;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to generate the variants of application.yml for a batch of JPEG images, by the configured worker pool.
+ * The peak heap used while processing each batch is printed by the teardown of its iteration.
+ * <p>
+ * Runs in a 64 MB heap, smaller than the two 4000x3000 sources processed concurrently would take if decoded in
+ * full resolution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx64m")
+public class ImageVariantStoreBenchmark {
+
+    private static final int BATCH_SIZE = 20;
+
+    private static final int CONCURRENCY = 2;
+
+    private static final int QUEUE_CAPACITY = 100;
+
+    @Param({ "1600x1200", "4000x3000" })
+    private String resolution;
+
+    private Path directory;
+
+    private BlobStore blobStore;
+
+    private final List<String> keys = new ArrayList<>();
+
+    private ImageVariantStore variantStore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("image-variants-benchmark");
+        blobStore = new FileSystemBlobStore(directory.resolve("blobs"));
+        String[] dimensions = resolution.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+        // Drawn one after the other on the same image, to run in a heap smaller than two decoded sources.
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(42);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            keys.add(blobStore.put(new ByteArrayInputStream(jpeg(image, random))));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws IOException {
+        delete(directory.resolve("variants"));
+        variantStore = new ImageVariantStore(blobStore, directory.resolve("variants"), sizes(), CONCURRENCY, QUEUE_CAPACITY);
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        long peak = ManagementFactory
+            .getMemoryPoolMXBeans()
+            .stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .mapToLong(pool -> pool.getPeakUsage().getUsed())
+            .sum();
+        System.out.println();
+        System.out.println("# " + resolution + " peak heap: " + peak / (1024 * 1024) + " MB");
+        variantStore.destroy();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        delete(directory);
+    }
+
+    /**
+     * The variants of the whole batch, queued as the product writes do and then waited for.
+     */
+    @Benchmark
+    public int generate() throws IOException {
+        keys.forEach(variantStore::generateAsync);
+        int generated = 0;
+        for (String key : keys) {
+            if (variantStore.getVariant(key, "thumbnail").isPresent()) {
+                generated++;
+            }
+        }
+        return generated;
+    }
+
+    private static Map<String, Integer> sizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put("thumbnail", 64);
+        sizes.put("small", 256);
+        sizes.put("large", 1024);
+        return sizes;
+    }
+
+    /**
+     * A photo-like image: gradients and shapes, compressed as a camera would.
+     */
+    private static byte[] jpeg(BufferedImage image, Random random) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setPaint(new GradientPaint(0, 0, new Color(random.nextInt()), width, height, new Color(random.nextInt())));
+            graphics.fillRect(0, 0, width, height);
+            for (int i = 0; i < 200; i++) {
+                graphics.setColor(new Color(random.nextInt(), true));
+                graphics.fillOval(random.nextInt(width), random.nextInt(height), random.nextInt(width / 4), random.nextInt(height / 4));
+            }
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.poc.redis.application.dto;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a bulk product write.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBulkResultDTO implements Serializable {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        /**
+         * The item is not a valid product, see {@link #errors}.
+         */
+        INVALID,
+        /**
+         * The item has the id of a product that does not exist.
+         */
+        NOT_FOUND,
+        /**
+         * The chunk of the item could not be persisted, see {@link #errors}: none of its items were.
+         */
+        FAILED,
+    }
+
+    /**
+     * Position of the item in the request, from 0.
+     */
+    private int index;
+
+    private Status status;
+
+    private Long id;
+
+    private List<String> errors;
+}
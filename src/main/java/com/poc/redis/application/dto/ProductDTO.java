@@ -1,5 +1,7 @@
 package com.poc.redis.application.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.poc.redis.domain.enumeration.Size;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
@@ -31,10 +33,24 @@ public class ProductDTO implements Serializable {
     @NotNull
     private Size productSize;
 
+    /**
+     * Image to store, accepted on writes only: reads return {@link #imageUrl} instead of the content.
+     */
     @Lob
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private byte[] image;
 
     private String imageContentType;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String imageUrl;
+
+    /**
+     * Key of the image in the blob store, used to serve it.
+     */
+    @JsonIgnore
+    private String imageKey;
+
     private ProductCategoryDTO productCategory;
 
 }
@@ -0,0 +1,30 @@
+package com.poc.redis.application.dto;
+
+import com.poc.redis.domain.enumeration.Size;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+
+/**
+ * The products matching a set of facet filters, and the number of products of each facet value.
+ * <p>
+ * The counts of a facet apply the filters on the other facets only, and {@code minPrice} and {@code maxPrice} bound
+ * the prices of the products matching the category and size filters.
+ */
+@Data
+public class ProductFacetsDTO implements Serializable {
+
+    private long total;
+
+    private List<Long> ids;
+
+    private Map<Long, Long> categories;
+
+    private Map<Size, Long> sizes;
+
+    private BigDecimal minPrice;
+
+    private BigDecimal maxPrice;
+}
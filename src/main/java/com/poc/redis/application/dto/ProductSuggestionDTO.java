@@ -0,0 +1,26 @@
+package com.poc.redis.application.dto;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A product or category name completing what the user typed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestionDTO implements Serializable {
+
+    public enum Type {
+        PRODUCT,
+        CATEGORY,
+    }
+
+    private Type type;
+
+    private Long id;
+
+    private String name;
+}
@@ -8,15 +8,42 @@ import org.mapstruct.*;
 
 /**
  * Mapper for the entity {@link Product} and its DTO {@link ProductDTO}.
+ * <p>
+ * The image content is never mapped: it is kept in the blob store, the DTO links to it through its URL.
  */
 @Mapper(componentModel = "spring")
 public interface ProductMapper extends EntityMapper<ProductDTO, Product> {
     @Mapping(target = "productCategory", source = "productCategory", qualifiedByName = "productCategoryName")
+    @Mapping(target = "image", ignore = true)
+    @Mapping(target = "imageUrl", source = ".", qualifiedByName = "imageUrl")
     ProductDTO toDto(Product s);
 
+    @Mapping(target = "imageKey", ignore = true)
+    Product toEntity(ProductDTO dto);
+
+    @Override
+    @Named("partialUpdate")
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "imageKey", ignore = true)
+    void partialUpdate(@MappingTarget Product entity, ProductDTO dto);
+
+    /**
+     * @return a shallow copy of the DTO, to update a DTO other threads may be reading.
+     */
+    @Named("copy")
+    ProductDTO copy(ProductDTO dto);
+
     @Named("productCategoryName")
     @BeanMapping(ignoreByDefault = true)
     @Mapping(target = "id", source = "id")
     @Mapping(target = "name", source = "name")
     ProductCategoryDTO toDtoProductCategoryName(ProductCategory productCategory);
+
+    @Named("imageUrl")
+    default String toImageUrl(Product product) {
+        if (product.getImageKey() == null || product.getId() == null) {
+            return null;
+        }
+        return "/api/products/" + product.getId() + "/image";
+    }
 }
@@ -2,9 +2,11 @@ package com.poc.redis.application.usecase;
 
 import com.poc.redis.application.dto.CustomerDetailsDTO;
 import com.poc.redis.domain.model.CustomerDetails;
+import com.poc.redis.infrastructure.repository.Keyset;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 /**
  * Service Interface for managing {@link CustomerDetails}.
@@ -38,17 +40,27 @@ public interface CustomerDetailsUsecase {
      * Get all the customerDetails.
      *
      * @param pageable the pagination information.
+     * @param estimatedCount whether the total may be estimated from the table statistics instead of counted.
      * @return the list of entities.
      */
-    Page<CustomerDetailsDTO> findAll(Pageable pageable);
+    Page<CustomerDetailsDTO> findAll(Pageable pageable, boolean estimatedCount);
+
+    /**
+     * Get the customerDetails following a keyset, without counting them.
+     *
+     * @param keyset the position to read from and the number of entities to read.
+     * @return the list of entities.
+     */
+    Slice<CustomerDetailsDTO> findAll(Keyset keyset);
 
     /**
      * Get all the customerDetails with eager load of many-to-many relationships.
      *
      * @param pageable the pagination information.
+     * @param estimatedCount whether the total may be estimated from the table statistics instead of counted.
      * @return the list of entities.
      */
-    Page<CustomerDetailsDTO> findAllWithEagerRelationships(Pageable pageable);
+    Page<CustomerDetailsDTO> findAllWithEagerRelationships(Pageable pageable, boolean estimatedCount);
 
     /**
      * Get the "id" customerDetails.
@@ -1,6 +1,8 @@
 package com.poc.redis.application.usecase;
 
 import com.poc.redis.domain.model.CustomerDetails;
+import com.poc.redis.infrastructure.repository.Keyset;
+import com.poc.redis.infrastructure.repository.TotalCountProvider;
 import com.poc.redis.infrastructure.repository.CustomerDetailsRepository;
 import com.poc.redis.application.dto.CustomerDetailsDTO;
 import com.poc.redis.application.mapper.CustomerDetailsMapper;
@@ -9,6 +11,8 @@ import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,9 +28,16 @@ public class CustomerDetailsUsecaseImpl implements CustomerDetailsUsecase {
 
     private final CustomerDetailsMapper customerDetailsMapper;
 
-    public CustomerDetailsUsecaseImpl(CustomerDetailsRepository customerDetailsRepository, CustomerDetailsMapper customerDetailsMapper) {
+    private final TotalCountProvider totalCountProvider;
+
+    public CustomerDetailsUsecaseImpl(
+        CustomerDetailsRepository customerDetailsRepository,
+        CustomerDetailsMapper customerDetailsMapper,
+        TotalCountProvider totalCountProvider
+    ) {
         this.customerDetailsRepository = customerDetailsRepository;
         this.customerDetailsMapper = customerDetailsMapper;
+        this.totalCountProvider = totalCountProvider;
     }
 
     @Override
@@ -34,6 +45,7 @@ public class CustomerDetailsUsecaseImpl implements CustomerDetailsUsecase {
         log.debug("Request to save CustomerDetails : {}", customerDetailsDTO);
         CustomerDetails customerDetails = customerDetailsMapper.toEntity(customerDetailsDTO);
         customerDetails = customerDetailsRepository.save(customerDetails);
+        totalCountProvider.adjust(CustomerDetailsRepository.CUSTOMER_DETAILS_COUNT, 1);
         return customerDetailsMapper.toDto(customerDetails);
     }
 
@@ -62,13 +74,22 @@ public class CustomerDetailsUsecaseImpl implements CustomerDetailsUsecase {
 
     @Override
     @Transactional(readOnly = true)
-    public Page<CustomerDetailsDTO> findAll(Pageable pageable) {
+    public Page<CustomerDetailsDTO> findAll(Pageable pageable, boolean estimatedCount) {
         log.debug("Request to get all CustomerDetails");
-        return customerDetailsRepository.findAll(pageable).map(customerDetailsMapper::toDto);
+        Slice<CustomerDetails> slice = customerDetailsRepository.findAllBy(pageable);
+        return PageableExecutionUtils.getPage(slice.getContent(), pageable, () -> count(estimatedCount)).map(customerDetailsMapper::toDto);
     }
 
-    public Page<CustomerDetailsDTO> findAllWithEagerRelationships(Pageable pageable) {
-        return customerDetailsRepository.findAllWithEagerRelationships(pageable).map(customerDetailsMapper::toDto);
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CustomerDetailsDTO> findAll(Keyset keyset) {
+        log.debug("Request to get a keyset page of CustomerDetails");
+        return customerDetailsRepository.findAll(keyset, "user").map(customerDetailsMapper::toDto);
+    }
+
+    public Page<CustomerDetailsDTO> findAllWithEagerRelationships(Pageable pageable, boolean estimatedCount) {
+        Slice<CustomerDetails> slice = customerDetailsRepository.findAllWithEagerRelationships(pageable);
+        return PageableExecutionUtils.getPage(slice.getContent(), pageable, () -> count(estimatedCount)).map(customerDetailsMapper::toDto);
     }
 
     @Override
@@ -82,5 +103,15 @@ public class CustomerDetailsUsecaseImpl implements CustomerDetailsUsecase {
     public void delete(Long id) {
         log.debug("Request to delete CustomerDetails : {}", id);
         customerDetailsRepository.deleteById(id);
+        totalCountProvider.adjust(CustomerDetailsRepository.CUSTOMER_DETAILS_COUNT, -1);
+    }
+
+    private long count(boolean estimated) {
+        return totalCountProvider.getTotalCount(
+            CustomerDetailsRepository.CUSTOMER_DETAILS_COUNT,
+            CustomerDetails.class,
+            estimated,
+            customerDetailsRepository::count
+        );
     }
 }
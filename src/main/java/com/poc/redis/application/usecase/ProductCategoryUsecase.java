@@ -2,9 +2,11 @@ package com.poc.redis.application.usecase;
 
 import com.poc.redis.application.dto.ProductCategoryDTO;
 import com.poc.redis.domain.model.ProductCategory;
+import com.poc.redis.infrastructure.repository.Keyset;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 /**
  * Service Interface for managing {@link ProductCategory}.
@@ -38,9 +40,18 @@ public interface ProductCategoryUsecase {
      * Get all the productCategories.
      *
      * @param pageable the pagination information.
+     * @param estimatedCount whether the total may be estimated from the table statistics instead of counted.
      * @return the list of entities.
      */
-    Page<ProductCategoryDTO> findAll(Pageable pageable);
+    Page<ProductCategoryDTO> findAll(Pageable pageable, boolean estimatedCount);
+
+    /**
+     * Get the productCategories following a keyset, without counting them.
+     *
+     * @param keyset the position to read from and the number of entities to read.
+     * @return the list of entities.
+     */
+    Slice<ProductCategoryDTO> findAll(Keyset keyset);
 
     /**
      * Get the "id" productCategory.
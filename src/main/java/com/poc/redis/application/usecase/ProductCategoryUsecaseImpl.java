@@ -1,15 +1,27 @@
 package com.poc.redis.application.usecase;
 
 import com.poc.redis.domain.model.ProductCategory;
+import com.poc.redis.infrastructure.repository.Keyset;
 import com.poc.redis.infrastructure.repository.ProductCategoryRepository;
 import com.poc.redis.application.dto.ProductCategoryDTO;
 import com.poc.redis.application.mapper.ProductCategoryMapper;
+import com.poc.redis.infrastructure.cache.CatalogSnapshot;
+import com.poc.redis.infrastructure.cache.CatalogSnapshotService;
+import com.poc.redis.infrastructure.repository.ProductRepository;
+import com.poc.redis.infrastructure.repository.TotalCountProvider;
+import com.poc.redis.infrastructure.search.ProductSearchService;
+import java.util.Objects;
 import java.util.Optional;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -24,9 +36,28 @@ public class ProductCategoryUsecaseImpl implements ProductCategoryUsecase {
 
     private final ProductCategoryMapper productCategoryMapper;
 
-    public ProductCategoryUsecaseImpl(ProductCategoryRepository productCategoryRepository, ProductCategoryMapper productCategoryMapper) {
+    private final CacheManager cacheManager;
+
+    private final TotalCountProvider totalCountProvider;
+
+    private final ProductSearchService productSearchService;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    public ProductCategoryUsecaseImpl(
+        ProductCategoryRepository productCategoryRepository,
+        ProductCategoryMapper productCategoryMapper,
+        CacheManager cacheManager,
+        TotalCountProvider totalCountProvider,
+        ProductSearchService productSearchService,
+        CatalogSnapshotService catalogSnapshotService
+    ) {
         this.productCategoryRepository = productCategoryRepository;
         this.productCategoryMapper = productCategoryMapper;
+        this.cacheManager = cacheManager;
+        this.totalCountProvider = totalCountProvider;
+        this.productSearchService = productSearchService;
+        this.catalogSnapshotService = catalogSnapshotService;
     }
 
     @Override
@@ -34,6 +65,9 @@ public class ProductCategoryUsecaseImpl implements ProductCategoryUsecase {
         log.debug("Request to save ProductCategory : {}", productCategoryDTO);
         ProductCategory productCategory = productCategoryMapper.toEntity(productCategoryDTO);
         productCategory = productCategoryRepository.save(productCategory);
+        totalCountProvider.adjust(ProductCategoryRepository.PRODUCT_CATEGORIES_COUNT, 1);
+        productSearchService.categoryChanged(productCategory.getId());
+        catalogSnapshotService.categoryChanged(productCategory.getId());
         return productCategoryMapper.toDto(productCategory);
     }
 
@@ -42,6 +76,9 @@ public class ProductCategoryUsecaseImpl implements ProductCategoryUsecase {
         log.debug("Request to update ProductCategory : {}", productCategoryDTO);
         ProductCategory productCategory = productCategoryMapper.toEntity(productCategoryDTO);
         productCategory = productCategoryRepository.save(productCategory);
+        this.clearProductCache();
+        productSearchService.categoryChanged(productCategory.getId());
+        catalogSnapshotService.categoryChanged(productCategory.getId());
         return productCategoryMapper.toDto(productCategory);
     }
 
@@ -57,20 +94,43 @@ public class ProductCategoryUsecaseImpl implements ProductCategoryUsecase {
                 return existingProductCategory;
             })
             .map(productCategoryRepository::save)
-            .map(productCategoryMapper::toDto);
+            .map(productCategory -> {
+                this.clearProductCache();
+                productSearchService.categoryChanged(productCategory.getId());
+                catalogSnapshotService.categoryChanged(productCategory.getId());
+                return productCategoryMapper.toDto(productCategory);
+            });
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Page<ProductCategoryDTO> findAll(Pageable pageable) {
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<ProductCategoryDTO> findAll(Pageable pageable, boolean estimatedCount) {
         log.debug("Request to get all ProductCategories");
-        return productCategoryRepository.findAll(pageable).map(productCategoryMapper::toDto);
+        Optional<Page<ProductCategoryDTO>> snapshotPage = catalogSnapshotService
+            .current()
+            .flatMap(snapshot -> snapshot.findCategories(pageable));
+        if (snapshotPage.isPresent()) {
+            return snapshotPage.get();
+        }
+        Slice<ProductCategory> slice = productCategoryRepository.findAllBy(pageable);
+        return PageableExecutionUtils.getPage(slice.getContent(), pageable, () -> count(estimatedCount)).map(productCategoryMapper::toDto);
     }
 
     @Override
     @Transactional(readOnly = true)
+    public Slice<ProductCategoryDTO> findAll(Keyset keyset) {
+        log.debug("Request to get a keyset page of ProductCategories");
+        return productCategoryRepository.findAll(keyset).map(productCategoryMapper::toDto);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<ProductCategoryDTO> findOne(Long id) {
         log.debug("Request to get ProductCategory : {}", id);
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotService.current();
+        if (snapshot.isPresent()) {
+            return snapshot.get().findCategory(id);
+        }
         return productCategoryRepository.findById(id).map(productCategoryMapper::toDto);
     }
 
@@ -78,5 +138,26 @@ public class ProductCategoryUsecaseImpl implements ProductCategoryUsecase {
     public void delete(Long id) {
         log.debug("Request to delete ProductCategory : {}", id);
         productCategoryRepository.deleteById(id);
+        totalCountProvider.adjust(ProductCategoryRepository.PRODUCT_CATEGORIES_COUNT, -1);
+        this.clearProductCache();
+        productSearchService.categoryChanged(id);
+        catalogSnapshotService.categoryChanged(id);
+    }
+
+    private long count(boolean estimated) {
+        return totalCountProvider.getTotalCount(
+            ProductCategoryRepository.PRODUCT_CATEGORIES_COUNT,
+            ProductCategory.class,
+            estimated,
+            productCategoryRepository::count
+        );
+    }
+
+    /**
+     * Cached products embed their category name, so any category change drops the whole products cache, once the
+     * current transaction commits.
+     */
+    private void clearProductCache() {
+        new TransactionAwareCacheDecorator(Objects.requireNonNull(cacheManager.getCache(ProductRepository.PRODUCTS_CACHE))).clear();
     }
 }
@@ -4,6 +4,7 @@ import com.poc.redis.application.dto.ProductOrderDTO;
 import com.poc.redis.domain.model.ProductOrder;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -42,6 +43,13 @@ public interface ProductOrderUsecase {
      */
     List<ProductOrderDTO> findAll();
 
+    /**
+     * Export all the productOrders, read one at a time through a database cursor, by id.
+     *
+     * @param consumer receives each productOrder, whose entity is detached once received.
+     */
+    void exportAll(Consumer<ProductOrderDTO> consumer);
+
     /**
      * Get all the productOrders with eager load of many-to-many relationships.
      *
@@ -4,10 +4,16 @@ import com.poc.redis.domain.model.ProductOrder;
 import com.poc.redis.infrastructure.repository.ProductOrderRepository;
 import com.poc.redis.application.dto.ProductOrderDTO;
 import com.poc.redis.application.mapper.ProductOrderMapper;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.search.ProductSearchService;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -27,9 +33,20 @@ public class ProductOrderUsecaseImpl implements ProductOrderUsecase {
 
     private final ProductOrderMapper productOrderMapper;
 
-    public ProductOrderUsecaseImpl(ProductOrderRepository productOrderRepository, ProductOrderMapper productOrderMapper) {
+    private final ProductSearchService productSearchService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProductOrderUsecaseImpl(
+        ProductOrderRepository productOrderRepository,
+        ProductOrderMapper productOrderMapper,
+        ProductSearchService productSearchService,
+        ApplicationProperties applicationProperties
+    ) {
         this.productOrderRepository = productOrderRepository;
         this.productOrderMapper = productOrderMapper;
+        this.productSearchService = productSearchService;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -37,14 +54,17 @@ public class ProductOrderUsecaseImpl implements ProductOrderUsecase {
         log.debug("Request to save ProductOrder : {}", productOrderDTO);
         ProductOrder productOrder = productOrderMapper.toEntity(productOrderDTO);
         productOrder = productOrderRepository.save(productOrder);
+        productsOrdered(productId(productOrder));
         return productOrderMapper.toDto(productOrder);
     }
 
     @Override
     public ProductOrderDTO update(ProductOrderDTO productOrderDTO) {
         log.debug("Request to update ProductOrder : {}", productOrderDTO);
+        Long previousProductId = productOrderRepository.findProductIdById(productOrderDTO.getId()).orElse(null);
         ProductOrder productOrder = productOrderMapper.toEntity(productOrderDTO);
         productOrder = productOrderRepository.save(productOrder);
+        productsOrdered(previousProductId, productId(productOrder));
         return productOrderMapper.toDto(productOrder);
     }
 
@@ -55,7 +75,9 @@ public class ProductOrderUsecaseImpl implements ProductOrderUsecase {
         return productOrderRepository
             .findById(productOrderDTO.getId())
             .map(existingProductOrder -> {
+                Long previousProductId = productId(existingProductOrder);
                 productOrderMapper.partialUpdate(existingProductOrder, productOrderDTO);
+                productsOrdered(previousProductId, productId(existingProductOrder));
 
                 return existingProductOrder;
             })
@@ -70,6 +92,25 @@ public class ProductOrderUsecaseImpl implements ProductOrderUsecase {
         return productOrderRepository.findAll().stream().map(productOrderMapper::toDto).collect(Collectors.toCollection(LinkedList::new));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<ProductOrderDTO> consumer) {
+        log.debug("Request to export all ProductOrders");
+        // The eager relationships are fetched with the rows rather than selected for each of them.
+        try (
+            Stream<ProductOrder> productOrders = productOrderRepository.streamAll(
+                applicationProperties.getBulk().getExportFetchSize(),
+                "product.productCategory",
+                "cart.customerDetails.user"
+            )
+        ) {
+            productOrders.forEach(productOrder -> {
+                consumer.accept(productOrderMapper.toDto(productOrder));
+                productOrderRepository.detachAll();
+            });
+        }
+    }
+
     public Page<ProductOrderDTO> findAllWithEagerRelationships(Pageable pageable) {
         return productOrderRepository.findAllWithEagerRelationships(pageable).map(productOrderMapper::toDto);
     }
@@ -84,6 +125,19 @@ public class ProductOrderUsecaseImpl implements ProductOrderUsecase {
     @Override
     public void delete(Long id) {
         log.debug("Request to delete ProductOrder : {}", id);
+        Long productId = productOrderRepository.findProductIdById(id).orElse(null);
         productOrderRepository.deleteById(id);
+        productsOrdered(productId);
+    }
+
+    private static Long productId(ProductOrder productOrder) {
+        return productOrder.getProduct() == null ? null : productOrder.getProduct().getId();
+    }
+
+    /**
+     * The quantities ordered rank the products and categories suggested.
+     */
+    private void productsOrdered(Long... productIds) {
+        productSearchService.productsOrdered(Arrays.stream(productIds).filter(Objects::nonNull).distinct().collect(Collectors.toList()));
     }
 }
@@ -1,10 +1,19 @@
 package com.poc.redis.application.usecase;
 
+import com.poc.redis.application.dto.ProductBulkResultDTO;
 import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.dto.ProductFacetsDTO;
+import com.poc.redis.application.dto.ProductSuggestionDTO;
+import com.poc.redis.domain.enumeration.Size;
 import com.poc.redis.domain.model.Product;
+import com.poc.redis.infrastructure.repository.Keyset;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 /**
  * Service Interface for managing {@link Product}.
@@ -26,6 +35,14 @@ public interface ProductUsecase {
      */
     ProductDTO update(ProductDTO productDTO);
 
+    /**
+     * Creates the products without id and updates the others, in a single transaction.
+     *
+     * @param productDTOs the valid entities to save.
+     * @return the outcome of each entity, in order, with its position in the list as index.
+     */
+    List<ProductBulkResultDTO> saveAll(List<ProductDTO> productDTOs);
+
     /**
      * Partially updates a product.
      *
@@ -34,21 +51,79 @@ public interface ProductUsecase {
      */
     Optional<ProductDTO> partialUpdate(ProductDTO productDTO);
 
+    /**
+     * Replaces the image of a product with one already in the blob store.
+     *
+     * @param id the id of the entity.
+     * @param imageKey the key of the image in the blob store.
+     * @param imageContentType the content type of the image.
+     * @return the persisted entity, or empty if it does not exist.
+     */
+    Optional<ProductDTO> updateImage(Long id, String imageKey, String imageContentType);
+
     /**
      * Get all the products.
      *
      * @param pageable the pagination information.
+     * @param estimatedCount whether the total may be estimated from the table statistics instead of counted.
+     * @return the list of entities.
+     */
+    Page<ProductDTO> findAll(Pageable pageable, boolean estimatedCount);
+
+    /**
+     * Get the products following a keyset, without counting them.
+     *
+     * @param keyset the position to read from and the number of entities to read.
      * @return the list of entities.
      */
-    Page<ProductDTO> findAll(Pageable pageable);
+    Slice<ProductDTO> findAll(Keyset keyset);
 
     /**
      * Get all the products with eager load of many-to-many relationships.
      *
      * @param pageable the pagination information.
+     * @param estimatedCount whether the total may be estimated from the table statistics instead of counted.
      * @return the list of entities.
      */
-    Page<ProductDTO> findAllWithEagerRelationships(Pageable pageable);
+    Page<ProductDTO> findAllWithEagerRelationships(Pageable pageable, boolean estimatedCount);
+
+    /**
+     * Search the products by name and description, the most relevant first, without querying the database.
+     *
+     * @param query the words to find, all of them.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<ProductDTO> search(String query, Pageable pageable);
+
+    /**
+     * Filter the products by category, size and price range, and count the products of each facet value, without
+     * querying the database.
+     *
+     * @param categoryIds the categories to keep products of, every category if empty.
+     * @param sizes the sizes to keep products of, every size if empty.
+     * @param minPrice the lowest price to keep, inclusive, or {@code null}.
+     * @param maxPrice the highest price to keep, inclusive, or {@code null}.
+     * @param pageable the pagination information of the ids.
+     * @return the ids of the matching products and the facets.
+     */
+    ProductFacetsDTO facets(
+        Collection<Long> categoryIds,
+        Collection<Size> sizes,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Pageable pageable
+    );
+
+    /**
+     * Complete a prefix with the names of products and categories, the most ordered first, without querying the
+     * database.
+     *
+     * @param prefix the start of the words to complete.
+     * @param limit the maximum number of suggestions.
+     * @return the list of suggestions.
+     */
+    List<ProductSuggestionDTO> suggest(String prefix, int limit);
 
     /**
      * Get the "id" product.
@@ -1,15 +1,49 @@
 package com.poc.redis.application.usecase;
 
+import com.poc.redis.domain.enumeration.Size;
 import com.poc.redis.domain.model.Product;
+import com.poc.redis.domain.model.ProductCategory;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.repository.Keyset;
+import com.poc.redis.infrastructure.repository.ProductCategoryRepository;
 import com.poc.redis.infrastructure.repository.ProductRepository;
+import com.poc.redis.infrastructure.repository.TotalCountProvider;
+import com.poc.redis.application.dto.ProductBulkResultDTO;
+import com.poc.redis.application.dto.ProductCategoryDTO;
 import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.dto.ProductFacetsDTO;
+import com.poc.redis.application.dto.ProductSuggestionDTO;
 import com.poc.redis.application.mapper.ProductMapper;
+import com.poc.redis.infrastructure.cache.CatalogSnapshot;
+import com.poc.redis.infrastructure.cache.CatalogSnapshotService;
+import com.poc.redis.infrastructure.search.ProductSearchService;
+import com.poc.redis.infrastructure.storage.BlobStore;
+import com.poc.redis.infrastructure.storage.ImageVariantStore;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.validation.Validator;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -24,28 +58,169 @@ public class ProductUsecaseImpl implements ProductUsecase {
 
     private final ProductMapper productMapper;
 
-    public ProductUsecaseImpl(ProductRepository productRepository, ProductMapper productMapper) {
+    private final CacheManager cacheManager;
+
+    private final BlobStore blobStore;
+
+    private final ImageVariantStore imageVariantStore;
+
+    private final TotalCountProvider totalCountProvider;
+
+    private final ProductSearchService productSearchService;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    private final ProductCategoryRepository productCategoryRepository;
+
+    private final ApplicationProperties.Bulk bulkProperties;
+
+    private final Validator validator;
+
+    public ProductUsecaseImpl(
+        ProductRepository productRepository,
+        ProductMapper productMapper,
+        CacheManager cacheManager,
+        BlobStore blobStore,
+        ImageVariantStore imageVariantStore,
+        TotalCountProvider totalCountProvider,
+        ProductSearchService productSearchService,
+        CatalogSnapshotService catalogSnapshotService,
+        ProductCategoryRepository productCategoryRepository,
+        ApplicationProperties applicationProperties,
+        Validator validator
+    ) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
+        this.cacheManager = cacheManager;
+        this.blobStore = blobStore;
+        this.imageVariantStore = imageVariantStore;
+        this.totalCountProvider = totalCountProvider;
+        this.productSearchService = productSearchService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productCategoryRepository = productCategoryRepository;
+        this.bulkProperties = applicationProperties.getBulk();
+        this.validator = validator;
     }
 
     @Override
+    @CacheEvict(cacheNames = ProductRepository.PRODUCTS_CACHE, cacheResolver = "transactionAwareCacheResolver", key = "#result.id")
     public ProductDTO save(ProductDTO productDTO) {
         log.debug("Request to save Product : {}", productDTO);
         Product product = productMapper.toEntity(productDTO);
+        if (productDTO.getImage() != null) {
+            product.setImageKey(storeImage(productDTO.getImage()));
+        }
         product = productRepository.save(product);
+        totalCountProvider.adjust(ProductRepository.PRODUCTS_COUNT, 1);
+        productSearchService.productChanged(product.getId());
+        catalogSnapshotService.productChanged(product.getId());
         return productMapper.toDto(product);
     }
 
     @Override
+    @CacheEvict(cacheNames = ProductRepository.PRODUCTS_CACHE, cacheResolver = "transactionAwareCacheResolver", key = "#productDTO.id")
     public ProductDTO update(ProductDTO productDTO) {
         log.debug("Request to update Product : {}", productDTO);
         Product product = productMapper.toEntity(productDTO);
+        // The image is not sent back by the reads, an update without one keeps the stored image.
+        if (productDTO.getImage() != null) {
+            product.setImageKey(storeImage(productDTO.getImage()));
+        } else {
+            product.setImageKey(productRepository.findImageKeyById(productDTO.getId()).orElse(null));
+        }
         product = productRepository.save(product);
+        productSearchService.productChanged(product.getId());
+        catalogSnapshotService.productChanged(product.getId());
         return productMapper.toDto(product);
     }
 
     @Override
+    public List<ProductBulkResultDTO> saveAll(List<ProductDTO> productDTOs) {
+        log.debug("Request to save {} Products", productDTOs.size());
+        List<ProductBulkResultDTO> results = new ArrayList<>(productDTOs.size());
+        List<Long> changed = new ArrayList<>(productDTOs.size());
+        int created = 0;
+        for (int from = 0; from < productDTOs.size(); from += bulkProperties.getFlushSize()) {
+            List<ProductDTO> window = productDTOs.subList(from, Math.min(from + bulkProperties.getFlushSize(), productDTOs.size()));
+            // Loaded in the persistence context, the products updated are merged without reading them one by one.
+            Map<Long, Product> existing = productRepository
+                .findAllById(window.stream().map(ProductDTO::getId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+            Set<Long> categoryIds = productCategoryRepository
+                .findAllById(
+                    window
+                        .stream()
+                        .map(ProductDTO::getProductCategory)
+                        .filter(Objects::nonNull)
+                        .map(ProductCategoryDTO::getId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())
+                )
+                .stream()
+                .map(ProductCategory::getId)
+                .collect(Collectors.toSet());
+            for (ProductDTO productDTO : window) {
+                int index = results.size();
+                if (productDTO.getProductCategory() != null && !categoryIds.contains(productDTO.getProductCategory().getId())) {
+                    results.add(
+                        new ProductBulkResultDTO(
+                            index,
+                            ProductBulkResultDTO.Status.INVALID,
+                            productDTO.getId(),
+                            List.of("productCategory: not found")
+                        )
+                    );
+                    continue;
+                }
+                boolean update = productDTO.getId() != null;
+                if (update && !existing.containsKey(productDTO.getId())) {
+                    results.add(new ProductBulkResultDTO(index, ProductBulkResultDTO.Status.NOT_FOUND, productDTO.getId(), null));
+                    continue;
+                }
+                Product product = productMapper.toEntity(productDTO);
+                // The constraints of the entity, checked on flush, would fail the whole transaction.
+                List<String> errors = validator
+                    .validate(product)
+                    .stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.toList());
+                if (!errors.isEmpty()) {
+                    results.add(new ProductBulkResultDTO(index, ProductBulkResultDTO.Status.INVALID, productDTO.getId(), errors));
+                    continue;
+                }
+                if (productDTO.getImage() != null) {
+                    product.setImageKey(storeImage(productDTO.getImage()));
+                } else if (update) {
+                    product.setImageKey(existing.get(productDTO.getId()).getImageKey());
+                }
+                product = productRepository.save(product);
+                changed.add(product.getId());
+                if (update) {
+                    this.clearProductCache(product.getId());
+                } else {
+                    created++;
+                }
+                results.add(
+                    new ProductBulkResultDTO(
+                        index,
+                        update ? ProductBulkResultDTO.Status.UPDATED : ProductBulkResultDTO.Status.CREATED,
+                        product.getId(),
+                        null
+                    )
+                );
+            }
+            productRepository.flushAndClear();
+        }
+        totalCountProvider.adjust(ProductRepository.PRODUCTS_COUNT, created);
+        productSearchService.productsChanged(changed);
+        catalogSnapshotService.productsChanged(changed);
+        return results;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = ProductRepository.PRODUCTS_CACHE, cacheResolver = "transactionAwareCacheResolver", key = "#productDTO.id")
     public Optional<ProductDTO> partialUpdate(ProductDTO productDTO) {
         log.debug("Request to partially update Product : {}", productDTO);
 
@@ -53,34 +228,154 @@ public class ProductUsecaseImpl implements ProductUsecase {
             .findById(productDTO.getId())
             .map(existingProduct -> {
                 productMapper.partialUpdate(existingProduct, productDTO);
+                if (productDTO.getImage() != null) {
+                    existingProduct.setImageKey(storeImage(productDTO.getImage()));
+                }
 
                 return existingProduct;
             })
             .map(productRepository::save)
-            .map(productMapper::toDto);
+            .map(product -> {
+                productSearchService.productChanged(product.getId());
+                catalogSnapshotService.productChanged(product.getId());
+                return productMapper.toDto(product);
+            });
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Page<ProductDTO> findAll(Pageable pageable) {
-        log.debug("Request to get all Products");
-        return productRepository.findAll(pageable).map(productMapper::toDto);
+    @CacheEvict(cacheNames = ProductRepository.PRODUCTS_CACHE, cacheResolver = "transactionAwareCacheResolver", key = "#id")
+    public Optional<ProductDTO> updateImage(Long id, String imageKey, String imageContentType) {
+        log.debug("Request to update the image of Product : {}", id);
+
+        return productRepository
+            .findById(id)
+            .map(existingProduct -> {
+                existingProduct.setImageKey(imageKey);
+                existingProduct.setImageContentType(imageContentType);
+
+                return existingProduct;
+            })
+            .map(productRepository::save)
+            .map(product -> {
+                imageVariantStore.generateAsync(imageKey);
+                productSearchService.productChanged(product.getId());
+                catalogSnapshotService.productChanged(product.getId());
+                return productMapper.toDto(product);
+            });
     }
 
-    public Page<ProductDTO> findAllWithEagerRelationships(Pageable pageable) {
-        return productRepository.findAllWithEagerRelationships(pageable).map(productMapper::toDto);
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<ProductDTO> findAll(Pageable pageable, boolean estimatedCount) {
+        log.debug("Request to get all Products");
+        Optional<Page<ProductDTO>> snapshotPage = catalogSnapshotService.current().flatMap(snapshot -> snapshot.findProducts(pageable));
+        if (snapshotPage.isPresent()) {
+            return snapshotPage.get();
+        }
+        Slice<Product> slice = productRepository.findAllBy(pageable);
+        return PageableExecutionUtils.getPage(slice.getContent(), pageable, () -> count(estimatedCount)).map(productMapper::toDto);
     }
 
     @Override
     @Transactional(readOnly = true)
+    public Slice<ProductDTO> findAll(Keyset keyset) {
+        log.debug("Request to get a keyset page of Products");
+        return productRepository.findAll(keyset, "productCategory").map(productMapper::toDto);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<ProductDTO> findAllWithEagerRelationships(Pageable pageable, boolean estimatedCount) {
+        Optional<Page<ProductDTO>> snapshotPage = catalogSnapshotService.current().flatMap(snapshot -> snapshot.findProducts(pageable));
+        if (snapshotPage.isPresent()) {
+            return snapshotPage.get();
+        }
+        Slice<Product> slice = productRepository.findAllWithEagerRelationships(pageable);
+        return PageableExecutionUtils.getPage(slice.getContent(), pageable, () -> count(estimatedCount)).map(productMapper::toDto);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<ProductDTO> search(String query, Pageable pageable) {
+        log.debug("Request to search Products : {}", query);
+        return productSearchService.search(query, pageable);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ProductFacetsDTO facets(
+        Collection<Long> categoryIds,
+        Collection<Size> sizes,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Pageable pageable
+    ) {
+        log.debug("Request to filter Products by categories {}, sizes {} and prices {} to {}", categoryIds, sizes, minPrice, maxPrice);
+        return productSearchService.facets(categoryIds, sizes, minPrice, maxPrice, pageable);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        log.debug("Request to suggest Products : {}", prefix);
+        return productSearchService.suggest(prefix, limit);
+    }
+
+    /**
+     * Cached in {@link ProductRepository#PRODUCTS_CACHE} unless served by the catalog snapshot; missing products are
+     * not cached.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    @Cacheable(
+        cacheNames = ProductRepository.PRODUCTS_CACHE,
+        condition = "!@catalogSnapshotService.current().isPresent()",
+        unless = "#result == null"
+    )
     public Optional<ProductDTO> findOne(Long id) {
         log.debug("Request to get Product : {}", id);
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotService.current();
+        if (snapshot.isPresent()) {
+            return snapshot.get().findProduct(id);
+        }
         return productRepository.findOneWithEagerRelationships(id).map(productMapper::toDto);
     }
 
     @Override
+    @CacheEvict(cacheNames = ProductRepository.PRODUCTS_CACHE, cacheResolver = "transactionAwareCacheResolver", key = "#id")
     public void delete(Long id) {
         log.debug("Request to delete Product : {}", id);
         productRepository.deleteById(id);
+        totalCountProvider.adjust(ProductRepository.PRODUCTS_COUNT, -1);
+        productSearchService.productChanged(id);
+        catalogSnapshotService.productChanged(id);
+    }
+
+    private long count(boolean estimated) {
+        return totalCountProvider.getTotalCount(ProductRepository.PRODUCTS_COUNT, Product.class, estimated, productRepository::count);
+    }
+
+    /**
+     * Stores an image in the blob store and queues the generation of its resized variants. Blobs are not removed
+     * with the products referencing them: identical images are stored once, so a blob may be shared by several
+     * products.
+     */
+    private String storeImage(byte[] image) {
+        try {
+            String key = blobStore.put(image);
+            imageVariantStore.generateAsync(key);
+            return key;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store the product image", e);
+        }
+    }
+
+    /**
+     * Evicts the product once the current transaction commits, as {@code transactionAwareCacheResolver} does for the
+     * {@code @CacheEvict} of the other write paths.
+     */
+    private void clearProductCache(Long id) {
+        if (id != null) {
+            new TransactionAwareCacheDecorator(Objects.requireNonNull(cacheManager.getCache(ProductRepository.PRODUCTS_CACHE))).evict(id);
+        }
     }
 }
@@ -4,6 +4,7 @@ import com.poc.redis.application.dto.ShoppingCartDTO;
 import com.poc.redis.domain.model.ShoppingCart;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service Interface for managing {@link ShoppingCart}.
@@ -40,6 +41,13 @@ public interface ShoppingCartUsecase {
      */
     List<ShoppingCartDTO> findAll();
 
+    /**
+     * Export all the shoppingCarts, read one at a time through a database cursor, by id.
+     *
+     * @param consumer receives each shoppingCart, whose entity is detached once received.
+     */
+    void exportAll(Consumer<ShoppingCartDTO> consumer);
+
     /**
      * Get the "id" shoppingCart.
      *
@@ -4,10 +4,13 @@ import com.poc.redis.domain.model.ShoppingCart;
 import com.poc.redis.infrastructure.repository.ShoppingCartRepository;
 import com.poc.redis.application.dto.ShoppingCartDTO;
 import com.poc.redis.application.mapper.ShoppingCartMapper;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -25,9 +28,16 @@ public class ShoppingCartUsecaseImpl implements ShoppingCartUsecase {
 
     private final ShoppingCartMapper shoppingCartMapper;
 
-    public ShoppingCartUsecaseImpl(ShoppingCartRepository shoppingCartRepository, ShoppingCartMapper shoppingCartMapper) {
+    private final ApplicationProperties applicationProperties;
+
+    public ShoppingCartUsecaseImpl(
+        ShoppingCartRepository shoppingCartRepository,
+        ShoppingCartMapper shoppingCartMapper,
+        ApplicationProperties applicationProperties
+    ) {
         this.shoppingCartRepository = shoppingCartRepository;
         this.shoppingCartMapper = shoppingCartMapper;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -68,6 +78,24 @@ public class ShoppingCartUsecaseImpl implements ShoppingCartUsecase {
         return shoppingCartRepository.findAll().stream().map(shoppingCartMapper::toDto).collect(Collectors.toCollection(LinkedList::new));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<ShoppingCartDTO> consumer) {
+        log.debug("Request to export all ShoppingCarts");
+        // The eager relationships are fetched with the rows rather than selected for each of them.
+        try (
+            Stream<ShoppingCart> shoppingCarts = shoppingCartRepository.streamAll(
+                applicationProperties.getBulk().getExportFetchSize(),
+                "customerDetails.user"
+            )
+        ) {
+            shoppingCarts.forEach(shoppingCart -> {
+                consumer.accept(shoppingCartMapper.toDto(shoppingCart));
+                shoppingCartRepository.detachAll();
+            });
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<ShoppingCartDTO> findOne(Long id) {
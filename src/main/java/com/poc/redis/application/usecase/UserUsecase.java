@@ -7,6 +7,7 @@ import com.poc.redis.infrastructure.config.Constants;
 import com.poc.redis.domain.model.Authority;
 import com.poc.redis.domain.model.User;
 import com.poc.redis.infrastructure.repository.AuthorityRepository;
+import com.poc.redis.infrastructure.repository.TotalCountProvider;
 import com.poc.redis.infrastructure.repository.UserRepository;
 import com.poc.redis.infrastructure.security.AuthoritiesConstants;
 import com.poc.redis.infrastructure.security.SecurityUtils;
@@ -21,6 +22,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -43,16 +46,20 @@ public class UserUsecase {
 
     private final CacheManager cacheManager;
 
+    private final TotalCountProvider totalCountProvider;
+
     public UserUsecase(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
         AuthorityRepository authorityRepository,
-        CacheManager cacheManager
+        CacheManager cacheManager,
+        TotalCountProvider totalCountProvider
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
         this.cacheManager = cacheManager;
+        this.totalCountProvider = totalCountProvider;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -63,6 +70,7 @@ public class UserUsecase {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
+                totalCountProvider.adjust(UserRepository.ACTIVATED_USERS_COUNT, 1);
                 this.clearUserCaches(user);
                 log.debug("Activated user: {}", user);
                 return user;
@@ -177,6 +185,7 @@ public class UserUsecase {
             user.setAuthorities(authorities);
         }
         userRepository.save(user);
+        totalCountProvider.adjust(UserRepository.ACTIVATED_USERS_COUNT, 1);
         this.clearUserCaches(user);
         log.debug("Created Information for User: {}", user);
         return user;
@@ -202,6 +211,9 @@ public class UserUsecase {
                     user.setEmail(userDTO.getEmail().toLowerCase());
                 }
                 user.setImageUrl(userDTO.getImageUrl());
+                if (user.isActivated() != userDTO.isActivated()) {
+                    totalCountProvider.adjust(UserRepository.ACTIVATED_USERS_COUNT, userDTO.isActivated() ? 1 : -1);
+                }
                 user.setActivated(userDTO.isActivated());
                 user.setLangKey(userDTO.getLangKey());
                 Set<Authority> managedAuthorities = user.getAuthorities();
@@ -225,6 +237,9 @@ public class UserUsecase {
             .findOneByLogin(login)
             .ifPresent(user -> {
                 userRepository.delete(user);
+                if (user.isActivated()) {
+                    totalCountProvider.adjust(UserRepository.ACTIVATED_USERS_COUNT, -1);
+                }
                 this.clearUserCaches(user);
                 log.debug("Deleted User: {}", user);
             });
@@ -280,7 +295,15 @@ public class UserUsecase {
 
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllPublicUsers(Pageable pageable) {
-        return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
+        Slice<User> slice = userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable);
+        // The users table also holds the users not activated yet: its statistics would overcount.
+        return PageableExecutionUtils
+            .getPage(
+                slice.getContent(),
+                pageable,
+                () -> totalCountProvider.getTotalCount(UserRepository.ACTIVATED_USERS_COUNT, userRepository::countByActivatedIsTrue)
+            )
+            .map(UserDTO::new);
     }
 
     @Transactional(readOnly = true)
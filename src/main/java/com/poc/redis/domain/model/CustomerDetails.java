@@ -5,6 +5,8 @@ import com.poc.redis.domain.enumeration.Gender;
 import com.poc.redis.domain.valueobject.Address;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -28,8 +30,12 @@ public class CustomerDetails implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customerDetailsSequenceGenerator")
+    @GenericGenerator(
+        name = "customerDetailsSequenceGenerator",
+        strategy = "com.poc.redis.infrastructure.repository.BlockSequenceGenerator",
+        parameters = @Parameter(name = "sequence_name", value = "customer_details_sequence")
+    )
     @Column(name = "id")
     private Long id;
 
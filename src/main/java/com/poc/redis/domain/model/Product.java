@@ -5,6 +5,8 @@ import com.poc.redis.domain.enumeration.Size;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.DecimalMin;
@@ -29,8 +31,12 @@ public class Product implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productSequenceGenerator")
+    @GenericGenerator(
+        name = "productSequenceGenerator",
+        strategy = "com.poc.redis.infrastructure.repository.BlockSequenceGenerator",
+        parameters = @Parameter(name = "sequence_name", value = "product_sequence")
+    )
     @Column(name = "id")
     private Long id;
 
@@ -51,9 +57,11 @@ public class Product implements Serializable {
     @Column(name = "product_size", nullable = false)
     private Size productSize;
 
-    @Lob
-    @Column(name = "image")
-    private byte[] image;
+    /**
+     * Key of the image in the {@link com.poc.redis.infrastructure.storage.BlobStore}.
+     */
+    @Column(name = "image_key", length = 64)
+    private String imageKey;
 
     @Column(name = "image_content_type")
     private String imageContentType;
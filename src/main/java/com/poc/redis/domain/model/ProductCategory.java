@@ -3,6 +3,8 @@ package com.poc.redis.domain.model;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -26,8 +28,12 @@ public class ProductCategory implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productCategorySequenceGenerator")
+    @GenericGenerator(
+        name = "productCategorySequenceGenerator",
+        strategy = "com.poc.redis.infrastructure.repository.BlockSequenceGenerator",
+        parameters = @Parameter(name = "sequence_name", value = "product_category_sequence")
+    )
     @Column(name = "id")
     private Long id;
 
@@ -3,6 +3,8 @@ package com.poc.redis.domain.model;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.DecimalMin;
@@ -27,8 +29,12 @@ public class ProductOrder implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productOrderSequenceGenerator")
+    @GenericGenerator(
+        name = "productOrderSequenceGenerator",
+        strategy = "com.poc.redis.infrastructure.repository.BlockSequenceGenerator",
+        parameters = @Parameter(name = "sequence_name", value = "product_order_sequence")
+    )
     @Column(name = "id")
     private Long id;
 
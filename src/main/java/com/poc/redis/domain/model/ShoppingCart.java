@@ -5,6 +5,8 @@ import com.poc.redis.domain.enumeration.OrderStatus;
 import com.poc.redis.domain.enumeration.PaymentMethod;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.DecimalMin;
@@ -31,8 +33,12 @@ public class ShoppingCart implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shoppingCartSequenceGenerator")
+    @GenericGenerator(
+        name = "shoppingCartSequenceGenerator",
+        strategy = "com.poc.redis.infrastructure.repository.BlockSequenceGenerator",
+        parameters = @Parameter(name = "sequence_name", value = "shopping_cart_sequence")
+    )
     @Column(name = "id")
     private Long id;
 
@@ -0,0 +1,47 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Access counts of the keys of a cache since the last {@link #drain()}.
+ * <p>
+ * At most {@code capacity} distinct keys are tracked per period; the accesses to further keys are dropped
+ * until the next drain. Frequently accessed keys show up early in a period, so they are the ones kept.
+ */
+public class AccessFrequencySketch {
+
+    private final int capacity;
+
+    private volatile ConcurrentMap<Object, LongAdder> counts = new ConcurrentHashMap<>();
+
+    public AccessFrequencySketch(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void record(Object key) {
+        ConcurrentMap<Object, LongAdder> current = counts;
+        LongAdder count = current.get(key);
+        if (count == null) {
+            if (current.size() >= capacity) {
+                return;
+            }
+            count = current.computeIfAbsent(key, k -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * Returns the counts recorded since the previous call and starts a new period.
+     */
+    public Map<Object, Long> drain() {
+        ConcurrentMap<Object, LongAdder> drained = counts;
+        counts = new ConcurrentHashMap<>();
+        Map<Object, Long> result = new HashMap<>(drained.size());
+        drained.forEach((key, count) -> result.put(key, count.sum()));
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link AccessFrequencySketch} of every cache, by cache name.
+ */
+public class AccessFrequencySketches {
+
+    private final int capacity;
+
+    private final ConcurrentMap<String, AccessFrequencySketch> sketches = new ConcurrentHashMap<>();
+
+    public AccessFrequencySketches(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public AccessFrequencySketch getSketch(String cacheName) {
+        return sketches.computeIfAbsent(cacheName, name -> new AccessFrequencySketch(capacity));
+    }
+
+    public Map<String, AccessFrequencySketch> getSketches() {
+        return Collections.unmodifiableMap(sketches);
+    }
+}
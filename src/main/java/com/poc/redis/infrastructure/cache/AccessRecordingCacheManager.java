@@ -0,0 +1,50 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * {@link CacheManager} that wraps the caches of a delegate manager in an {@link AccessRecordingCache}.
+ */
+public class AccessRecordingCacheManager implements CacheManager, DisposableBean {
+
+    private final CacheManager delegate;
+
+    private final AccessFrequencySketches sketches;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public AccessRecordingCacheManager(CacheManager delegate, AccessFrequencySketches sketches) {
+        this.delegate = delegate;
+        this.sketches = sketches;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new AccessRecordingCache(target, sketches.getSketch(cacheName)));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (delegate instanceof DisposableBean) {
+            ((DisposableBean) delegate).destroy();
+        }
+    }
+}
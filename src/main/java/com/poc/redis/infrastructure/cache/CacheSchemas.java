@@ -0,0 +1,39 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the value type cached in each cache, and of its {@link SchemaFingerprint}.
+ * <p>
+ * The fingerprint is used as the version of the cache keys, so a deploy that does not change
+ * a cached type keeps reading the entries written by the previous release.
+ */
+public class CacheSchemas {
+
+    private final Map<String, Class<?>> valueTypes = new ConcurrentHashMap<>();
+
+    private final Map<String, String> versions = new ConcurrentHashMap<>();
+
+    public void register(String cacheName, Class<?> valueType) {
+        valueTypes.put(cacheName, valueType);
+        versions.put(cacheName, SchemaFingerprint.of(valueType));
+    }
+
+    /**
+     * Returns the schema version of the given cache, or {@code null} if it is not registered.
+     */
+    public String getVersion(String cacheName) {
+        return versions.get(cacheName);
+    }
+
+    public Class<?> getValueType(String cacheName) {
+        return valueTypes.get(cacheName);
+    }
+
+    public Map<String, String> getVersions() {
+        return Collections.unmodifiableMap(new TreeMap<>(versions));
+    }
+}
@@ -0,0 +1,115 @@
+package com.poc.redis.infrastructure.cache;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Immutable copy of the product catalog: every product and category, by increasing id, with the orders of the sorts
+ * the listings support computed once.
+ * <p>
+ * The products can be sorted by {@code name} or {@code price}, the categories by {@code name}, then by id, or by id
+ * only. The DTOs returned may be shared by all the readers of the snapshot and must not be modified. Changes produce
+ * a new snapshot, see {@link #withProducts}.
+ */
+public abstract class CatalogSnapshot {
+
+    public abstract Optional<ProductDTO> findProduct(Long id);
+
+    public abstract Optional<ProductCategoryDTO> findCategory(Long id);
+
+    /**
+     * @return a page of products, unless the page is sorted otherwise than by {@code id}, {@code name} or
+     * {@code price}, then {@code id}.
+     */
+    public Optional<Page<ProductDTO>> findProducts(Pageable pageable) {
+        return page(getProductCount(), this::productAt, this::productOrder, pageable);
+    }
+
+    /**
+     * @return a page of categories, unless the page is sorted otherwise than by {@code id} or {@code name}, then
+     * {@code id}.
+     */
+    public Optional<Page<ProductCategoryDTO>> findCategories(Pageable pageable) {
+        return page(getCategoryCount(), this::categoryAt, this::categoryOrder, pageable);
+    }
+
+    public abstract int getProductCount();
+
+    public abstract int getCategoryCount();
+
+    /**
+     * Copies the snapshot with products replaced, added or removed.
+     *
+     * @param changes the products by id, {@code null} for the products removed.
+     * @return the new snapshot; this one is unchanged.
+     */
+    public abstract CatalogSnapshot withProducts(Map<Long, ProductDTO> changes);
+
+    /**
+     * @return the product at a position in id order.
+     */
+    protected abstract ProductDTO productAt(int position);
+
+    /**
+     * @return the category at a position in id order.
+     */
+    protected abstract ProductCategoryDTO categoryAt(int position);
+
+    /**
+     * @return the position in id order of the product at each rank of the order by a property then id, or
+     * {@code null} if the products cannot be sorted by that property.
+     */
+    protected abstract IntUnaryOperator productOrder(String property);
+
+    /**
+     * @return the position in id order of the category at each rank of the order by a property then id, or
+     * {@code null} if the categories cannot be sorted by that property.
+     */
+    protected abstract IntUnaryOperator categoryOrder(String property);
+
+    private static <T> Optional<Page<T>> page(
+        int count,
+        IntFunction<T> itemAt,
+        java.util.function.Function<String, IntUnaryOperator> orders,
+        Pageable pageable
+    ) {
+        IntUnaryOperator order = IntUnaryOperator.identity();
+        boolean descending = false;
+        List<Sort.Order> sort = pageable.getSort().toList();
+        if (!sort.isEmpty()) {
+            Sort.Order first = sort.get(0);
+            boolean thenById = sort.size() == 1 || (sort.size() == 2 && isById(sort.get(1), first.getDirection()));
+            if (first.isIgnoreCase() || !thenById) {
+                return Optional.empty();
+            }
+            if (!isById(first, first.getDirection())) {
+                order = orders.apply(first.getProperty());
+                if (order == null) {
+                    return Optional.empty();
+                }
+            }
+            descending = first.isDescending();
+        }
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), count) : 0;
+        int to = pageable.isPaged() ? (int) Math.min((long) from + pageable.getPageSize(), count) : count;
+        List<T> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            content.add(itemAt.apply(order.applyAsInt(descending ? count - 1 - i : i)));
+        }
+        return Optional.of(new PageImpl<>(content, pageable, count));
+    }
+
+    private static boolean isById(Sort.Order order, Sort.Direction direction) {
+        return "id".equals(order.getProperty()) && order.getDirection() == direction && !order.isIgnoreCase();
+    }
+}
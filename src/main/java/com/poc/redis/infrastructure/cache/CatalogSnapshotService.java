@@ -0,0 +1,415 @@
+package com.poc.redis.infrastructure.cache;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.mapper.ProductCategoryMapper;
+import com.poc.redis.application.mapper.ProductMapper;
+import com.poc.redis.domain.model.Product;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.repository.Keyset;
+import com.poc.redis.infrastructure.repository.KeysetRepository;
+import com.poc.redis.infrastructure.repository.ProductCategoryRepository;
+import com.poc.redis.infrastructure.repository.ProductRepository;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.BaseStatusListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Holds the {@link CatalogSnapshot} of this node, when {@code application.catalog.snapshot.enabled}.
+ * <p>
+ * The snapshot is built on startup, before the application reports ready, and replaced as a whole on each change,
+ * so that readers never lock nor see a change half applied. The usecases report every product and category written:
+ * once their transaction commits, the change is queued for a single worker and published on a Redis topic for the
+ * other nodes to do the same. The worker reads the products queued since its last run again and copies the snapshot
+ * once for all of them; a category change rebuilds it, as the category is embedded in its products. Changes
+ * published while this node was disconnected from Redis are lost, so the snapshot is rebuilt when the node
+ * subscribes again. A rebuild that fails keeps the current snapshot, and the products queued, and is tried again
+ * after a delay growing with each failure.
+ * <p>
+ * With the {@code mapped} store, the snapshot is kept off the heap in a file: a node starting with the file of its
+ * previous run serves it at once, possibly stale, while the snapshot is rebuilt from the database in the background.
+ */
+@Service
+public class CatalogSnapshotService implements ApplicationRunner, DisposableBean {
+
+    public static final String SNAPSHOT_UPDATE_TOPIC = "catalog:snapshot-updates";
+
+    private final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final ProductRepository productRepository;
+
+    private final ProductCategoryRepository productCategoryRepository;
+
+    private final ProductMapper productMapper;
+
+    private final ProductCategoryMapper productCategoryMapper;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final ApplicationProperties.Snapshot properties;
+
+    private final RTopic topic;
+
+    private final String origin = UUID.randomUUID().toString();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+        new CustomizableThreadFactory("catalog-snapshot-")
+    );
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private final Set<Long> changedProducts = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    /**
+     * Number of rebuilds failed in a row, only accessed by the worker.
+     */
+    private int rebuildFailures;
+
+    private volatile CatalogSnapshot snapshot;
+
+    public CatalogSnapshotService(
+        ProductRepository productRepository,
+        ProductCategoryRepository productCategoryRepository,
+        ProductMapper productMapper,
+        ProductCategoryMapper productCategoryMapper,
+        RedissonClient redissonClient,
+        RedisCircuitBreaker circuitBreaker,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productRepository = productRepository;
+        this.productCategoryRepository = productCategoryRepository;
+        this.productMapper = productMapper;
+        this.productCategoryMapper = productCategoryMapper;
+        this.circuitBreaker = circuitBreaker;
+        this.properties = applicationProperties.getCatalog().getSnapshot();
+        this.topic = redissonClient.getTopic(SNAPSHOT_UPDATE_TOPIC);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException, ExecutionException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        topic.addListener(
+            SnapshotUpdate.class,
+            (channel, update) -> {
+                if (!origin.equals(update.getOrigin())) {
+                    queue(update);
+                }
+            }
+        );
+        topic.addListener(
+            new BaseStatusListener() {
+                @Override
+                public void onSubscribe(String channel) {
+                    if (!subscribed.compareAndSet(false, true)) {
+                        queueRebuild();
+                    }
+                }
+            }
+        );
+        // The updates skipped while Redis was unavailable are lost as well.
+        circuitBreaker.addRebuildListener(this::queueRebuild);
+        if (properties.getStore() == ApplicationProperties.SnapshotStore.MAPPED && openFile()) {
+            queueRebuild();
+            return;
+        }
+        executor.submit(this::rebuild).get();
+    }
+
+    /**
+     * Maps the snapshot file written by a previous run, if any.
+     *
+     * @return whether the snapshot is served from the file.
+     */
+    private boolean openFile() {
+        Path file = Paths.get(properties.getFile());
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            MappedCatalogSnapshot mapped = MappedCatalogSnapshot.open(file, productMapper);
+            snapshot = mapped;
+            log.info(
+                "Serving the catalog snapshot of {} products and {} categories built at {} from {}, until rebuilt",
+                mapped.getProductCount(),
+                mapped.getCategoryCount(),
+                mapped.getBuiltAt(),
+                file
+            );
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not open the catalog snapshot {}, rebuilding it: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return the current snapshot, empty when disabled or not built yet: the reads then go to the database.
+     */
+    public Optional<CatalogSnapshot> current() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * Updates the product in the snapshot once the current transaction commits, on this node and the others.
+     *
+     * @param id the id of the product created, updated or deleted.
+     */
+    public void productChanged(Long id) {
+        productsChanged(Collections.singletonList(id));
+    }
+
+    /**
+     * Updates products in the snapshot once the current transaction commits, on this node and the others, with a
+     * single message.
+     *
+     * @param ids the ids of the products created, updated or deleted.
+     */
+    public void productsChanged(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            afterCommit(new SnapshotUpdate(origin, new ArrayList<>(ids), null));
+        }
+    }
+
+    /**
+     * Updates the category, and the products embedding it, in the snapshot once the current transaction commits, on
+     * this node and the others.
+     *
+     * @param id the id of the category created, updated or deleted.
+     */
+    public void categoryChanged(Long id) {
+        afterCommit(new SnapshotUpdate(origin, null, id));
+    }
+
+    private void afterCommit(SnapshotUpdate update) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(update);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(update);
+                }
+            }
+        );
+    }
+
+    private void dispatch(SnapshotUpdate update) {
+        queue(update);
+        if (circuitBreaker.isOpen()) {
+            // Redis is unavailable, every node rebuilds its snapshot once it is back.
+            return;
+        }
+        try {
+            topic.publish(update);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish the catalog snapshot update {}: {}", update, e.getMessage());
+        }
+    }
+
+    private void queue(SnapshotUpdate update) {
+        if (update.getCategoryId() != null) {
+            queueRebuild();
+        } else if (changedProducts.addAll(update.getProductIds())) {
+            executor.execute(this::applyChangedProducts);
+        }
+    }
+
+    private void queueRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Reads the products changed since the last run again, and copies the snapshot once with all of them.
+     */
+    private void applyChangedProducts() {
+        if (changedProducts.isEmpty() || snapshot == null) {
+            return;
+        }
+        Map<Long, ProductDTO> changes = new HashMap<>();
+        List<Long> ids = new ArrayList<>(changedProducts);
+        changedProducts.removeAll(ids);
+        try {
+            for (int from = 0; from < ids.size(); from += properties.getBatchSize()) {
+                List<Long> batch = ids.subList(from, Math.min(from + properties.getBatchSize(), ids.size()));
+                batch.forEach(id -> changes.put(id, null));
+                for (Product product : productRepository.findAllWithEagerRelationships(batch)) {
+                    changes.put(product.getId(), productMapper.toDto(product));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not read the products changed, rebuilding the catalog snapshot: {}", e.getMessage());
+            changedProducts.addAll(ids);
+            queueRebuild();
+            return;
+        }
+        try {
+            snapshot = snapshot.withProducts(changes);
+        } catch (RuntimeException e) {
+            log.warn("Could not update the catalog snapshot, rebuilding it: {}", e.getMessage());
+            queueRebuild();
+            return;
+        }
+        log.debug("Updated {} products in the catalog snapshot", changes.size());
+    }
+
+    private void rebuild() {
+        rebuildQueued.set(false);
+        long start = System.nanoTime();
+        // The products changed from now on are read by the rebuild or applied after it, those changed before are
+        // queued again if it fails.
+        List<Long> pending = new ArrayList<>(changedProducts);
+        changedProducts.removeAll(pending);
+        List<ProductCategoryDTO> categories;
+        List<ProductDTO> products;
+        try {
+            categories = readAll(productCategoryRepository, productCategoryMapper::toDto, ProductCategoryDTO::getId);
+            products = readAll(productRepository, productMapper::toDto, ProductDTO::getId, "productCategory");
+        } catch (RuntimeException e) {
+            log.error("Could not build the catalog snapshot, keeping the current one: {}", e.getMessage());
+            retryRebuild(pending);
+            return;
+        }
+        try {
+            snapshot = build(products, categories);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not write the catalog snapshot, keeping the current one: {}", e.getMessage());
+            retryRebuild(pending);
+            return;
+        }
+        rebuildFailures = 0;
+        log.info(
+            "Built the catalog snapshot of {} products and {} categories in {} ms",
+            products.size(),
+            categories.size(),
+            (System.nanoTime() - start) / 1_000_000
+        );
+    }
+
+    /**
+     * Queues the products changed before a failed rebuild again, and the rebuild after {@code retry-interval},
+     * doubled on each failure in a row up to {@code max-retry-interval}.
+     */
+    private void retryRebuild(List<Long> pending) {
+        changedProducts.addAll(pending);
+        long delay = Math.min(
+            properties.getRetryInterval().toMillis() << Math.min(rebuildFailures++, 30),
+            properties.getMaxRetryInterval().toMillis()
+        );
+        // Unless a rebuild was queued meanwhile.
+        if (rebuildQueued.compareAndSet(false, true)) {
+            log.info("Retrying to build the catalog snapshot in {} ms", delay);
+            executor.schedule(this::rebuild, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private CatalogSnapshot build(List<ProductDTO> products, List<ProductCategoryDTO> categories) throws IOException {
+        if (properties.getStore() == ApplicationProperties.SnapshotStore.MAPPED) {
+            return MappedCatalogSnapshot.write(Paths.get(properties.getFile()), products, categories, productMapper);
+        }
+        return new HeapCatalogSnapshot(products.toArray(new ProductDTO[0]), categories.toArray(new ProductCategoryDTO[0]));
+    }
+
+    /**
+     * Reads every entity by batches, in increasing id order.
+     */
+    private <T, D> List<D> readAll(KeysetRepository<T> repository, Function<T, D> toDto, Function<D, Long> idOf, String... fetches) {
+        List<D> all = new ArrayList<>();
+        Keyset keyset = Keyset.first("id", Sort.Direction.ASC, properties.getBatchSize());
+        while (true) {
+            Slice<T> batch = repository.findAll(keyset, fetches);
+            batch.getContent().stream().map(toDto).forEach(all::add);
+            if (!batch.hasNext()) {
+                return all;
+            }
+            String lastId = idOf.apply(all.get(all.size() - 1)).toString();
+            keyset = Keyset.after("id", Sort.Direction.ASC, lastId, lastId, properties.getBatchSize());
+        }
+    }
+
+    /**
+     * Message broadcast to the other nodes: either products or a category changed.
+     */
+    public static class SnapshotUpdate implements Serializable {
+
+        private static final long serialVersionUID = 2L;
+
+        private String origin;
+
+        private List<Long> productIds;
+
+        private Long categoryId;
+
+        public SnapshotUpdate() {}
+
+        public SnapshotUpdate(String origin, List<Long> productIds, Long categoryId) {
+            this.origin = origin;
+            this.productIds = productIds;
+            this.categoryId = categoryId;
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public List<Long> getProductIds() {
+            return productIds;
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        @Override
+        public String toString() {
+            return "SnapshotUpdate{productIds=" + productIds + ", categoryId=" + categoryId + "}";
+        }
+    }
+}
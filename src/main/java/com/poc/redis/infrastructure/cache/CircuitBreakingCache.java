@@ -0,0 +1,251 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * {@link Cache} decorator that stops calling Redis while the {@link RedisCircuitBreaker} is open.
+ * <p>
+ * Meanwhile the entries are kept in a bounded in-JVM LRU, so lookups fall back to the loader (i.e. the
+ * database) at most once per key. A failing Redis call is answered the same way instead of failing the
+ * request.
+ * <p>
+ * Writes cannot reach Redis while it is down: the keys written or evicted meanwhile are remembered and
+ * evicted from Redis once the circuit closes, the whole cache is cleared when there were too many of them
+ * to remember.
+ */
+public class CircuitBreakingCache implements Cache {
+
+    private final Logger log = LoggerFactory.getLogger(CircuitBreakingCache.class);
+
+    private final String name;
+
+    private final Cache target;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final int maxLocalEntries;
+
+    private final Map<Object, ValueWrapper> local;
+
+    private final Set<Object> pendingEvictions = new LinkedHashSet<>();
+
+    private boolean pendingClear;
+
+    public CircuitBreakingCache(String name, Cache target, RedisCircuitBreaker circuitBreaker, int maxLocalEntries) {
+        this.name = name;
+        this.target = target;
+        this.circuitBreaker = circuitBreaker;
+        this.maxLocalEntries = maxLocalEntries;
+        this.local =
+            Collections.synchronizedMap(
+                new LinkedHashMap<Object, ValueWrapper>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Object, ValueWrapper> eldest) {
+                        return size() > maxLocalEntries;
+                    }
+                }
+            );
+        circuitBreaker.addCloseListener(this::resync);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return call(() -> target.get(key), () -> local.get(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        return call(
+            () -> target.get(key, type),
+            () -> {
+                ValueWrapper wrapper = local.get(key);
+                return wrapper != null ? (T) wrapper.get() : null;
+            }
+        );
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return getLocal(key, valueLoader);
+        }
+        long[] loadNanos = { 0 };
+        long start = System.nanoTime();
+        T value;
+        try {
+            value =
+                target.get(
+                    key,
+                    () -> {
+                        long loadStart = System.nanoTime();
+                        try {
+                            return valueLoader.call();
+                        } finally {
+                            loadNanos[0] = System.nanoTime() - loadStart;
+                        }
+                    }
+                );
+        } catch (ValueRetrievalException e) {
+            // The loader failed, not Redis.
+            circuitBreaker.onSuccess(System.nanoTime() - start - loadNanos[0]);
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            log.debug("Redis lookup of {} in cache {} failed, loading it locally: {}", key, name, e.getMessage());
+            return getLocal(key, valueLoader);
+        }
+        circuitBreaker.onSuccess(System.nanoTime() - start - loadNanos[0]);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        call(
+            () -> {
+                target.put(key, value);
+                return null;
+            },
+            () -> {
+                local.put(key, new SimpleValueWrapper(value));
+                deferEviction(key);
+                return null;
+            }
+        );
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return call(
+            () -> target.putIfAbsent(key, value),
+            () -> {
+                deferEviction(key);
+                return local.putIfAbsent(key, new SimpleValueWrapper(value));
+            }
+        );
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictIfPresent(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        local.remove(key);
+        return call(
+            () -> target.evictIfPresent(key),
+            () -> {
+                deferEviction(key);
+                return false;
+            }
+        );
+    }
+
+    @Override
+    public void clear() {
+        invalidate();
+    }
+
+    @Override
+    public boolean invalidate() {
+        local.clear();
+        return call(
+            target::invalidate,
+            () -> {
+                deferEviction(null);
+                return false;
+            }
+        );
+    }
+
+    private <T> T call(Supplier<T> redisCall, Supplier<T> fallback) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return fallback.get();
+        }
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = redisCall.get();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            log.debug("Redis call on cache {} failed, falling back to the local cache: {}", name, e.getMessage());
+            return fallback.get();
+        }
+        circuitBreaker.onSuccess(System.nanoTime() - start);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getLocal(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = local.get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        local.put(key, new SimpleValueWrapper(value));
+        return value;
+    }
+
+    private synchronized void deferEviction(Object key) {
+        if (key == null || pendingEvictions.size() >= maxLocalEntries) {
+            pendingClear = true;
+            pendingEvictions.clear();
+        } else if (!pendingClear) {
+            pendingEvictions.add(key);
+        }
+    }
+
+    /**
+     * Applies the writes missed by Redis, and drops the local entries that Redis now serves again.
+     */
+    private void resync() {
+        Set<Object> keys;
+        boolean clear;
+        synchronized (this) {
+            keys = new LinkedHashSet<>(pendingEvictions);
+            clear = pendingClear;
+            pendingEvictions.clear();
+            pendingClear = false;
+        }
+        try {
+            if (clear) {
+                target.clear();
+            } else {
+                keys.forEach(target::evict);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not apply the evictions missed by Redis in cache {}, clearing it: {}", name, e.getMessage());
+            deferEviction(null);
+        }
+        local.clear();
+    }
+}
@@ -0,0 +1,46 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * {@link CacheManager} that wraps the caches of a delegate manager in a {@link CircuitBreakingCache},
+ * all guarded by the same {@link RedisCircuitBreaker}.
+ */
+public class CircuitBreakingCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final int maxLocalEntries;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public CircuitBreakingCacheManager(CacheManager delegate, RedisCircuitBreaker circuitBreaker, int maxLocalEntries) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.maxLocalEntries = maxLocalEntries;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new CircuitBreakingCache(cacheName, target, circuitBreaker, maxLocalEntries));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
@@ -0,0 +1,102 @@
+package com.poc.redis.infrastructure.cache;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.serializers.CollectionSerializer;
+import com.esotericsoftware.kryo.serializers.MapSerializer;
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.domain.enumeration.Size;
+import com.poc.redis.domain.model.Authority;
+import com.poc.redis.domain.model.User;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import org.hibernate.collection.internal.PersistentBag;
+import org.hibernate.collection.internal.PersistentList;
+import org.hibernate.collection.internal.PersistentMap;
+import org.hibernate.collection.internal.PersistentSet;
+import org.redisson.codec.Kryo5Codec;
+import org.redisson.spring.cache.NullValue;
+
+/**
+ * Kryo codec for the cached entities and DTOs.
+ * <p>
+ * Cached types are registered with fixed ids, so an entry carries a varint instead of the class name
+ * of every object it contains. Hibernate collections are written as plain collections and read back
+ * detached from any session.
+ * <p>
+ * The registrations are part of the wire format: only ever append to them, and bump {@link #FORMAT}
+ * when an existing id has to change.
+ */
+public class CompactKryoCodec extends Kryo5Codec {
+
+    public static final String FORMAT = "kryo1";
+
+    private static final int FIRST_REGISTRATION_ID = 100;
+
+    public CompactKryoCodec() {
+        super();
+    }
+
+    public CompactKryoCodec(ClassLoader classLoader) {
+        super(classLoader);
+    }
+
+    public CompactKryoCodec(ClassLoader classLoader, CompactKryoCodec codec) {
+        super(classLoader, codec);
+    }
+
+    @Override
+    protected Kryo createKryo(ClassLoader classLoader) {
+        Kryo kryo = super.createKryo(classLoader);
+        kryo.addDefaultSerializer(PersistentSet.class, new DetachedCollectionSerializer(HashSet::new));
+        kryo.addDefaultSerializer(PersistentBag.class, new DetachedCollectionSerializer(ArrayList::new));
+        kryo.addDefaultSerializer(PersistentList.class, new DetachedCollectionSerializer(ArrayList::new));
+        kryo.addDefaultSerializer(PersistentMap.class, new DetachedMapSerializer());
+
+        int id = FIRST_REGISTRATION_ID;
+        kryo.register(VersionedKeyCache.VersionedKey.class, id++);
+        kryo.register(NullValue.class, id++);
+        kryo.register(HashSet.class, id++);
+        kryo.register(ArrayList.class, id++);
+        kryo.register(HashMap.class, id++);
+        kryo.register(BigDecimal.class, id++);
+        kryo.register(Instant.class, id++);
+        kryo.register(Size.class, id++);
+        kryo.register(User.class, id++);
+        kryo.register(Authority.class, id++);
+        kryo.register(ProductDTO.class, id++);
+        kryo.register(ProductCategoryDTO.class, id++);
+        kryo.register(byte[].class, id++);
+        return kryo;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static class DetachedCollectionSerializer extends CollectionSerializer<Collection> {
+
+        private final java.util.function.IntFunction<Collection> factory;
+
+        DetachedCollectionSerializer(java.util.function.IntFunction<Collection> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        protected Collection create(Kryo kryo, Input input, Class<? extends Collection> type, int size) {
+            return factory.apply(size);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class DetachedMapSerializer extends MapSerializer<Map> {
+
+        @Override
+        protected Map create(Kryo kryo, Input input, Class<? extends Map> type, int size) {
+            return new HashMap<>(size);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.poc.redis.infrastructure.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.handler.State;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+
+/**
+ * Codec that LZ4-compresses the values of a delegate codec once their encoded form reaches a threshold.
+ * <p>
+ * Every value starts with a marker byte: {@code 0} for a value stored as encoded by the delegate,
+ * {@code 1} for a compressed value, followed by its uncompressed length. Small values are left as is,
+ * the compression header and CPU would cost more than the bytes they save.
+ */
+public class CompressingCodec extends BaseCodec {
+
+    private static final byte RAW = 0;
+
+    private static final byte LZ4 = 1;
+
+    private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+
+    private final Codec delegate;
+
+    private final int threshold;
+
+    private final LZ4Compressor compressor = LZ4_FACTORY.fastCompressor();
+
+    private final LZ4FastDecompressor decompressor = LZ4_FACTORY.fastDecompressor();
+
+    private final Encoder encoder = new Encoder() {
+        @Override
+        public ByteBuf encode(Object in) throws IOException {
+            ByteBuf encoded = delegate.getValueEncoder().encode(in);
+            try {
+                int length = encoded.readableBytes();
+                if (threshold < 0 || length < threshold) {
+                    ByteBuf out = ByteBufAllocator.DEFAULT.buffer(length + 1);
+                    out.writeByte(RAW);
+                    out.writeBytes(encoded);
+                    return out;
+                }
+                int maxCompressedLength = compressor.maxCompressedLength(length);
+                ByteBuf out = ByteBufAllocator.DEFAULT.buffer(maxCompressedLength + 5);
+                out.writeByte(LZ4);
+                out.writeInt(length);
+                ByteBuffer target = out.nioBuffer(out.writerIndex(), maxCompressedLength);
+                int compressedLength = compressor.compress(encoded.nioBuffer(), 0, length, target, 0, maxCompressedLength);
+                out.writerIndex(out.writerIndex() + compressedLength);
+                return out;
+            } finally {
+                encoded.release();
+            }
+        }
+    };
+
+    private final Decoder<Object> decoder = new Decoder<Object>() {
+        @Override
+        public Object decode(ByteBuf buf, State state) throws IOException {
+            byte marker = buf.readByte();
+            if (marker == RAW) {
+                return delegate.getValueDecoder().decode(buf, state);
+            }
+            if (marker != LZ4) {
+                throw new IOException("Unknown value format " + marker);
+            }
+            int length = buf.readInt();
+            ByteBuf uncompressed = ByteBufAllocator.DEFAULT.buffer(length);
+            try {
+                ByteBuffer target = uncompressed.nioBuffer(0, length);
+                int read = decompressor.decompress(buf.nioBuffer(), 0, target, 0, length);
+                buf.skipBytes(read);
+                uncompressed.writerIndex(length);
+                return delegate.getValueDecoder().decode(uncompressed, state);
+            } finally {
+                uncompressed.release();
+            }
+        }
+    };
+
+    /**
+     * @param delegate  the codec encoding the values.
+     * @param threshold the encoded size in bytes from which values are compressed, never compressed when negative.
+     */
+    public CompressingCodec(Codec delegate, int threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    public CompressingCodec(ClassLoader classLoader, CompressingCodec codec) throws ReflectiveOperationException {
+        this(copy(classLoader, codec.delegate), codec.threshold);
+    }
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return delegate.getClassLoader();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " [delegate=" + delegate + ", threshold=" + threshold + "]";
+    }
+}
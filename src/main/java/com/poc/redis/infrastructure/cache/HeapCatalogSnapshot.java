@@ -0,0 +1,132 @@
+package com.poc.redis.infrastructure.cache;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * {@link CatalogSnapshot} kept on the heap: the DTOs, in arrays sorted by id.
+ */
+public final class HeapCatalogSnapshot extends CatalogSnapshot {
+
+    static final Comparator<ProductDTO> PRODUCTS_BY_NAME = Comparator
+        .comparing(ProductDTO::getName, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(ProductDTO::getId);
+
+    static final Comparator<ProductDTO> PRODUCTS_BY_PRICE = Comparator
+        .comparing(ProductDTO::getPrice, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(ProductDTO::getId);
+
+    static final Comparator<ProductCategoryDTO> CATEGORIES_BY_NAME = Comparator
+        .comparing(ProductCategoryDTO::getName, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(ProductCategoryDTO::getId);
+
+    private final long[] productIds;
+
+    private final ProductDTO[] products;
+
+    private final Map<String, int[]> productOrders;
+
+    private final long[] categoryIds;
+
+    private final ProductCategoryDTO[] categories;
+
+    private final Map<String, int[]> categoryOrders;
+
+    /**
+     * @param products the products, sorted by id.
+     * @param categories the categories, sorted by id.
+     */
+    public HeapCatalogSnapshot(ProductDTO[] products, ProductCategoryDTO[] categories) {
+        this.products = products;
+        this.productIds = Arrays.stream(products).mapToLong(ProductDTO::getId).toArray();
+        this.productOrders = Map.of("name", order(products, PRODUCTS_BY_NAME), "price", order(products, PRODUCTS_BY_PRICE));
+        this.categories = categories;
+        this.categoryIds = Arrays.stream(categories).mapToLong(ProductCategoryDTO::getId).toArray();
+        this.categoryOrders = Map.of("name", order(categories, CATEGORIES_BY_NAME));
+    }
+
+    @Override
+    public Optional<ProductDTO> findProduct(Long id) {
+        int position = Arrays.binarySearch(productIds, id);
+        return position >= 0 ? Optional.of(products[position]) : Optional.empty();
+    }
+
+    @Override
+    public Optional<ProductCategoryDTO> findCategory(Long id) {
+        int position = Arrays.binarySearch(categoryIds, id);
+        return position >= 0 ? Optional.of(categories[position]) : Optional.empty();
+    }
+
+    @Override
+    public int getProductCount() {
+        return products.length;
+    }
+
+    @Override
+    public int getCategoryCount() {
+        return categories.length;
+    }
+
+    @Override
+    public CatalogSnapshot withProducts(Map<Long, ProductDTO> changes) {
+        Iterator<Map.Entry<Long, ProductDTO>> changed = new TreeMap<>(changes).entrySet().iterator();
+        Map.Entry<Long, ProductDTO> change = changed.hasNext() ? changed.next() : null;
+        List<ProductDTO> merged = new ArrayList<>(products.length + changes.size());
+        int i = 0;
+        while (i < products.length || change != null) {
+            if (change == null || (i < products.length && productIds[i] < change.getKey())) {
+                merged.add(products[i++]);
+                continue;
+            }
+            if (i < products.length && productIds[i] == change.getKey()) {
+                i++;
+            }
+            if (change.getValue() != null) {
+                merged.add(change.getValue());
+            }
+            change = changed.hasNext() ? changed.next() : null;
+        }
+        return new HeapCatalogSnapshot(merged.toArray(new ProductDTO[0]), categories);
+    }
+
+    @Override
+    protected ProductDTO productAt(int position) {
+        return products[position];
+    }
+
+    @Override
+    protected ProductCategoryDTO categoryAt(int position) {
+        return categories[position];
+    }
+
+    @Override
+    protected IntUnaryOperator productOrder(String property) {
+        int[] order = productOrders.get(property);
+        return order == null ? null : rank -> order[rank];
+    }
+
+    @Override
+    protected IntUnaryOperator categoryOrder(String property) {
+        int[] order = categoryOrders.get(property);
+        return order == null ? null : rank -> order[rank];
+    }
+
+    static <T> int[] order(T[] items, Comparator<T> comparator) {
+        return IntStream
+            .range(0, items.length)
+            .boxed()
+            .sorted(Comparator.comparing(i -> items[i], comparator))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+}
@@ -0,0 +1,785 @@
+package com.poc.redis.infrastructure.cache;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.mapper.ProductMapper;
+import com.poc.redis.domain.enumeration.Size;
+import com.poc.redis.domain.model.Product;
+import com.poc.redis.domain.model.ProductCategory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * {@link CatalogSnapshot} kept off the heap, in a memory-mapped file that outlives the application.
+ * <p>
+ * The file holds fixed-width columns, each an array indexed by the position of the product or category in id order,
+ * followed by a heap of the strings they reference:
+ * <ul>
+ *     <li>a header: magic number, version, product and category counts, build time, strings offset, file length and
+ *     number of bytes of strings no longer referenced;</li>
+ *     <li>products: id, price in minor units, category id, name, description, image content type and key, position
+ *     at each rank by name and by price, size ordinal;</li>
+ *     <li>categories: id, name, description, position at each rank by name;</li>
+ *     <li>strings: length then UTF-8 bytes, each distinct string stored once.</li>
+ * </ul>
+ * Reads go through {@link ProductRecord} and {@link CategoryRecord} flyweights, and the DTOs are only created for the
+ * products and categories returned, by the {@link ProductMapper}. The prices have at most two decimals, like the
+ * database column. The file is written aside then moved in place, so that a crash never leaves it half written, and
+ * is limited to 2 GB.
+ * <p>
+ * The products changed are written to a new file with the columns of the others copied from this one: the strings
+ * are copied as a block and those of the products changed appended, until the strings no longer referenced make up
+ * half of them, when they are compacted.
+ */
+public final class MappedCatalogSnapshot extends CatalogSnapshot {
+
+    private static final int MAGIC = 0x43415431;
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_LENGTH = 64;
+
+    private static final int PRICE_SCALE = 2;
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private static final int NULL_STRING = -1;
+
+    private static final byte NULL_SIZE = -1;
+
+    private static final Size[] SIZES = Size.values();
+
+    private static final Comparator<String> NAMES = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final Path file;
+
+    private final ByteBuffer buffer;
+
+    private final ProductMapper productMapper;
+
+    private final int productCount;
+
+    private final int categoryCount;
+
+    private final Instant builtAt;
+
+    private final Columns columns;
+
+    private final int strings;
+
+    private MappedCatalogSnapshot(Path file, ByteBuffer buffer, ProductMapper productMapper) {
+        this.file = file;
+        this.buffer = buffer;
+        this.productMapper = productMapper;
+        this.productCount = buffer.getInt(8);
+        this.categoryCount = buffer.getInt(12);
+        this.builtAt = Instant.ofEpochMilli(buffer.getLong(16));
+        this.columns = new Columns(productCount, categoryCount);
+        this.strings = (int) buffer.getLong(24);
+    }
+
+    /**
+     * Maps a snapshot written before.
+     *
+     * @param productMapper the mapper of the products read.
+     * @throws IOException if the file cannot be read or is not a snapshot of this version.
+     */
+    public static MappedCatalogSnapshot open(Path file, ProductMapper productMapper) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_LENGTH || length > Integer.MAX_VALUE) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(32) != length) {
+                throw new IOException("Not a catalog snapshot of version " + VERSION + ": " + file);
+            }
+            return new MappedCatalogSnapshot(file, buffer, productMapper);
+        }
+    }
+
+    /**
+     * Writes a snapshot, replacing the file, and maps it.
+     *
+     * @param products the products, sorted by id.
+     * @param categories the categories, sorted by id.
+     * @param productMapper the mapper of the products read.
+     */
+    public static MappedCatalogSnapshot write(
+        Path file,
+        List<ProductDTO> products,
+        List<ProductCategoryDTO> categories,
+        ProductMapper productMapper
+    ) throws IOException {
+        StringHeap heap = new StringHeap(0);
+        int[][] productStrings = new int[products.size()][];
+        for (int i = 0; i < productStrings.length; i++) {
+            productStrings[i] = addStrings(heap, products.get(i));
+        }
+        int[][] categoryStrings = new int[categories.size()][];
+        for (int i = 0; i < categoryStrings.length; i++) {
+            ProductCategoryDTO category = categories.get(i);
+            categoryStrings[i] = new int[] { heap.add(category.getName()), heap.add(category.getDescription()) };
+        }
+        ProductDTO[] productArray = products.toArray(new ProductDTO[0]);
+        ProductCategoryDTO[] categoryArray = categories.toArray(new ProductCategoryDTO[0]);
+        int[] productsByName = HeapCatalogSnapshot.order(productArray, HeapCatalogSnapshot.PRODUCTS_BY_NAME);
+        int[] productsByPrice = HeapCatalogSnapshot.order(productArray, HeapCatalogSnapshot.PRODUCTS_BY_PRICE);
+        int[] categoriesByName = HeapCatalogSnapshot.order(categoryArray, HeapCatalogSnapshot.CATEGORIES_BY_NAME);
+
+        Columns columns = new Columns(products.size(), categories.size());
+        return write(
+            file,
+            columns,
+            heap.length,
+            0,
+            productMapper,
+            buffer -> {
+                for (int i = 0; i < productArray.length; i++) {
+                    putProduct(buffer, columns, i, productArray[i], productStrings[i]);
+                    buffer.putInt(columns.productNameOrder + 4 * i, productsByName[i]);
+                    buffer.putInt(columns.productPriceOrder + 4 * i, productsByPrice[i]);
+                }
+                for (int i = 0; i < categoryArray.length; i++) {
+                    buffer.putLong(columns.categoryId + 8 * i, categoryArray[i].getId());
+                    buffer.putInt(columns.categoryName + 4 * i, categoryStrings[i][0]);
+                    buffer.putInt(columns.categoryDescription + 4 * i, categoryStrings[i][1]);
+                    buffer.putInt(columns.categoryNameOrder + 4 * i, categoriesByName[i]);
+                }
+                buffer.position(columns.strings);
+                heap.writeTo(buffer);
+            }
+        );
+    }
+
+    /**
+     * Writes the header of a snapshot and its content aside, moves it in place of the file and maps it.
+     *
+     * @param stringsLength the length of the strings, the end of the file.
+     * @param garbage the length of the strings no longer referenced.
+     * @param content writes the columns and strings.
+     */
+    private static MappedCatalogSnapshot write(
+        Path file,
+        Columns columns,
+        long stringsLength,
+        long garbage,
+        ProductMapper productMapper,
+        Consumer<ByteBuffer> content
+    ) throws IOException {
+        long length = (long) columns.strings + stringsLength;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("The catalog snapshot would exceed 2 GB: " + length + " bytes");
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (
+            FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, columns.productCount);
+            buffer.putInt(12, columns.categoryCount);
+            buffer.putLong(16, System.currentTimeMillis());
+            buffer.putLong(24, columns.strings);
+            buffer.putLong(32, length);
+            buffer.putLong(40, garbage);
+            content.accept(buffer);
+            buffer.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(file, productMapper);
+    }
+
+    /**
+     * @return the offsets of the name, description, image content type and key of a product, added to the heap.
+     */
+    private static int[] addStrings(StringHeap heap, ProductDTO product) {
+        return new int[] {
+            heap.add(product.getName()),
+            heap.add(product.getDescription()),
+            heap.add(product.getImageContentType()),
+            heap.add(product.getImageKey()),
+        };
+    }
+
+    /**
+     * Writes the columns of a product but its positions in the orders.
+     */
+    private static void putProduct(ByteBuffer buffer, Columns columns, int i, ProductDTO product, int[] strings) {
+        buffer.putLong(columns.productId + 8 * i, product.getId());
+        buffer.putLong(columns.productPrice + 8 * i, toMinorUnits(product.getPrice()));
+        buffer.putLong(
+            columns.productCategory + 8 * i,
+            product.getProductCategory() != null && product.getProductCategory().getId() != null
+                ? product.getProductCategory().getId()
+                : NULL_LONG
+        );
+        buffer.putInt(columns.productName + 4 * i, strings[0]);
+        buffer.putInt(columns.productDescription + 4 * i, strings[1]);
+        buffer.putInt(columns.productImageContentType + 4 * i, strings[2]);
+        buffer.putInt(columns.productImageKey + 4 * i, strings[3]);
+        buffer.put(columns.productSize + i, product.getProductSize() != null ? (byte) product.getProductSize().ordinal() : NULL_SIZE);
+    }
+
+    @Override
+    public Optional<ProductDTO> findProduct(Long id) {
+        int position = search(columns.productId, productCount, id);
+        return position >= 0 ? Optional.of(productAt(position)) : Optional.empty();
+    }
+
+    @Override
+    public Optional<ProductCategoryDTO> findCategory(Long id) {
+        int position = search(columns.categoryId, categoryCount, id);
+        return position >= 0 ? Optional.of(categoryAt(position)) : Optional.empty();
+    }
+
+    @Override
+    public int getProductCount() {
+        return productCount;
+    }
+
+    @Override
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * Writes the snapshot with the changes to the same file, and maps it: the readers of this snapshot go on reading
+     * the former file until they are done.
+     * <p>
+     * The products not changed are copied column by column, and keep their order relative to each other: only the
+     * products changed are sorted, then merged into the orders.
+     *
+     * @throws UncheckedIOException if the file cannot be written.
+     */
+    @Override
+    public CatalogSnapshot withProducts(Map<Long, ProductDTO> changes) {
+        // The position in the new snapshot of each product kept, -1 for those removed or replaced.
+        int[] moved = new int[productCount];
+        // The position in this snapshot of each product of the new one, -1 - i for the i-th product changed.
+        int[] sources = new int[productCount + changes.size()];
+        List<ProductDTO> added = new ArrayList<>(changes.size());
+        long garbage = buffer.getLong(40);
+        Iterator<Map.Entry<Long, ProductDTO>> changed = new TreeMap<>(changes).entrySet().iterator();
+        Map.Entry<Long, ProductDTO> change = changed.hasNext() ? changed.next() : null;
+        int count = 0;
+        int i = 0;
+        while (i < productCount || change != null) {
+            long id = i < productCount ? buffer.getLong(columns.productId + 8 * i) : Long.MAX_VALUE;
+            if (change == null || (i < productCount && id < change.getKey())) {
+                moved[i] = count;
+                sources[count++] = i++;
+                continue;
+            }
+            if (i < productCount && id == change.getKey()) {
+                garbage += stringsLength(i);
+                moved[i++] = -1;
+            }
+            if (change.getValue() != null) {
+                sources[count++] = -1 - added.size();
+                added.add(change.getValue());
+            }
+            change = changed.hasNext() ? changed.next() : null;
+        }
+        int[] addedPositions = new int[added.size()];
+        for (int position = 0; position < count; position++) {
+            if (sources[position] < 0) {
+                addedPositions[-1 - sources[position]] = position;
+            }
+        }
+
+        int heapLength = buffer.capacity() - strings;
+        boolean compact = garbage * 2 > heapLength;
+        StringHeap heap = new StringHeap(compact ? 0 : heapLength);
+        int[][] addedStrings = new int[added.size()][];
+        for (int j = 0; j < addedStrings.length; j++) {
+            addedStrings[j] = addStrings(heap, added.get(j));
+        }
+        int[] productsByName = merge(
+            columns.productNameOrder,
+            moved,
+            count,
+            added,
+            addedPositions,
+            HeapCatalogSnapshot.PRODUCTS_BY_NAME,
+            (position, j) -> compareByName(position, added.get(j))
+        );
+        int[] productsByPrice = merge(
+            columns.productPriceOrder,
+            moved,
+            count,
+            added,
+            addedPositions,
+            HeapCatalogSnapshot.PRODUCTS_BY_PRICE,
+            (position, j) -> compareByPrice(position, added.get(j))
+        );
+
+        Columns target = new Columns(count, categoryCount);
+        int[] productStrings = columns.productStrings();
+        int[] targetStrings = target.productStrings();
+        int[][] keptStrings = new int[count][];
+        int[][] categoryStrings = new int[categoryCount][];
+        if (compact) {
+            // Only the strings still referenced are copied, after those of the products changed.
+            for (int position = 0; position < count; position++) {
+                if (sources[position] >= 0) {
+                    keptStrings[position] = new int[productStrings.length];
+                    for (int k = 0; k < productStrings.length; k++) {
+                        keptStrings[position][k] = heap.add(string(productStrings[k], sources[position]));
+                    }
+                }
+            }
+            for (int j = 0; j < categoryCount; j++) {
+                categoryStrings[j] =
+                    new int[] { heap.add(string(columns.categoryName, j)), heap.add(string(columns.categoryDescription, j)) };
+            }
+        }
+        try {
+            return write(
+                file,
+                target,
+                heap.length,
+                compact ? 0 : garbage,
+                productMapper,
+                out -> {
+                    for (int position = 0; position < target.productCount; position++) {
+                        int source = sources[position];
+                        if (source < 0) {
+                            putProduct(out, target, position, added.get(-1 - source), addedStrings[-1 - source]);
+                        } else {
+                            out.putLong(target.productId + 8 * position, buffer.getLong(columns.productId + 8 * source));
+                            out.putLong(target.productPrice + 8 * position, buffer.getLong(columns.productPrice + 8 * source));
+                            out.putLong(target.productCategory + 8 * position, buffer.getLong(columns.productCategory + 8 * source));
+                            for (int k = 0; k < productStrings.length; k++) {
+                                out.putInt(
+                                    targetStrings[k] + 4 * position,
+                                    compact ? keptStrings[position][k] : buffer.getInt(productStrings[k] + 4 * source)
+                                );
+                            }
+                            out.put(target.productSize + position, buffer.get(columns.productSize + source));
+                        }
+                        out.putInt(target.productNameOrder + 4 * position, productsByName[position]);
+                        out.putInt(target.productPriceOrder + 4 * position, productsByPrice[position]);
+                    }
+                    copy(out, target.categoryId, columns.categoryId, 8 * categoryCount);
+                    copy(out, target.categoryNameOrder, columns.categoryNameOrder, 4 * categoryCount);
+                    if (compact) {
+                        for (int j = 0; j < categoryCount; j++) {
+                            out.putInt(target.categoryName + 4 * j, categoryStrings[j][0]);
+                            out.putInt(target.categoryDescription + 4 * j, categoryStrings[j][1]);
+                        }
+                        out.position(target.strings);
+                    } else {
+                        copy(out, target.categoryName, columns.categoryName, 4 * categoryCount);
+                        copy(out, target.categoryDescription, columns.categoryDescription, 4 * categoryCount);
+                        copy(out, target.strings, strings, heapLength);
+                    }
+                    heap.writeTo(out);
+                }
+            );
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Merges the order of the products kept, read from a column of this snapshot, with the products changed.
+     *
+     * @param column the column of the order, the position in id order of the product at each rank.
+     * @param moved the position in the new snapshot of each product of this one, -1 if it is not kept.
+     * @param count the number of products of the new snapshot.
+     * @param added the products changed.
+     * @param addedPositions the position in the new snapshot of each product changed.
+     * @param order the order of the products changed.
+     * @param compare compares a product kept, by its position in this snapshot, with a product changed, by its index.
+     * @return the position in the new snapshot of the product at each rank of the order.
+     */
+    private int[] merge(
+        int column,
+        int[] moved,
+        int count,
+        List<ProductDTO> added,
+        int[] addedPositions,
+        Comparator<ProductDTO> order,
+        IntBinaryOperator compare
+    ) {
+        int[] sorted = IntStream.range(0, added.size()).boxed().sorted(Comparator.comparing(added::get, order)).mapToInt(j -> j).toArray();
+        int[] merged = new int[count];
+        int rank = 0;
+        int next = 0;
+        for (int j : sorted) {
+            for (; rank < productCount; rank++) {
+                int position = buffer.getInt(column + 4 * rank);
+                if (moved[position] < 0) {
+                    continue;
+                }
+                if (compare.applyAsInt(position, j) > 0) {
+                    break;
+                }
+                merged[next++] = moved[position];
+            }
+            merged[next++] = addedPositions[j];
+        }
+        for (; rank < productCount; rank++) {
+            int position = buffer.getInt(column + 4 * rank);
+            if (moved[position] >= 0) {
+                merged[next++] = moved[position];
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Compares a product of this snapshot with another as {@link HeapCatalogSnapshot#PRODUCTS_BY_NAME}.
+     */
+    private int compareByName(int position, ProductDTO product) {
+        int byName = NAMES.compare(string(columns.productName, position), product.getName());
+        return byName != 0 ? byName : Long.compare(buffer.getLong(columns.productId + 8 * position), product.getId());
+    }
+
+    /**
+     * Compares a product of this snapshot with another as {@link HeapCatalogSnapshot#PRODUCTS_BY_PRICE}: the products
+     * without price, in {@link Long#MIN_VALUE}, come first.
+     */
+    private int compareByPrice(int position, ProductDTO product) {
+        int byPrice = Long.compare(buffer.getLong(columns.productPrice + 8 * position), toMinorUnits(product.getPrice()));
+        return byPrice != 0 ? byPrice : Long.compare(buffer.getLong(columns.productId + 8 * position), product.getId());
+    }
+
+    /**
+     * @return the length of the strings of a product, as an upper bound of those no longer referenced once removed.
+     */
+    private long stringsLength(int position) {
+        long length = 0;
+        for (int column : columns.productStrings()) {
+            int offset = buffer.getInt(column + 4 * position);
+            if (offset != NULL_STRING) {
+                length += 4 + buffer.getInt(strings + offset);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Copies bytes of this snapshot to another.
+     */
+    private void copy(ByteBuffer target, int to, int from, int length) {
+        ByteBuffer source = buffer.duplicate();
+        source.limit(from + length).position(from);
+        target.position(to);
+        target.put(source);
+    }
+
+    @Override
+    protected ProductDTO productAt(int position) {
+        return new ProductRecord().moveTo(position).toDto();
+    }
+
+    @Override
+    protected ProductCategoryDTO categoryAt(int position) {
+        return new CategoryRecord().moveTo(position).toDto();
+    }
+
+    @Override
+    protected IntUnaryOperator productOrder(String property) {
+        switch (property) {
+            case "name":
+                return rank -> buffer.getInt(columns.productNameOrder + 4 * rank);
+            case "price":
+                return rank -> buffer.getInt(columns.productPriceOrder + 4 * rank);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    protected IntUnaryOperator categoryOrder(String property) {
+        return "name".equals(property) ? rank -> buffer.getInt(columns.categoryNameOrder + 4 * rank) : null;
+    }
+
+    private int search(int column, int count, long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = buffer.getLong(column + 8 * middle);
+            if (value < id) {
+                low = middle + 1;
+            } else if (value > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private String string(int column, int position) {
+        int offset = buffer.getInt(column + 4 * position);
+        if (offset == NULL_STRING) {
+            return null;
+        }
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.position(strings + offset);
+        byte[] value = new byte[bytes.getInt()];
+        bytes.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static long toMinorUnits(BigDecimal price) {
+        return price != null ? price.movePointRight(PRICE_SCALE).longValueExact() : NULL_LONG;
+    }
+
+    /**
+     * Reusable view of one product of the snapshot: reads its columns in place, without copying the product.
+     */
+    public final class ProductRecord {
+
+        private int position;
+
+        public ProductRecord moveTo(int position) {
+            this.position = position;
+            return this;
+        }
+
+        public long getId() {
+            return buffer.getLong(columns.productId + 8 * position);
+        }
+
+        /**
+         * @return the price in hundredths, {@link Long#MIN_VALUE} if the product has none.
+         */
+        public long getPriceMinorUnits() {
+            return buffer.getLong(columns.productPrice + 8 * position);
+        }
+
+        public Size getProductSize() {
+            byte ordinal = buffer.get(columns.productSize + position);
+            return ordinal != NULL_SIZE ? SIZES[ordinal] : null;
+        }
+
+        /**
+         * @return the category id, {@link Long#MIN_VALUE} if the product has none.
+         */
+        public long getCategoryId() {
+            return buffer.getLong(columns.productCategory + 8 * position);
+        }
+
+        public String getName() {
+            return string(columns.productName, position);
+        }
+
+        public String getDescription() {
+            return string(columns.productDescription, position);
+        }
+
+        public String getImageContentType() {
+            return string(columns.productImageContentType, position);
+        }
+
+        public String getImageKey() {
+            return string(columns.productImageKey, position);
+        }
+
+        public ProductDTO toDto() {
+            return productMapper.toDto(toEntity());
+        }
+
+        /**
+         * @return the product, with its category as far as the {@link ProductMapper} maps it: its id and name.
+         */
+        private Product toEntity() {
+            Product product = new Product();
+            product.setId(getId());
+            product.setName(getName());
+            product.setDescription(getDescription());
+            long price = getPriceMinorUnits();
+            product.setPrice(price != NULL_LONG ? BigDecimal.valueOf(price, PRICE_SCALE) : null);
+            product.setProductSize(getProductSize());
+            product.setImageContentType(getImageContentType());
+            product.setImageKey(getImageKey());
+            long categoryId = getCategoryId();
+            if (categoryId != NULL_LONG) {
+                ProductCategory category = new ProductCategory();
+                category.setId(categoryId);
+                int categoryPosition = search(columns.categoryId, categoryCount, categoryId);
+                if (categoryPosition >= 0) {
+                    category.setName(string(columns.categoryName, categoryPosition));
+                }
+                product.setProductCategory(category);
+            }
+            return product;
+        }
+    }
+
+    /**
+     * Reusable view of one category of the snapshot.
+     */
+    public final class CategoryRecord {
+
+        private int position;
+
+        public CategoryRecord moveTo(int position) {
+            this.position = position;
+            return this;
+        }
+
+        public long getId() {
+            return buffer.getLong(columns.categoryId + 8 * position);
+        }
+
+        public String getName() {
+            return string(columns.categoryName, position);
+        }
+
+        public String getDescription() {
+            return string(columns.categoryDescription, position);
+        }
+
+        public ProductCategoryDTO toDto() {
+            ProductCategoryDTO category = new ProductCategoryDTO();
+            category.setId(getId());
+            category.setName(getName());
+            category.setDescription(getDescription());
+            return category;
+        }
+    }
+
+    /**
+     * Offsets of the columns in the file: the 8 bytes wide first, so that every value is aligned.
+     */
+    private static final class Columns {
+
+        final int productCount;
+        final int categoryCount;
+        final int productId;
+        final int productPrice;
+        final int productCategory;
+        final int categoryId;
+        final int productName;
+        final int productDescription;
+        final int productImageContentType;
+        final int productImageKey;
+        final int productNameOrder;
+        final int productPriceOrder;
+        final int categoryName;
+        final int categoryDescription;
+        final int categoryNameOrder;
+        final int productSize;
+        final int strings;
+
+        Columns(int productCount, int categoryCount) {
+            this.productCount = productCount;
+            this.categoryCount = categoryCount;
+            long offset = HEADER_LENGTH;
+            productId = (int) offset;
+            productPrice = (int) (offset += 8L * productCount);
+            productCategory = (int) (offset += 8L * productCount);
+            categoryId = (int) (offset += 8L * productCount);
+            productName = (int) (offset += 8L * categoryCount);
+            productDescription = (int) (offset += 4L * productCount);
+            productImageContentType = (int) (offset += 4L * productCount);
+            productImageKey = (int) (offset += 4L * productCount);
+            productNameOrder = (int) (offset += 4L * productCount);
+            productPriceOrder = (int) (offset += 4L * productCount);
+            categoryName = (int) (offset += 4L * productCount);
+            categoryDescription = (int) (offset += 4L * categoryCount);
+            categoryNameOrder = (int) (offset += 4L * categoryCount);
+            productSize = (int) (offset += 4L * categoryCount);
+            offset += productCount;
+            if (offset > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many products for a catalog snapshot: " + productCount);
+            }
+            strings = (int) offset;
+        }
+
+        /**
+         * @return the columns of the strings of the products, in the order of {@link #addStrings}.
+         */
+        int[] productStrings() {
+            return new int[] { productName, productDescription, productImageContentType, productImageKey };
+        }
+    }
+
+    /**
+     * Strings of the snapshot, while writing it: each distinct string is stored once.
+     */
+    private static final class StringHeap {
+
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        private final List<byte[]> values = new ArrayList<>();
+
+        private long length;
+
+        /**
+         * @param length the length of the strings copied before the heap.
+         */
+        StringHeap(long length) {
+            this.length = length;
+        }
+
+        int add(String value) {
+            if (value == null) {
+                return NULL_STRING;
+            }
+            Integer offset = offsets.get(value);
+            if (offset != null) {
+                return offset;
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The catalog snapshot strings exceed 2 GB");
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            offset = (int) length;
+            offsets.put(value, offset);
+            values.add(bytes);
+            length += 4 + bytes.length;
+            return offset;
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            for (byte[] value : values) {
+                buffer.putInt(value.length);
+                buffer.put(value);
+            }
+        }
+    }
+}
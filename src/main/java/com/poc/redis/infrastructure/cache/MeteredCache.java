@@ -0,0 +1,180 @@
+package com.poc.redis.infrastructure.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.redisson.api.RMap;
+import org.springframework.cache.Cache;
+
+/**
+ * {@link Cache} decorator around a Redisson cache that counts hits, misses, puts and evictions, and times
+ * the Redis round-trips of every operation.
+ * <p>
+ * Evictions are the ones issued by the application; entries dropped by Redis on expiry or on reaching the
+ * size bound are not counted.
+ */
+public class MeteredCache implements Cache {
+
+    public static final String LATENCY_METER_NAME = "cache.redis.latency";
+    public static final String LATENCY_METER_DESCRIPTION = "Round-trip time of the Redis operations of a cache.";
+    public static final String LATENCY_METER_CACHE_DIMENSION = "cache";
+    public static final String LATENCY_METER_OPERATION_DIMENSION = "operation";
+
+    private final String name;
+
+    private final Cache target;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder puts = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final Timer getTimer;
+
+    private final Timer putTimer;
+
+    private final Timer evictTimer;
+
+    public MeteredCache(String name, Cache target, MeterRegistry registry) {
+        this.name = name;
+        this.target = target;
+        this.getTimer = latencyTimer(registry, "get");
+        this.putTimer = latencyTimer(registry, "put");
+        this.evictTimer = latencyTimer(registry, "evict");
+    }
+
+    private Timer latencyTimer(MeterRegistry registry, String operation) {
+        return Timer
+            .builder(LATENCY_METER_NAME)
+            .description(LATENCY_METER_DESCRIPTION)
+            .tag(LATENCY_METER_CACHE_DIMENSION, name)
+            .tag(LATENCY_METER_OPERATION_DIMENSION, operation)
+            .register(registry);
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    long getPutCount() {
+        return puts.sum();
+    }
+
+    long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Number of entries in Redis, including the expired ones not purged yet.
+     */
+    Long getSize() {
+        Object nativeCache = target.getNativeCache();
+        return nativeCache instanceof RMap ? (long) ((RMap<?, ?>) nativeCache).size() : null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = getTimer.record(() -> target.get(key));
+        countLookup(wrapper != null);
+        return wrapper;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = getTimer.record(() -> target.get(key, type));
+        countLookup(value != null);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long[] loadNanos = { -1 };
+        long start = System.nanoTime();
+        T value = target.get(
+            key,
+            () -> {
+                long loadStart = System.nanoTime();
+                try {
+                    return valueLoader.call();
+                } finally {
+                    loadNanos[0] = System.nanoTime() - loadStart;
+                }
+            }
+        );
+        boolean loaded = loadNanos[0] >= 0;
+        getTimer.record(System.nanoTime() - start - Math.max(loadNanos[0], 0), TimeUnit.NANOSECONDS);
+        countLookup(!loaded);
+        if (loaded) {
+            puts.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        putTimer.record(() -> target.put(key, value));
+        puts.increment();
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = putTimer.record(() -> target.putIfAbsent(key, value));
+        if (existing == null) {
+            puts.increment();
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictTimer.record(() -> target.evict(key));
+        evictions.increment();
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        Boolean evicted = evictTimer.record(() -> target.evictIfPresent(key));
+        if (Boolean.TRUE.equals(evicted)) {
+            evictions.increment();
+        }
+        return Boolean.TRUE.equals(evicted);
+    }
+
+    @Override
+    public void clear() {
+        evictTimer.record(target::clear);
+    }
+
+    @Override
+    public boolean invalidate() {
+        Boolean invalidated = evictTimer.record(target::invalidate);
+        return Boolean.TRUE.equals(invalidated);
+    }
+
+    private void countLookup(boolean hit) {
+        if (hit) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.poc.redis.infrastructure.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * {@link CacheManager} that wraps the caches of a delegate manager in a {@link MeteredCache} and binds
+ * their {@link MeteredCacheMetrics} to the meter registry.
+ */
+public class MeteredCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+
+    private final MeterRegistry registry;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public MeteredCacheManager(CacheManager delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> decorate(cacheName, target));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    private Cache decorate(String cacheName, Cache target) {
+        MeteredCache cache = new MeteredCache(cacheName, target, registry);
+        new MeteredCacheMetrics(cache, Tags.empty()).bindTo(registry);
+        return cache;
+    }
+}
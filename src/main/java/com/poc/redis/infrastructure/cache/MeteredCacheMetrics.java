@@ -0,0 +1,50 @@
+package com.poc.redis.infrastructure.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Publishes the counters of a {@link MeteredCache} as the standard {@code cache.*} meters.
+ */
+public class MeteredCacheMetrics extends CacheMeterBinder<MeteredCache> {
+
+    public MeteredCacheMetrics(MeteredCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        MeteredCache cache = getCache();
+        return cache != null ? cache.getSize() : null;
+    }
+
+    @Override
+    protected long hitCount() {
+        MeteredCache cache = getCache();
+        return cache != null ? cache.getHitCount() : 0L;
+    }
+
+    @Override
+    protected Long missCount() {
+        MeteredCache cache = getCache();
+        return cache != null ? cache.getMissCount() : null;
+    }
+
+    @Override
+    protected Long evictionCount() {
+        MeteredCache cache = getCache();
+        return cache != null ? cache.getEvictionCount() : null;
+    }
+
+    @Override
+    protected long putCount() {
+        MeteredCache cache = getCache();
+        return cache != null ? cache.getPutCount() : 0L;
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        // The Redis latency timers are registered by the cache itself.
+    }
+}
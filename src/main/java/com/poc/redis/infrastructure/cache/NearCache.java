@@ -0,0 +1,327 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.redisson.api.RTopic;
+import org.redisson.api.listener.BaseStatusListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * Two-tier {@link Cache}: a bounded in-JVM LRU (L1) in front of the shared Redis cache (L2).
+ * <p>
+ * Every local write or eviction is published on a Redis topic so that the other nodes drop
+ * their L1 copy of the key. Messages emitted by this node are ignored on receipt.
+ * <p>
+ * L1 entries expire on their own too, at most the time to live of the L2 entries after they were read or written:
+ * the expiry of the L2 entries bounds how stale a value can be, and the reads of hot entries reach L2 again, where
+ * they may be reloaded before they expire (see {@link SingleFlightCache}).
+ */
+public class NearCache implements Cache {
+
+    /**
+     * Number of invalidation generations, a power of two: the keys sharing a stripe delay the promotion of each other.
+     */
+    private static final int GENERATION_STRIPES = 64;
+
+    private final Logger log = LoggerFactory.getLogger(NearCache.class);
+
+    private final String name;
+
+    private final Cache l2;
+
+    private final Map<Object, LocalEntry> l1;
+
+    private final long timeToLiveNanos;
+
+    private final RTopic topic;
+
+    private final String origin;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final int messageListenerId;
+
+    private final int statusListenerId;
+
+    /**
+     * Bumped on every invalidation of a key of the stripe, all of them when the cache is cleared, so that a value read
+     * from L2 while an invalidation of its key was in flight is not promoted to L1.
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * @param timeToLive the time an L1 entry is served for, since it was read from L2 or written.
+     */
+    public NearCache(
+        String name,
+        Cache l2,
+        int maxEntries,
+        Duration timeToLive,
+        RTopic topic,
+        String origin,
+        RedisCircuitBreaker circuitBreaker
+    ) {
+        this.name = name;
+        this.l2 = l2;
+        this.l1 = Collections.synchronizedMap(new BoundedLruMap<>(maxEntries));
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.topic = topic;
+        this.origin = origin;
+        this.circuitBreaker = circuitBreaker;
+        this.messageListenerId =
+            topic.addListener(
+                Invalidation.class,
+                (channel, invalidation) -> {
+                    if (!origin.equals(invalidation.getOrigin())) {
+                        invalidateLocal(invalidation.getKey());
+                    }
+                }
+            );
+        // Invalidations published while we were disconnected are lost, start over from L2.
+        this.statusListenerId =
+            topic.addListener(
+                new BaseStatusListener() {
+                    @Override
+                    public void onSubscribe(String channel) {
+                        invalidateLocal(null);
+                    }
+                }
+            );
+        // Same for the invalidations skipped while Redis was unavailable.
+        circuitBreaker.addCloseListener(() -> invalidateLocal(null));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public Duration getTimeToLive() {
+        return Duration.ofNanos(timeToLiveNanos);
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = getLocal(key);
+        if (wrapper != null) {
+            return wrapper;
+        }
+        long before = generations.get(stripe(key));
+        wrapper = l2.get(key);
+        if (wrapper != null) {
+            promote(key, wrapper, before);
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = getLocal(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        long before = generations.get(stripe(key));
+        T value = l2.get(key, valueLoader);
+        // A null loaded is not promoted: L2 may not have stored it, and L1 would serve it until it expires.
+        if (value != null) {
+            promote(key, new SimpleValueWrapper(value), before);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        replaceLocal(key, value);
+        publish(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        if (existing == null) {
+            replaceLocal(key, value);
+            publish(key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        invalidateLocal(key);
+        l2.evict(key);
+        publish(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        invalidateLocal(key);
+        boolean evicted = l2.evictIfPresent(key);
+        publish(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        invalidateLocal(null);
+        l2.clear();
+        publish(null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        invalidateLocal(null);
+        boolean invalidated = l2.invalidate();
+        publish(null);
+        return invalidated;
+    }
+
+    /**
+     * Stops listening for invalidations from the other nodes.
+     */
+    public void close() {
+        topic.removeListener(messageListenerId, statusListenerId);
+    }
+
+    private ValueWrapper getLocal(Object key) {
+        LocalEntry entry = l1.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            l1.remove(key, entry);
+            return null;
+        }
+        return entry.wrapper;
+    }
+
+    private void promote(Object key, ValueWrapper wrapper, long before) {
+        synchronized (l1) {
+            if (generations.get(stripe(key)) == before) {
+                l1.put(key, new LocalEntry(wrapper, System.nanoTime() + timeToLiveNanos));
+            }
+        }
+    }
+
+    private void replaceLocal(Object key, Object value) {
+        synchronized (l1) {
+            generations.incrementAndGet(stripe(key));
+            l1.put(key, new LocalEntry(new SimpleValueWrapper(value), System.nanoTime() + timeToLiveNanos));
+        }
+    }
+
+    private void invalidateLocal(Object key) {
+        synchronized (l1) {
+            if (key == null) {
+                for (int i = 0; i < GENERATION_STRIPES; i++) {
+                    generations.incrementAndGet(i);
+                }
+                l1.clear();
+            } else {
+                generations.incrementAndGet(stripe(key));
+                l1.remove(key);
+            }
+        }
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private void publish(Object key) {
+        if (circuitBreaker.isOpen()) {
+            // Redis is unavailable, every node drops its L1 once it is back.
+            return;
+        }
+        try {
+            topic.publish(new Invalidation(origin, key));
+        } catch (RuntimeException e) {
+            log.warn("Could not publish near cache invalidation for {} in cache {}: {}", key, getName(), e.getMessage());
+        }
+    }
+
+    private static final class LocalEntry {
+
+        final ValueWrapper wrapper;
+
+        /**
+         * {@link System#nanoTime()} from which the entry is no longer served.
+         */
+        final long expiresAt;
+
+        LocalEntry(ValueWrapper wrapper, long expiresAt) {
+            this.wrapper = wrapper;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class BoundedLruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        BoundedLruMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    /**
+     * Message broadcast to the other nodes; a {@code null} key invalidates the whole cache.
+     */
+    public static class Invalidation implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String origin;
+
+        private Object key;
+
+        public Invalidation() {}
+
+        public Invalidation(String origin, Object key) {
+            this.origin = origin;
+            this.key = key;
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.poc.redis.infrastructure.cache;
+
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * {@link CacheManager} that fronts the caches of a delegate manager with a {@link NearCache}
+ * when {@code application.cache.caches.<name>.near-cache.enabled} is set.
+ */
+public class NearCacheManager implements CacheManager, DisposableBean {
+
+    public static final String INVALIDATION_TOPIC_SUFFIX = ":near-cache-invalidation";
+
+    private final CacheManager delegate;
+
+    private final RedissonClient redissonClient;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final ApplicationProperties.Cache cacheProperties;
+
+    private final Duration defaultTtl;
+
+    private final String origin = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public NearCacheManager(
+        CacheManager delegate,
+        RedissonClient redissonClient,
+        RedisCircuitBreaker circuitBreaker,
+        ApplicationProperties.Cache cacheProperties,
+        Duration defaultTtl
+    ) {
+        this.delegate = delegate;
+        this.redissonClient = redissonClient;
+        this.circuitBreaker = circuitBreaker;
+        this.cacheProperties = cacheProperties;
+        this.defaultTtl = defaultTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> decorate(cacheName, target));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    private Cache decorate(String cacheName, Cache target) {
+        ApplicationProperties.CacheSpec spec = cacheProperties.getSpec(cacheName);
+        ApplicationProperties.NearCache nearCache = spec.getNearCache();
+        if (!nearCache.isEnabled()) {
+            return target;
+        }
+        return new NearCache(
+            cacheName,
+            target,
+            nearCache.getMaxEntries(),
+            timeToLive(spec),
+            redissonClient.getTopic(cacheName + INVALIDATION_TOPIC_SUFFIX),
+            origin,
+            circuitBreaker
+        );
+    }
+
+    /**
+     * @return the time to live of the L1 entries: the one configured or a tenth of the L2 one, at most the time to
+     * live and max idle of the L2 entries.
+     */
+    private Duration timeToLive(ApplicationProperties.CacheSpec spec) {
+        Duration ttl = spec.getTtl() != null ? spec.getTtl() : defaultTtl;
+        Duration timeToLive = spec.getNearCache().getTtl() != null ? spec.getNearCache().getTtl() : ttl.dividedBy(10);
+        if (timeToLive.compareTo(ttl) > 0) {
+            timeToLive = ttl;
+        }
+        if (spec.getMaxIdle() != null && !spec.getMaxIdle().isZero() && timeToLive.compareTo(spec.getMaxIdle()) > 0) {
+            timeToLive = spec.getMaxIdle();
+        }
+        return timeToLive;
+    }
+
+    @Override
+    public void destroy() {
+        caches
+            .values()
+            .stream()
+            .filter(NearCache.class::isInstance)
+            .map(NearCache.class::cast)
+            .forEach(NearCache::close);
+    }
+}
@@ -0,0 +1,32 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.util.Map;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.spring.cache.CacheConfig;
+import org.redisson.spring.cache.RedissonSpringCacheManager;
+
+/**
+ * {@link RedissonSpringCacheManager} that stores each cache under {@code <prefix><cache name>} in Redis,
+ * keeping it apart from structures of the same name written by another cache implementation.
+ */
+public class PrefixedRedissonCacheManager extends RedissonSpringCacheManager {
+
+    private final String prefix;
+
+    public PrefixedRedissonCacheManager(RedissonClient redisson, Map<String, ? extends CacheConfig> config, String prefix) {
+        super(redisson, config);
+        this.prefix = prefix;
+    }
+
+    public PrefixedRedissonCacheManager(RedissonClient redisson, Map<String, ? extends CacheConfig> config, Codec codec, String prefix) {
+        super(redisson, config, codec);
+        this.prefix = prefix;
+    }
+
+    @Override
+    protected RMapCache<Object, Object> getMapCache(String name, CacheConfig config) {
+        return super.getMapCache(prefix + name, config);
+    }
+}
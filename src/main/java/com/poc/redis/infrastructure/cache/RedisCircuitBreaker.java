@@ -0,0 +1,207 @@
+package com.poc.redis.infrastructure.cache;
+
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Count-based circuit breaker guarding the Redis calls of the caches.
+ * <p>
+ * The outcome of the last {@code sliding-window-size} calls is kept; a call fails when it throws or takes
+ * longer than {@code slow-call-threshold}. Once at least {@code minimum-calls} calls were recorded and the
+ * failure rate reaches {@code failure-rate-threshold}, the circuit opens and Redis is no longer called.
+ * After {@code open-duration} a single call is let through as a probe: the circuit closes again when it
+ * succeeds, and stays open for another period otherwise.
+ * <p>
+ * The close listeners run on a thread of their own, never on the thread of the call that closed the circuit. The
+ * rebuilds from the database are delayed at random, so that the nodes seeing Redis come back at the same time do not
+ * all read the database at once.
+ */
+public class RedisCircuitBreaker implements DisposableBean {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN,
+    }
+
+    private final Logger log = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    private final ApplicationProperties.CircuitBreaker properties;
+
+    private final boolean[] failures;
+
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+
+    private final List<Runnable> rebuildListeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+        new CustomizableThreadFactory("redis-circuit-breaker-")
+    );
+
+    private int recorded;
+
+    private int failed;
+
+    private int next;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    public RedisCircuitBreaker(ApplicationProperties.CircuitBreaker properties) {
+        this.properties = properties;
+        this.failures = new boolean[properties.getSlidingWindowSize()];
+    }
+
+    /**
+     * Registers an action run every time the circuit closes after having been open, right after it closed and in
+     * the order registered.
+     */
+    public void addCloseListener(Runnable listener) {
+        closeListeners.add(listener);
+    }
+
+    /**
+     * Registers a rebuild from the database run every time the circuit closes after having been open, at a random
+     * time within {@code rebuild-jitter} after it closed. The listener is expected to coalesce the rebuilds queued
+     * while one is pending.
+     */
+    public void addRebuildListener(Runnable listener) {
+        rebuildListeners.add(listener);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Whether Redis is known to be unavailable, without letting a probe through.
+     */
+    public synchronized boolean isOpen() {
+        return state != State.CLOSED;
+    }
+
+    /**
+     * Whether the caller may call Redis; when the open period is over the first caller gets to probe.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (!properties.isEnabled() || state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.nanoTime() - openedAt >= properties.getOpenDuration().toNanos()) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    public void onSuccess(long durationNanos) {
+        if (durationNanos > properties.getSlowCallThreshold().toNanos()) {
+            onFailure(null);
+            return;
+        }
+        boolean closed;
+        synchronized (this) {
+            closed = state == State.HALF_OPEN;
+            if (closed) {
+                state = State.CLOSED;
+                resetWindow();
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        }
+        if (closed) {
+            log.info("Redis answers again, resuming the use of the Redis caches");
+            notifyClosed();
+        }
+    }
+
+    public void onFailure(RuntimeException e) {
+        synchronized (this) {
+            if (!properties.isEnabled()) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                open();
+                return;
+            }
+            if (state == State.OPEN) {
+                return;
+            }
+            record(true);
+            if (recorded < properties.getMinimumCalls() || failed * 100 < properties.getFailureRateThreshold() * recorded) {
+                return;
+            }
+            open();
+        }
+        log.warn(
+            "Redis failed {} of the last {} cache calls, serving the caches locally for {}{}",
+            failed,
+            recorded,
+            properties.getOpenDuration(),
+            e != null ? ": " + e.getMessage() : ""
+        );
+    }
+
+    private void notifyClosed() {
+        closeListeners.forEach(listener -> executor.execute(() -> run(listener)));
+        long jitterMillis = properties.getRebuildJitter().toMillis();
+        rebuildListeners.forEach(listener ->
+            executor.schedule(
+                () -> run(listener),
+                jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0,
+                TimeUnit.MILLISECONDS
+            )
+        );
+    }
+
+    private void run(Runnable listener) {
+        try {
+            listener.run();
+        } catch (RuntimeException e) {
+            log.warn("Could not run a listener of the Redis circuit closing: {}", e.getMessage(), e);
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failures.length) {
+            if (failures[next]) {
+                failed--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[next] = failure;
+        if (failure) {
+            failed++;
+        }
+        next = (next + 1) % failures.length;
+    }
+
+    private void resetWindow() {
+        Arrays.fill(failures, false);
+        recorded = 0;
+        failed = 0;
+        next = 0;
+    }
+}
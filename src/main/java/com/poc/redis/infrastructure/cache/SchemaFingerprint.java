@@ -0,0 +1,90 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Computes a short, stable hash of the field layout of a cached type.
+ * <p>
+ * The layout covers the name and generic type of every persistent instance field, walking up the
+ * class hierarchy and into nested application types, so that the fingerprint changes whenever the
+ * serialized shape of the cached value can change, and only then.
+ */
+public final class SchemaFingerprint {
+
+    private static final String APPLICATION_PACKAGE = "com.poc.redis.";
+
+    private SchemaFingerprint() {}
+
+    public static String of(Class<?> type) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(layout(type).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return the layout the fingerprint is the hash of.
+     */
+    static String layout(Class<?> type) {
+        StringBuilder layout = new StringBuilder();
+        describe(type, layout, new HashSet<>());
+        return layout.toString();
+    }
+
+    private static void describe(Class<?> type, StringBuilder layout, Set<Class<?>> visited) {
+        if (!visited.add(type)) {
+            layout.append('@').append(type.getName()).append(';');
+            return;
+        }
+        layout.append(type.getName()).append('{');
+        if (type.isEnum()) {
+            Arrays.stream(type.getEnumConstants()).forEach(constant -> layout.append(constant).append(','));
+        } else {
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                Field[] fields = current.getDeclaredFields();
+                Arrays.sort(fields, Comparator.comparing(Field::getName));
+                for (Field field : fields) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                        continue;
+                    }
+                    layout.append(field.getName()).append(':').append(field.getGenericType().getTypeName()).append(';');
+                    describeNested(field.getGenericType(), layout, visited);
+                }
+            }
+        }
+        layout.append('}');
+    }
+
+    private static void describeNested(Type type, StringBuilder layout, Set<Class<?>> visited) {
+        if (type instanceof ParameterizedType) {
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                describeNested(argument, layout, visited);
+            }
+        } else if (type instanceof Class<?>) {
+            Class<?> nested = (Class<?>) type;
+            while (nested.isArray()) {
+                nested = nested.getComponentType();
+            }
+            if (nested.getName().startsWith(APPLICATION_PACKAGE)) {
+                describe(nested, layout, visited);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.redisson.api.RLock;
+import org.redisson.api.RMapCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+/**
+ * {@link Cache} decorator around a Redisson cache that runs at most one loader per key.
+ * <p>
+ * Concurrent misses on the same key within the JVM share the result of a single
+ * {@link #get(Object, Callable)} call on the Redisson cache, which in turn holds a per-key Redis lock while
+ * loading, so only one node runs the loader cluster-wide.
+ * <p>
+ * With a positive {@code earlyRefreshBeta}, a hit may also reload the entry shortly before it expires
+ * (probabilistic early expiration): the closer the entry is to its expiry, relative to the time the loader
+ * takes, the likelier the reload. Only the caller that gets the Redis lock reloads, the others keep being
+ * served the current entry.
+ */
+public class SingleFlightCache implements Cache {
+
+    private final Logger log = LoggerFactory.getLogger(SingleFlightCache.class);
+
+    private final String name;
+
+    private final Cache target;
+
+    private final double earlyRefreshBeta;
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Moving average of the loader duration in milliseconds.
+     */
+    private volatile double loadMillis;
+
+    public SingleFlightCache(String name, Cache target, double earlyRefreshBeta) {
+        this.name = name;
+        this.target = target;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (earlyRefreshBeta > 0) {
+            ValueWrapper cached = target.get(key);
+            if (cached != null) {
+                return (T) (shouldRefreshEarly(key) ? refresh(key, cached, valueLoader) : cached.get());
+            }
+        }
+        return (T) singleFlight(key, () -> target.get(key, timed(valueLoader)));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        target.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return target.invalidate();
+    }
+
+    private Object singleFlight(Object key, Callable<?> call) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            Object value = call.call();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } catch (Exception e) {
+            ValueRetrievalException exception = new ValueRetrievalException(key, call, e);
+            future.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Decides on a refresh with probability {@code exp(-remaining / (loadTime * beta))}.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean shouldRefreshEarly(Object key) {
+        if (inFlight.containsKey(key) || !(target.getNativeCache() instanceof RMapCache)) {
+            return false;
+        }
+        long remainingMillis = ((RMapCache<Object, Object>) target.getNativeCache()).remainTimeToLive(key);
+        if (remainingMillis < 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return -loadMillis * earlyRefreshBeta * Math.log(random) >= remainingMillis;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object refresh(Object key, ValueWrapper cached, Callable<?> valueLoader) {
+        RLock lock = ((RMapCache<Object, Object>) target.getNativeCache()).getLock(key);
+        if (!lock.tryLock()) {
+            return cached.get();
+        }
+        try {
+            return singleFlight(
+                key,
+                () -> {
+                    log.debug("Refreshing entry {} of cache {} before it expires", key, name);
+                    Object value = timed(valueLoader).call();
+                    target.put(key, value);
+                    return value;
+                }
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> Callable<T> timed(Callable<T> valueLoader) {
+        return () -> {
+            long start = System.nanoTime();
+            T value = valueLoader.call();
+            double millis = (System.nanoTime() - start) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+            loadMillis = loadMillis == 0 ? millis : 0.8 * loadMillis + 0.2 * millis;
+            return value;
+        };
+    }
+}
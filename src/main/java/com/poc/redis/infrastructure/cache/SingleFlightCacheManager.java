@@ -0,0 +1,46 @@
+package com.poc.redis.infrastructure.cache;
+
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * {@link CacheManager} that wraps the caches of a delegate manager in a {@link SingleFlightCache}.
+ */
+public class SingleFlightCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+
+    private final ApplicationProperties.Cache cacheProperties;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public SingleFlightCacheManager(CacheManager delegate, ApplicationProperties.Cache cacheProperties) {
+        this.delegate = delegate;
+        this.cacheProperties = cacheProperties;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(
+            name,
+            cacheName -> new SingleFlightCache(cacheName, target, cacheProperties.getSpec(cacheName).getEarlyRefreshBeta())
+        );
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
@@ -0,0 +1,26 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+/**
+ * Cache resolver deferring the puts, evictions and clears of the caches it resolves until the current transaction
+ * commits, for the {@code @CacheEvict} of write paths: evicted before, a concurrent read could cache the row being
+ * replaced again, until it expires.
+ */
+public class TransactionAwareCacheResolver extends SimpleCacheResolver {
+
+    public TransactionAwareCacheResolver(CacheManager cacheManager) {
+        super(cacheManager);
+    }
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        return super.resolveCaches(context).stream().map(TransactionAwareCacheDecorator::new).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,131 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import org.springframework.cache.Cache;
+
+/**
+ * {@link Cache} decorator that stores every entry under a {@link VersionedKey}, i.e. the caller's
+ * key qualified by the schema version of the cached type.
+ * <p>
+ * Entries written for another layout of the type are simply never looked up again and age out
+ * through the cache expiry, so nodes running different releases can share the same Redis cache.
+ */
+public class VersionedKeyCache implements Cache {
+
+    private final String name;
+
+    private final Cache target;
+
+    private final String version;
+
+    public VersionedKeyCache(String name, Cache target, String version) {
+        this.name = name;
+        this.target = target;
+        this.version = version;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(versioned(key));
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(versioned(key), type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return target.get(versioned(key), valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        target.put(versioned(key), value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return target.putIfAbsent(versioned(key), value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        target.evict(versioned(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return target.evictIfPresent(versioned(key));
+    }
+
+    @Override
+    public void clear() {
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return target.invalidate();
+    }
+
+    private VersionedKey versioned(Object key) {
+        return new VersionedKey(version, key);
+    }
+
+    public static final class VersionedKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String version;
+
+        private final Object key;
+
+        public VersionedKey(String version, Object key) {
+            this.version = version;
+            this.key = key;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof VersionedKey)) return false;
+            VersionedKey that = (VersionedKey) o;
+            return version.equals(that.version) && Objects.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * version.hashCode() + Objects.hashCode(key);
+        }
+
+        @Override
+        public String toString() {
+            return version + ":" + key;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.poc.redis.infrastructure.cache;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * {@link CacheManager} that wraps the caches registered in {@link CacheSchemas} in a {@link VersionedKeyCache}.
+ */
+public class VersionedKeyCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+
+    private final CacheSchemas cacheSchemas;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public VersionedKeyCacheManager(CacheManager delegate, CacheSchemas cacheSchemas) {
+        this.delegate = delegate;
+        this.cacheSchemas = cacheSchemas;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> decorate(cacheName, target));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    private Cache decorate(String cacheName, Cache target) {
+        String version = cacheSchemas.getVersion(cacheName);
+        return version != null ? new VersionedKeyCache(cacheName, target, version) : target;
+    }
+}
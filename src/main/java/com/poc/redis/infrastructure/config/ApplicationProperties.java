@@ -1,6 +1,11 @@
 package com.poc.redis.infrastructure.config;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.redisson.api.EvictionMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Redis Cache POC.
@@ -10,7 +15,823 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
     // jhipster-needle-application-properties-property
+    private final Cache cache = new Cache();
+
+    private final BlobStore blobStore = new BlobStore();
+
+    private final ImageVariants imageVariants = new ImageVariants();
+
+    private final Search search = new Search();
+
+    private final Catalog catalog = new Catalog();
+
+    private final Bulk bulk = new Bulk();
+
+    private final IdGenerator idGenerator = new IdGenerator();
+
     // jhipster-needle-application-properties-property-getter
+    public Cache getCache() {
+        return cache;
+    }
+
+    public BlobStore getBlobStore() {
+        return blobStore;
+    }
+
+    public ImageVariants getImageVariants() {
+        return imageVariants;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
     // jhipster-needle-application-properties-property-class
+    public static class Cache {
+
+        /**
+         * Per-cache settings, keyed by cache name (e.g. {@code usersByLogin}).
+         */
+        private final Map<String, CacheSpec> caches = new LinkedHashMap<>();
+
+        private final CacheCodec codec = new CacheCodec();
+
+        /**
+         * Timeout of a Redis command, before any retry.
+         */
+        private Duration commandTimeout = Duration.ofMillis(500);
+
+        /**
+         * Number of times a timed out Redis command is retried.
+         */
+        private int retryAttempts = 1;
+
+        /**
+         * Delay before a timed out Redis command is retried.
+         */
+        private Duration retryInterval = Duration.ofMillis(100);
+
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        private final WarmUp warmUp = new WarmUp();
+
+        private final TotalCount totalCount = new TotalCount();
+
+        public Map<String, CacheSpec> getCaches() {
+            return caches;
+        }
+
+        public CacheCodec getCodec() {
+            return codec;
+        }
+
+        public Duration getCommandTimeout() {
+            return commandTimeout;
+        }
+
+        public void setCommandTimeout(Duration commandTimeout) {
+            this.commandTimeout = commandTimeout;
+        }
+
+        public int getRetryAttempts() {
+            return retryAttempts;
+        }
+
+        public void setRetryAttempts(int retryAttempts) {
+            this.retryAttempts = retryAttempts;
+        }
+
+        public Duration getRetryInterval() {
+            return retryInterval;
+        }
+
+        public void setRetryInterval(Duration retryInterval) {
+            this.retryInterval = retryInterval;
+        }
+
+        public CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public WarmUp getWarmUp() {
+            return warmUp;
+        }
+
+        public TotalCount getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * Returns the settings of the given cache, or the defaults when it is not configured.
+         */
+        public CacheSpec getSpec(String cacheName) {
+            return caches.getOrDefault(cacheName, new CacheSpec());
+        }
+    }
+
+    public static class CacheSpec {
+
+        /**
+         * Time to live of an entry since it was written, {@code jhipster.cache.redis.expiration} when not set.
+         */
+        private Duration ttl;
+
+        /**
+         * Time after which an entry that was not read or written expires, no idle expiry when not set.
+         */
+        private Duration maxIdle;
+
+        /**
+         * Maximum number of entries kept in Redis, unbounded when {@code 0}.
+         */
+        private int maxEntries = 0;
+
+        /**
+         * Entry evicted when {@code max-entries} is reached.
+         */
+        private EvictionMode evictionPolicy = EvictionMode.LRU;
+
+        /**
+         * Eagerness of the reload of entries about to expire, no early reload when {@code 0}. With {@code 1}
+         * entries are reloaded roughly within the last few loader durations of their time to live.
+         * Costs a TTL lookup in Redis on every hit.
+         */
+        private double earlyRefreshBeta = 0;
+
+        private final NearCache nearCache = new NearCache();
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getMaxIdle() {
+            return maxIdle;
+        }
+
+        public void setMaxIdle(Duration maxIdle) {
+            this.maxIdle = maxIdle;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public EvictionMode getEvictionPolicy() {
+            return evictionPolicy;
+        }
+
+        public void setEvictionPolicy(EvictionMode evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+        }
+
+        public double getEarlyRefreshBeta() {
+            return earlyRefreshBeta;
+        }
+
+        public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+            this.earlyRefreshBeta = earlyRefreshBeta;
+        }
+
+        public NearCache getNearCache() {
+            return nearCache;
+        }
+    }
+
+    public static class CacheCodec {
+
+        /**
+         * Serialization of the cached values: {@code kryo} for the compact binary format, {@code default}
+         * for the codec of the Redisson client.
+         */
+        private CacheCodecType type = CacheCodecType.KRYO;
+
+        /**
+         * Serialized size in bytes from which values are LZ4-compressed, never compressed when negative.
+         */
+        private int compressionThreshold = 1024;
+
+        public CacheCodecType getType() {
+            return type;
+        }
+
+        public void setType(CacheCodecType type) {
+            this.type = type;
+        }
+
+        public int getCompressionThreshold() {
+            return compressionThreshold;
+        }
+
+        public void setCompressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+        }
+    }
+
+    public enum CacheCodecType {
+        DEFAULT,
+        KRYO,
+    }
+
+    public static class CircuitBreaker {
+
+        private boolean enabled = true;
+
+        /**
+         * Redis call duration from which the call counts as failed.
+         */
+        private Duration slowCallThreshold = Duration.ofMillis(250);
+
+        /**
+         * Percentage of failed calls in the sliding window that opens the circuit.
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * Number of most recent calls the failure rate is computed on.
+         */
+        private int slidingWindowSize = 20;
+
+        /**
+         * Number of calls in the sliding window before the failure rate is considered.
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * Time Redis is left alone once the circuit opened, before a probe call is let through.
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * Maximum number of entries kept in memory per cache while the circuit is open.
+         */
+        private int maxLocalEntries = 1000;
+
+        /**
+         * Maximum random delay, after the circuit closed, before the copies of the data missing updates are rebuilt
+         * from the database: spreads the rebuilds of the nodes.
+         */
+        private Duration rebuildJitter = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getSlowCallThreshold() {
+            return slowCallThreshold;
+        }
+
+        public void setSlowCallThreshold(Duration slowCallThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getMaxLocalEntries() {
+            return maxLocalEntries;
+        }
+
+        public void setMaxLocalEntries(int maxLocalEntries) {
+            this.maxLocalEntries = maxLocalEntries;
+        }
+
+        public Duration getRebuildJitter() {
+            return rebuildJitter;
+        }
+
+        public void setRebuildJitter(Duration rebuildJitter) {
+            this.rebuildJitter = rebuildJitter;
+        }
+    }
+
+    public static class WarmUp {
+
+        /**
+         * Whether the most accessed keys are loaded on startup, before the application reports ready.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of keys loaded per cache.
+         */
+        private int maxKeys = 1000;
+
+        /**
+         * Number of keys loaded by one task.
+         */
+        private int batchSize = 50;
+
+        /**
+         * Number of batches loaded concurrently.
+         */
+        private int concurrency = 4;
+
+        /**
+         * Time after which the warm-up is abandoned and the application reports ready anyway.
+         */
+        private Duration timeout = Duration.ofSeconds(60);
+
+        /**
+         * Number of distinct keys counted per cache between two persists of the access counts.
+         */
+        private int sketchCapacity = 10000;
+
+        /**
+         * Number of keys whose access count is kept in Redis per cache.
+         */
+        private int trackedKeys = 10000;
+
+        /**
+         * Interval between two persists of the access counts to Redis.
+         */
+        private Duration persistInterval = Duration.ofMinutes(1);
+
+        /**
+         * Time after which an access counts for half, so that the keys no longer accessed give way to the ones accessed now.
+         */
+        private Duration accessCountHalfLife = Duration.ofDays(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public int getSketchCapacity() {
+            return sketchCapacity;
+        }
+
+        public void setSketchCapacity(int sketchCapacity) {
+            this.sketchCapacity = sketchCapacity;
+        }
+
+        public int getTrackedKeys() {
+            return trackedKeys;
+        }
+
+        public void setTrackedKeys(int trackedKeys) {
+            this.trackedKeys = trackedKeys;
+        }
+
+        public Duration getPersistInterval() {
+            return persistInterval;
+        }
+
+        public void setPersistInterval(Duration persistInterval) {
+            this.persistInterval = persistInterval;
+        }
+
+        public Duration getAccessCountHalfLife() {
+            return accessCountHalfLife;
+        }
+
+        public void setAccessCountHalfLife(Duration accessCountHalfLife) {
+            this.accessCountHalfLife = accessCountHalfLife;
+        }
+    }
+
+    public static class TotalCount {
+
+        /**
+         * Whether the totals of the paginated listings are kept in Redis between two page views.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Time after which a cached total is counted again, bounding the drift from writes made outside the usecases.
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class NearCache {
+
+        private boolean enabled = false;
+
+        private int maxEntries = 1000;
+
+        /**
+         * Time to live of an entry in the near cache since it was read from Redis or written, at most the
+         * {@code ttl} and {@code max-idle} of the cache; a tenth of the {@code ttl} when not set.
+         */
+        private Duration ttl;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class BlobStore {
+
+        /**
+         * Directory the blobs (e.g. product images) are stored in.
+         */
+        private String root = "data/blob-store";
+
+        /**
+         * Maximum size of an image uploaded through {@code PUT /api/products/{id}/image}.
+         */
+        private DataSize maxUploadSize = DataSize.ofMegabytes(10);
+
+        public String getRoot() {
+            return root;
+        }
+
+        public void setRoot(String root) {
+            this.root = root;
+        }
+
+        public DataSize getMaxUploadSize() {
+            return maxUploadSize;
+        }
+
+        public void setMaxUploadSize(DataSize maxUploadSize) {
+            this.maxUploadSize = maxUploadSize;
+        }
+    }
+
+    public static class ImageVariants {
+
+        /**
+         * Directory the resized images are cached in.
+         */
+        private String root = "data/image-variants";
+
+        /**
+         * Maximum width and height of each variant, in pixels, by variant name (e.g. {@code thumbnail}).
+         */
+        private final Map<String, Integer> sizes = new LinkedHashMap<>();
+
+        /**
+         * Number of images resized concurrently.
+         */
+        private int concurrency = 2;
+
+        /**
+         * Number of images waiting to be resized, beyond which they are resized on first request.
+         */
+        private int queueCapacity = 100;
+
+        public String getRoot() {
+            return root;
+        }
+
+        public void setRoot(String root) {
+            this.root = root;
+        }
+
+        public Map<String, Integer> getSizes() {
+            return sizes;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class Search {
+
+        /**
+         * Whether the products are indexed for {@code /api/products/_search}; an index left empty finds nothing.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of products read from the database at once while building the index.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Delay between an order and the update of the popularity of its product in the suggestions; the orders of
+         * the interval are applied together.
+         */
+        private Duration popularityInterval = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPopularityInterval() {
+            return popularityInterval;
+        }
+
+        public void setPopularityInterval(Duration popularityInterval) {
+            this.popularityInterval = popularityInterval;
+        }
+    }
+
+    public static class Catalog {
+
+        private final Snapshot snapshot = new Snapshot();
+
+        public Snapshot getSnapshot() {
+            return snapshot;
+        }
+    }
+
+    public static class Snapshot {
+
+        /**
+         * Whether the product and category reads by id and the listings are served from an in-memory copy of the
+         * catalog instead of the database. The copy is updated shortly after each write: a read right after a write
+         * may return the former version.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of products or categories read from the database at once while building the copy.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Where the copy is kept: on the heap, or in a memory-mapped file, off the heap and kept across restarts.
+         */
+        private SnapshotStore store = SnapshotStore.HEAP;
+
+        /**
+         * File the copy is mapped from, with the {@code mapped} store. A node starting with this file serves it at once,
+         * and refreshes it from the database in the background.
+         */
+        private String file = "data/catalog-snapshot.bin";
+
+        /**
+         * Delay before building the copy again after a failure, doubled on each failure in a row.
+         */
+        private Duration retryInterval = Duration.ofSeconds(1);
+
+        /**
+         * Maximum delay before building the copy again after a failure.
+         */
+        private Duration maxRetryInterval = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public SnapshotStore getStore() {
+            return store;
+        }
+
+        public void setStore(SnapshotStore store) {
+            this.store = store;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public Duration getRetryInterval() {
+            return retryInterval;
+        }
+
+        public void setRetryInterval(Duration retryInterval) {
+            this.retryInterval = retryInterval;
+        }
+
+        public Duration getMaxRetryInterval() {
+            return maxRetryInterval;
+        }
+
+        public void setMaxRetryInterval(Duration maxRetryInterval) {
+            this.maxRetryInterval = maxRetryInterval;
+        }
+    }
+
+    public enum SnapshotStore {
+        HEAP,
+        MAPPED,
+    }
+
+    public static class Bulk {
+
+        /**
+         * Number of items of a bulk request validated and persisted at once, in a single transaction.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Number of items persisted between two flushes of the persistence context, a multiple of
+         * {@code hibernate.jdbc.batch_size}. The context is cleared after each flush to keep it small.
+         */
+        private int flushSize = 100;
+
+        /**
+         * Directory the CSV files uploaded through {@code POST /api/products/_import} are stored in until imported.
+         */
+        private String importDirectory = "data/imports";
+
+        /**
+         * Number of rows fetched per round trip by the cursors of the {@code /_export} endpoints.
+         */
+        private int exportFetchSize = 500;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getFlushSize() {
+            return flushSize;
+        }
+
+        public void setFlushSize(int flushSize) {
+            this.flushSize = flushSize;
+        }
+
+        public String getImportDirectory() {
+            return importDirectory;
+        }
+
+        public void setImportDirectory(String importDirectory) {
+            this.importDirectory = importDirectory;
+        }
+
+        public int getExportFetchSize() {
+            return exportFetchSize;
+        }
+
+        public void setExportFetchSize(int exportFetchSize) {
+            this.exportFetchSize = exportFetchSize;
+        }
+    }
+
+    public static class IdGenerator {
+
+        /**
+         * Number of ids reserved at once by each node, by sequence name. Must be equal to the increment of the
+         * sequence, changed by a migration altering it: the startup fails otherwise.
+         */
+        private final Map<String, Integer> blockSizes = new LinkedHashMap<>();
+
+        public Map<String, Integer> getBlockSizes() {
+            return blockSizes;
+        }
+    }
 }
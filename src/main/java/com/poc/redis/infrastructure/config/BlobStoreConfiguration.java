@@ -0,0 +1,30 @@
+package com.poc.redis.infrastructure.config;
+
+import com.poc.redis.infrastructure.storage.BlobStore;
+import com.poc.redis.infrastructure.storage.FileSystemBlobStore;
+import com.poc.redis.infrastructure.storage.ImageVariantStore;
+import java.io.IOException;
+import java.nio.file.Paths;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BlobStoreConfiguration {
+
+    @Bean
+    public BlobStore blobStore(ApplicationProperties applicationProperties) throws IOException {
+        return new FileSystemBlobStore(Paths.get(applicationProperties.getBlobStore().getRoot()));
+    }
+
+    @Bean
+    public ImageVariantStore imageVariantStore(BlobStore blobStore, ApplicationProperties applicationProperties) throws IOException {
+        ApplicationProperties.ImageVariants properties = applicationProperties.getImageVariants();
+        return new ImageVariantStore(
+            blobStore,
+            Paths.get(properties.getRoot()),
+            properties.getSizes(),
+            properties.getConcurrency(),
+            properties.getQueueCapacity()
+        );
+    }
+}
@@ -1,37 +1,56 @@
 package com.poc.redis.infrastructure.config;
 
+import com.poc.redis.infrastructure.cache.AccessFrequencySketches;
+import com.poc.redis.infrastructure.cache.AccessRecordingCacheManager;
+import com.poc.redis.infrastructure.cache.CacheSchemas;
+import com.poc.redis.infrastructure.cache.CircuitBreakingCacheManager;
+import com.poc.redis.infrastructure.cache.CompactKryoCodec;
+import com.poc.redis.infrastructure.cache.CompressingCodec;
+import com.poc.redis.infrastructure.cache.MeteredCacheManager;
+import com.poc.redis.infrastructure.cache.NearCacheManager;
+import com.poc.redis.infrastructure.cache.PrefixedRedissonCacheManager;
+import com.poc.redis.infrastructure.cache.RedisCircuitBreaker;
+import com.poc.redis.infrastructure.cache.SingleFlightCacheManager;
+import com.poc.redis.infrastructure.cache.TransactionAwareCacheResolver;
+import com.poc.redis.infrastructure.cache.VersionedKeyCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.net.URI;
-import java.util.concurrent.TimeUnit;
-import javax.cache.configuration.MutableConfiguration;
-import javax.cache.expiry.CreatedExpiryPolicy;
-import javax.cache.expiry.Duration;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import org.redisson.Redisson;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
 import org.redisson.config.ClusterServersConfig;
 import org.redisson.config.Config;
 import org.redisson.config.SingleServerConfig;
-import org.redisson.jcache.configuration.RedissonConfiguration;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
-import org.springframework.boot.info.BuildProperties;
-import org.springframework.boot.info.GitProperties;
+import org.redisson.spring.cache.CacheConfig;
+import org.redisson.spring.cache.RedissonSpringCacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import tech.jhipster.config.JHipsterProperties;
-import tech.jhipster.config.cache.PrefixedKeyGenerator;
 
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
 
-    private GitProperties gitProperties;
-    private BuildProperties buildProperties;
+    /**
+     * Prefix of the Redis maps backing the caches, distinct from the keys of the former JCache caches
+     * so that nodes of both releases can run side by side during a rolling deploy.
+     */
+    public static final String CACHE_KEY_PREFIX = "cache:";
 
-    @Bean
-    public javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(JHipsterProperties jHipsterProperties) {
-        MutableConfiguration<Object, Object> jcacheConfig = new MutableConfiguration<>();
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
 
+    @Bean(destroyMethod = "shutdown")
+    public RedissonClient redissonClient(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        ApplicationProperties.Cache cacheProperties = applicationProperties.getCache();
         URI redisUri = URI.create(jHipsterProperties.getCache().getRedis().getServer()[0]);
 
         Config config = new Config();
@@ -41,6 +60,9 @@ public class CacheConfiguration {
                 .setMasterConnectionPoolSize(jHipsterProperties.getCache().getRedis().getConnectionPoolSize())
                 .setMasterConnectionMinimumIdleSize(jHipsterProperties.getCache().getRedis().getConnectionMinimumIdleSize())
                 .setSubscriptionConnectionPoolSize(jHipsterProperties.getCache().getRedis().getSubscriptionConnectionPoolSize())
+                .setTimeout((int) cacheProperties.getCommandTimeout().toMillis())
+                .setRetryAttempts(cacheProperties.getRetryAttempts())
+                .setRetryInterval((int) cacheProperties.getRetryInterval().toMillis())
                 .addNodeAddress(jHipsterProperties.getCache().getRedis().getServer());
 
             if (redisUri.getUserInfo() != null) {
@@ -52,53 +74,149 @@ public class CacheConfiguration {
                 .setConnectionPoolSize(jHipsterProperties.getCache().getRedis().getConnectionPoolSize())
                 .setConnectionMinimumIdleSize(jHipsterProperties.getCache().getRedis().getConnectionMinimumIdleSize())
                 .setSubscriptionConnectionPoolSize(jHipsterProperties.getCache().getRedis().getSubscriptionConnectionPoolSize())
+                .setTimeout((int) cacheProperties.getCommandTimeout().toMillis())
+                .setRetryAttempts(cacheProperties.getRetryAttempts())
+                .setRetryInterval((int) cacheProperties.getRetryInterval().toMillis())
                 .setAddress(jHipsterProperties.getCache().getRedis().getServer()[0]);
 
             if (redisUri.getUserInfo() != null) {
                 singleServerConfig.setPassword(redisUri.getUserInfo().substring(redisUri.getUserInfo().indexOf(':') + 1));
             }
         }
-        jcacheConfig.setStatisticsEnabled(true);
-        jcacheConfig.setExpiryPolicyFactory(
-            CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.SECONDS, jHipsterProperties.getCache().getRedis().getExpiration()))
+        return Redisson.create(config);
+    }
+
+    @Bean
+    public CacheSchemas cacheSchemas() {
+        return new CacheSchemas();
+    }
+
+    @Bean
+    public AccessFrequencySketches accessFrequencySketches(ApplicationProperties applicationProperties) {
+        return new AccessFrequencySketches(applicationProperties.getCache().getWarmUp().getSketchCapacity());
+    }
+
+    @Bean
+    public RedisCircuitBreaker redisCircuitBreaker(ApplicationProperties applicationProperties) {
+        return new RedisCircuitBreaker(applicationProperties.getCache().getCircuitBreaker());
+    }
+
+    @Bean
+    public CacheManager cacheManager(
+        RedissonClient redissonClient,
+        CacheSchemas cacheSchemas,
+        RedisCircuitBreaker redisCircuitBreaker,
+        AccessFrequencySketches accessFrequencySketches,
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        Duration defaultTtl = Duration.ofSeconds(jHipsterProperties.getCache().getRedis().getExpiration());
+        Map<String, ApplicationProperties.CacheSpec> specs = new LinkedHashMap<>();
+        createCache(
+            specs,
+            com.poc.redis.infrastructure.repository.UserRepository.USERS_BY_LOGIN_CACHE,
+            com.poc.redis.domain.model.User.class,
+            cacheSchemas,
+            applicationProperties
+        );
+        createCache(
+            specs,
+            com.poc.redis.infrastructure.repository.UserRepository.USERS_BY_EMAIL_CACHE,
+            com.poc.redis.domain.model.User.class,
+            cacheSchemas,
+            applicationProperties
+        );
+        createCache(
+            specs,
+            com.poc.redis.infrastructure.repository.ProductRepository.PRODUCTS_CACHE,
+            com.poc.redis.application.dto.ProductDTO.class,
+            cacheSchemas,
+            applicationProperties
+        );
+        // jhipster-needle-redis-add-entry
+
+        Map<String, CacheConfig> configs = new LinkedHashMap<>();
+        specs.forEach((cacheName, spec) -> configs.put(cacheName, toCacheConfig(spec, defaultTtl)));
+        ApplicationProperties.CacheCodec codec = applicationProperties.getCache().getCodec();
+        RedissonSpringCacheManager cacheManager = new PrefixedRedissonCacheManager(
+            redissonClient,
+            configs,
+            createCodec(codec, redissonClient),
+            CACHE_KEY_PREFIX + codecNamespace(codec)
         );
-        return RedissonConfiguration.fromInstance(Redisson.create(config), jcacheConfig);
+        specs.forEach((cacheName, spec) -> {
+            if (spec.getMaxEntries() > 0) {
+                // The Redisson cache manager always bounds with LRU, apply the configured policy instead.
+                RMapCache<?, ?> mapCache = (RMapCache<?, ?>) Objects.requireNonNull(cacheManager.getCache(cacheName)).getNativeCache();
+                mapCache.setMaxSize(spec.getMaxEntries(), spec.getEvictionPolicy());
+            }
+        });
+        CacheManager meteredCacheManager = new MeteredCacheManager(cacheManager, meterRegistry);
+        CacheManager singleFlightCacheManager = new SingleFlightCacheManager(meteredCacheManager, applicationProperties.getCache());
+        CacheManager circuitBreakingCacheManager = new CircuitBreakingCacheManager(
+            singleFlightCacheManager,
+            redisCircuitBreaker,
+            applicationProperties.getCache().getCircuitBreaker().getMaxLocalEntries()
+        );
+        CacheManager nearCacheManager = new NearCacheManager(
+            new VersionedKeyCacheManager(circuitBreakingCacheManager, cacheSchemas),
+            redissonClient,
+            redisCircuitBreaker,
+            applicationProperties.getCache(),
+            defaultTtl
+        );
+        return new AccessRecordingCacheManager(nearCacheManager, accessFrequencySketches);
     }
 
+    /**
+     * Resolves the caches of the {@code @CacheEvict} of write paths, evicting once their transaction commits.
+     */
     @Bean
-    public JCacheManagerCustomizer cacheManagerCustomizer(javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration) {
-        return cm -> {
-            createCache(cm, com.poc.redis.infrastructure.repository.UserRepository.USERS_BY_LOGIN_CACHE, jcacheConfiguration);
-            createCache(cm, com.poc.redis.infrastructure.repository.UserRepository.USERS_BY_EMAIL_CACHE, jcacheConfiguration);
-            // jhipster-needle-redis-add-entry
-        };
+    public TransactionAwareCacheResolver transactionAwareCacheResolver(CacheManager cacheManager) {
+        return new TransactionAwareCacheResolver(cacheManager);
     }
 
+    /**
+     * Registers the given cache with the settings of {@code application.cache.caches.<cacheName>}.
+     * <p>
+     * Existing entries are kept: the other nodes of the cluster share the same Redis cache, so starting
+     * a node must not empty it. Entries written for another layout of the cached type are left behind
+     * by the schema version of the keys instead.
+     */
     private void createCache(
-        javax.cache.CacheManager cm,
+        Map<String, ApplicationProperties.CacheSpec> specs,
         String cacheName,
-        javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration
+        Class<?> valueType,
+        CacheSchemas cacheSchemas,
+        ApplicationProperties applicationProperties
     ) {
-        javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
-        if (cache != null) {
-            cache.clear();
-        } else {
-            cm.createCache(cacheName, jcacheConfiguration);
-        }
+        cacheSchemas.register(cacheName, valueType);
+        specs.put(cacheName, applicationProperties.getCache().getSpec(cacheName));
+        log.debug("Using cache {} with schema version {}", cacheName, cacheSchemas.getVersion(cacheName));
     }
 
-    @Autowired(required = false)
-    public void setGitProperties(GitProperties gitProperties) {
-        this.gitProperties = gitProperties;
+    private Codec createCodec(ApplicationProperties.CacheCodec codec, RedissonClient redissonClient) {
+        Codec valueCodec = codec.getType() == ApplicationProperties.CacheCodecType.KRYO
+            ? new CompactKryoCodec()
+            : redissonClient.getConfig().getCodec();
+        return new CompressingCodec(valueCodec, codec.getCompressionThreshold());
     }
 
-    @Autowired(required = false)
-    public void setBuildProperties(BuildProperties buildProperties) {
-        this.buildProperties = buildProperties;
+    /**
+     * Part of the Redis map names identifying the serialized format, so that a node never decodes entries
+     * written with another codec.
+     */
+    private String codecNamespace(ApplicationProperties.CacheCodec codec) {
+        String format = codec.getType() == ApplicationProperties.CacheCodecType.KRYO ? CompactKryoCodec.FORMAT : "default";
+        return format + "-lz4:";
     }
 
-    @Bean
-    public KeyGenerator keyGenerator() {
-        return new PrefixedKeyGenerator(this.gitProperties, this.buildProperties);
+    private CacheConfig toCacheConfig(ApplicationProperties.CacheSpec spec, Duration defaultTtl) {
+        Duration ttl = spec.getTtl() != null ? spec.getTtl() : defaultTtl;
+        Duration maxIdle = spec.getMaxIdle() != null ? spec.getMaxIdle() : Duration.ZERO;
+        CacheConfig config = new CacheConfig(ttl.toMillis(), maxIdle.toMillis());
+        config.setMaxSize(spec.getMaxEntries());
+        return config;
     }
 }
@@ -1,8 +1,11 @@
 package com.poc.redis.infrastructure.config;
 
+import com.poc.redis.infrastructure.repository.BlockSequenceGenerator;
+import com.poc.redis.infrastructure.repository.KeysetJpaRepository;
 import java.sql.SQLException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -14,7 +17,7 @@ import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.h2.H2ConfigurationHelper;
 
 @Configuration
-@EnableJpaRepositories({"com.poc.redis.infrastructure.repository"})
+@EnableJpaRepositories(value = { "com.poc.redis.infrastructure.repository" }, repositoryBaseClass = KeysetJpaRepository.class)
 @EnableJpaAuditing(auditorAwareRef = "springSecurityAuditorAware")
 @EnableTransactionManagement
 public class DatabaseConfiguration {
@@ -41,6 +44,18 @@ public class DatabaseConfiguration {
         return H2ConfigurationHelper.createServer(port);
     }
 
+    /**
+     * Pass the block sizes of the sequences to {@link BlockSequenceGenerator}.
+     *
+     * @param applicationProperties the application properties.
+     * @return the customizer of the Hibernate properties.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer blockSizesCustomizer(ApplicationProperties applicationProperties) {
+        return hibernateProperties ->
+            hibernateProperties.put(BlockSequenceGenerator.BLOCK_SIZES_SETTING, applicationProperties.getIdGenerator().getBlockSizes());
+    }
+
     private String getValidPortForH2() {
         int port = Integer.parseInt(env.getProperty("server.port"));
         if (port < 10000) {
@@ -0,0 +1,211 @@
+package com.poc.redis.infrastructure.management;
+
+import com.poc.redis.application.usecase.ProductUsecase;
+import com.poc.redis.infrastructure.cache.AccessFrequencySketches;
+import com.poc.redis.infrastructure.cache.RedisCircuitBreaker;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.config.CacheConfiguration;
+import com.poc.redis.infrastructure.repository.ProductRepository;
+import com.poc.redis.infrastructure.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RScoredSortedSetAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Preloads the most accessed keys of the caches on startup.
+ * <p>
+ * The access counts recorded by the caches are added up in a Redis sorted set per cache every
+ * {@code application.cache.warm-up.persist-interval}, by every node. On startup the top keys of each set
+ * are loaded in batches, before the application reports ready: application runners complete before the
+ * readiness state switches to {@code ACCEPTING_TRAFFIC}.
+ * <p>
+ * The counts decay: once per {@code application.cache.warm-up.access-count-half-life}, the first node persisting
+ * halves them, so that the keys preloaded follow the recent accesses rather than all time ones.
+ */
+@Service
+public class CacheWarmUpService implements ApplicationRunner {
+
+    public static final String ACCESS_FREQUENCY_KEY_PREFIX = CacheConfiguration.CACHE_KEY_PREFIX + "access-frequency:";
+
+    /**
+     * Suffix of the key marking the access counts of a cache as halved, expiring after the half-life.
+     */
+    static final String DECAYED_KEY_SUFFIX = ":decayed";
+
+    private static final double DECAY_WEIGHT = 0.5;
+
+    public static final String WARM_UP_DURATION_METER_NAME = "cache.warmup.duration";
+    public static final String WARM_UP_DURATION_METER_DESCRIPTION = "Time spent preloading a cache on startup.";
+    public static final String WARM_UP_KEYS_METER_NAME = "cache.warmup.keys";
+    public static final String WARM_UP_KEYS_METER_DESCRIPTION = "Number of keys preloaded in a cache on startup.";
+    public static final String WARM_UP_METER_CACHE_DIMENSION = "cache";
+
+    private final Logger log = LoggerFactory.getLogger(CacheWarmUpService.class);
+
+    private final RedissonClient redissonClient;
+
+    private final AccessFrequencySketches sketches;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final ApplicationProperties.WarmUp properties;
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Consumer<Object>> loaders = new LinkedHashMap<>();
+
+    public CacheWarmUpService(
+        RedissonClient redissonClient,
+        AccessFrequencySketches sketches,
+        RedisCircuitBreaker circuitBreaker,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry,
+        UserRepository userRepository,
+        ProductUsecase productUsecase
+    ) {
+        this.redissonClient = redissonClient;
+        this.sketches = sketches;
+        this.circuitBreaker = circuitBreaker;
+        this.properties = applicationProperties.getCache().getWarmUp();
+        this.registry = registry;
+        // The lookups go through the caching proxies, loading a key caches it.
+        loaders.put(UserRepository.USERS_BY_LOGIN_CACHE, login -> userRepository.findOneWithAuthoritiesByLogin((String) login));
+        loaders.put(UserRepository.USERS_BY_EMAIL_CACHE, email -> userRepository.findOneWithAuthoritiesByEmailIgnoreCase((String) email));
+        loaders.put(ProductRepository.PRODUCTS_CACHE, id -> productUsecase.findOne((Long) id));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getConcurrency());
+        try {
+            for (Map.Entry<String, Consumer<Object>> loader : loaders.entrySet()) {
+                warmUp(loader.getKey(), loader.getValue(), executor, deadline);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void warmUp(String cacheName, Consumer<Object> loader, ExecutorService executor, long deadline) throws InterruptedException {
+        if (circuitBreaker.isOpen()) {
+            log.warn("Redis is unavailable, not warming up cache {}", cacheName);
+            return;
+        }
+        long start = System.nanoTime();
+        List<Object> keys;
+        try {
+            RScoredSortedSet<Object> accessCounts = redissonClient.getScoredSortedSet(ACCESS_FREQUENCY_KEY_PREFIX + cacheName);
+            keys = new ArrayList<>(accessCounts.valueRangeReversed(0, properties.getMaxKeys() - 1));
+        } catch (RuntimeException e) {
+            log.warn("Could not read the access counts of cache {}, not warming it up: {}", cacheName, e.getMessage());
+            return;
+        }
+        AtomicInteger loaded = new AtomicInteger();
+        List<Callable<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += properties.getBatchSize()) {
+            List<Object> batch = keys.subList(from, Math.min(from + properties.getBatchSize(), keys.size()));
+            batches.add(() -> {
+                for (Object key : batch) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    try {
+                        loader.accept(key);
+                        loaded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        log.debug("Could not preload {} in cache {}: {}", key, cacheName, e.getMessage());
+                    }
+                }
+                return null;
+            });
+        }
+        executor.invokeAll(batches, Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        long duration = System.nanoTime() - start;
+
+        Timer
+            .builder(WARM_UP_DURATION_METER_NAME)
+            .description(WARM_UP_DURATION_METER_DESCRIPTION)
+            .tag(WARM_UP_METER_CACHE_DIMENSION, cacheName)
+            .register(registry)
+            .record(duration, TimeUnit.NANOSECONDS);
+        Counter
+            .builder(WARM_UP_KEYS_METER_NAME)
+            .description(WARM_UP_KEYS_METER_DESCRIPTION)
+            .tag(WARM_UP_METER_CACHE_DIMENSION, cacheName)
+            .register(registry)
+            .increment(loaded.get());
+        log.info(
+            "Preloaded {} of {} keys in cache {} in {} ms",
+            loaded.get(),
+            keys.size(),
+            cacheName,
+            TimeUnit.NANOSECONDS.toMillis(duration)
+        );
+    }
+
+    /**
+     * Adds the access counts recorded since the last call to the ones kept in Redis, keeping the top keys only, after
+     * halving the latter if they were not halved for a half-life.
+     */
+    @Scheduled(fixedDelayString = "${application.cache.warm-up.persist-interval:PT1M}")
+    @PreDestroy
+    public void persistAccessCounts() {
+        if (circuitBreaker.isOpen()) {
+            return;
+        }
+        sketches
+            .getSketches()
+            .forEach((cacheName, sketch) -> {
+                Map<Object, Long> counts = sketch.drain();
+                String name = ACCESS_FREQUENCY_KEY_PREFIX + cacheName;
+                try {
+                    boolean decay = redissonClient
+                        .getBucket(name + DECAYED_KEY_SUFFIX, LongCodec.INSTANCE)
+                        .trySet(System.currentTimeMillis(), properties.getAccessCountHalfLife().toMillis(), TimeUnit.MILLISECONDS);
+                    if (counts.isEmpty() && !decay) {
+                        return;
+                    }
+                    RBatch batch = redissonClient.createBatch();
+                    RScoredSortedSetAsync<Object> accessCounts = batch.getScoredSortedSet(name);
+                    if (decay) {
+                        // ZUNIONSTORE of the set alone, weighted.
+                        accessCounts.unionAsync(Collections.singletonMap(name, DECAY_WEIGHT));
+                    }
+                    counts.forEach(accessCounts::addScoreAsync);
+                    accessCounts.removeRangeByRankAsync(0, -properties.getTrackedKeys() - 1);
+                    batch.execute();
+                } catch (RuntimeException e) {
+                    log.warn("Could not persist the access counts of cache {}: {}", cacheName, e.getMessage());
+                }
+            });
+    }
+}
@@ -0,0 +1,53 @@
+package com.poc.redis.infrastructure.management;
+
+import com.poc.redis.infrastructure.cache.CacheSchemas;
+import java.util.Map;
+import org.springframework.boot.actuate.cache.CachesEndpoint;
+import org.springframework.boot.actuate.cache.CachesEndpointWebExtension;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.EndpointWebExtension;
+import org.springframework.stereotype.Component;
+
+/**
+ * Web extension of the {@code caches} management endpoint that also reports the schema version
+ * each cache qualifies its keys with.
+ */
+@Component
+@EndpointWebExtension(endpoint = CachesEndpoint.class)
+public class CachesEndpointSchemaExtension extends CachesEndpointWebExtension {
+
+    private final CachesEndpoint delegate;
+
+    private final CacheSchemas cacheSchemas;
+
+    public CachesEndpointSchemaExtension(CachesEndpoint delegate, CacheSchemas cacheSchemas) {
+        super(delegate);
+        this.delegate = delegate;
+        this.cacheSchemas = cacheSchemas;
+    }
+
+    @ReadOperation
+    public CachesSchemaReport caches() {
+        return new CachesSchemaReport(delegate.caches(), cacheSchemas.getVersions());
+    }
+
+    public static final class CachesSchemaReport {
+
+        private final CachesEndpoint.CachesReport report;
+
+        private final Map<String, String> schemaVersions;
+
+        CachesSchemaReport(CachesEndpoint.CachesReport report, Map<String, String> schemaVersions) {
+            this.report = report;
+            this.schemaVersions = schemaVersions;
+        }
+
+        public Map<String, CachesEndpoint.CacheManagerDescriptor> getCacheManagers() {
+            return report.getCacheManagers();
+        }
+
+        public Map<String, String> getSchemaVersions() {
+            return schemaVersions;
+        }
+    }
+}
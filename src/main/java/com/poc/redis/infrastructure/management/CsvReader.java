@@ -0,0 +1,93 @@
+package com.poc.redis.infrastructure.management;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the records of a CSV file one at a time, as the Liquibase fake data are written: fields separated by a
+ * delimiter, optionally quoted with {@code "}, a quote within a quoted field doubled. Quoted fields may span lines.
+ */
+class CsvReader implements Closeable {
+
+    private final Reader reader;
+
+    private final char delimiter;
+
+    private int next = -2;
+
+    CsvReader(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * @return the fields of the next record, or {@code null} at the end of the file.
+     * @throws IOException if the file cannot be read, or ends within a quoted field.
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                c = read();
+                if (c != '\n') {
+                    unread(c);
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (next != -2) {
+            int c = next;
+            next = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        next = c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,202 @@
+package com.poc.redis.infrastructure.management;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Progress of an import of products from a CSV file, as reported by the {@code productimports} management endpoint.
+ * Written by the import worker only.
+ */
+public final class ProductImportJob {
+
+    /**
+     * Number of row errors kept, the first ones: the others are counted only.
+     */
+    static final int MAX_ERRORS = 100;
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    private final String id;
+
+    private final long fileSize;
+
+    private final Instant submittedAt = Instant.now();
+
+    private volatile State state = State.QUEUED;
+
+    private volatile Instant startedAt;
+
+    private volatile Instant finishedAt;
+
+    private volatile LongSupplier bytesRead = () -> 0;
+
+    private final AtomicLong rows = new AtomicLong();
+
+    private final AtomicLong created = new AtomicLong();
+
+    private final AtomicLong updated = new AtomicLong();
+
+    private final AtomicLong invalid = new AtomicLong();
+
+    private final AtomicLong notFound = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final List<String> errors = new ArrayList<>();
+
+    private volatile String error;
+
+    ProductImportJob(String id, long fileSize) {
+        this.id = id;
+        this.fileSize = fileSize;
+    }
+
+    void started(LongSupplier bytesRead) {
+        this.bytesRead = bytesRead;
+        this.startedAt = Instant.now();
+        this.state = State.RUNNING;
+    }
+
+    void completed() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    void rowRead() {
+        rows.incrementAndGet();
+    }
+
+    void created() {
+        created.incrementAndGet();
+    }
+
+    void updated() {
+        updated.incrementAndGet();
+    }
+
+    void invalid(long row, String error) {
+        invalid.incrementAndGet();
+        addError(row, error);
+    }
+
+    void notFound(long row, Long id) {
+        notFound.incrementAndGet();
+        addError(row, "product " + id + " not found");
+    }
+
+    void failed(long row, String error) {
+        failed.incrementAndGet();
+        addError(row, error);
+    }
+
+    private void addError(long row, String error) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("row " + row + ": " + error);
+            }
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getBytesRead() {
+        return state == State.COMPLETED ? fileSize : bytesRead.getAsLong();
+    }
+
+    /**
+     * @return the share of the file read, in percent.
+     */
+    public double getProgress() {
+        return fileSize == 0 ? 100 : Math.min(100, 100.0 * getBytesRead() / fileSize);
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    /**
+     * @return the rows read per second since the import started.
+     */
+    public double getRowsPerSecond() {
+        Instant started = startedAt;
+        if (started == null) {
+            return 0;
+        }
+        Instant finished = finishedAt;
+        long millis = Duration.between(started, finished != null ? finished : Instant.now()).toMillis();
+        return millis == 0 ? 0 : rows.get() * 1000.0 / millis;
+    }
+
+    public long getCreated() {
+        return created.get();
+    }
+
+    public long getUpdated() {
+        return updated.get();
+    }
+
+    public long getInvalid() {
+        return invalid.get();
+    }
+
+    public long getNotFound() {
+        return notFound.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return the first {@value #MAX_ERRORS} row errors.
+     */
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    /**
+     * @return why the import stopped, when {@link State#FAILED}.
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,399 @@
+package com.poc.redis.infrastructure.management;
+
+import com.poc.redis.application.dto.ProductBulkResultDTO;
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.mapper.ProductMapper;
+import com.poc.redis.application.usecase.ProductUsecase;
+import com.poc.redis.domain.enumeration.Size;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.repository.ProductCategoryRepository;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Imports products from CSV files with the columns of {@code config/liquibase/fake-data/product.csv}, separated by
+ * {@code ;}: {@code name}, {@code price} and {@code product_size} are required, {@code id}, {@code description},
+ * {@code image_content_type} and {@code product_category_id} optional, the others ignored. A row with an id updates
+ * that product, the others are created.
+ * <p>
+ * The file uploaded is stored in {@code application.bulk.import-directory}, then read by a single worker, one import
+ * after the other, in constant memory: the rows are parsed one at a time, resolved against the categories loaded once
+ * per import, and saved by chunks of {@code application.bulk.chunk-size} rows, each in a single transaction, as
+ * {@code POST /api/products/_bulk} does. The progress of the last imports is kept in memory, on the node importing.
+ * <p>
+ * A file is named {@code <id>.csv.uploading} until stored whole, {@code <id>.csv} until its import starts and
+ * {@code <id>.csv.importing} until it ends. The imports queued when the node stopped are queued again on startup; the
+ * one running is reported failed instead of being started over, which would create a second time the products it
+ * created before the stop.
+ */
+@Service
+public class ProductImportService implements ApplicationRunner, DisposableBean {
+
+    private static final int MAX_JOBS = 20;
+
+    private static final String UPLOADING_SUFFIX = ".csv.uploading";
+
+    private static final String QUEUED_SUFFIX = ".csv";
+
+    private static final String RUNNING_SUFFIX = ".csv.importing";
+
+    private static final char DELIMITER = ';';
+
+    private final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private final ProductUsecase productUsecase;
+
+    private final ProductCategoryRepository productCategoryRepository;
+
+    private final ProductMapper productMapper;
+
+    private final ApplicationProperties.Bulk properties;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("product-import-"));
+
+    private final Map<String, ProductImportJob> jobs = new LinkedHashMap<>();
+
+    public ProductImportService(
+        ProductUsecase productUsecase,
+        ProductCategoryRepository productCategoryRepository,
+        ProductMapper productMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productUsecase = productUsecase;
+        this.productCategoryRepository = productCategoryRepository;
+        this.productMapper = productMapper;
+        this.properties = applicationProperties.getBulk();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sweeps the files left in the import directory by the last stop, queueing their imports again in the order they
+     * were submitted.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        Path directory = Paths.get(properties.getImportDirectory());
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.sorted(Comparator.comparingLong(file -> file.toFile().lastModified())).collect(Collectors.toList());
+        } catch (IOException e) {
+            log.warn("Could not list the imports left in {}: {}", directory, e.getMessage());
+            return;
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            try {
+                if (name.endsWith(QUEUED_SUFFIX)) {
+                    ProductImportJob job = new ProductImportJob(id(name, QUEUED_SUFFIX), Files.size(file));
+                    queue(job, file);
+                    log.info("Queued again the import {} of {} bytes of products, left by the last stop", job.getId(), job.getFileSize());
+                } else if (name.endsWith(RUNNING_SUFFIX)) {
+                    ProductImportJob job = new ProductImportJob(id(name, RUNNING_SUFFIX), Files.size(file));
+                    job.failed("Interrupted by a stop, the rows saved before were kept");
+                    register(job);
+                    Files.delete(file);
+                    log.warn("The import {} was interrupted by the last stop, it is not started over", job.getId());
+                } else if (name.endsWith(UPLOADING_SUFFIX)) {
+                    // Never acknowledged.
+                    Files.delete(file);
+                }
+            } catch (IOException e) {
+                log.warn("Could not sweep the import file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stores a CSV file and queues its import.
+     *
+     * @param csv the content of the file, read until its end.
+     * @return the import queued.
+     * @throws IOException if the file cannot be stored.
+     */
+    public ProductImportJob submit(InputStream csv) throws IOException {
+        Path directory = Paths.get(properties.getImportDirectory());
+        Files.createDirectories(directory);
+        String id = UUID.randomUUID().toString();
+        Path uploading = directory.resolve(id + UPLOADING_SUFFIX);
+        Path file = directory.resolve(id + QUEUED_SUFFIX);
+        try {
+            Files.copy(csv, uploading, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(uploading, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(uploading);
+            throw e;
+        }
+        ProductImportJob job = new ProductImportJob(id, Files.size(file));
+        queue(job, file);
+        log.info("Queued the import {} of {} bytes of products", id, job.getFileSize());
+        return job;
+    }
+
+    /**
+     * @return the last imports, the oldest first.
+     */
+    public Collection<ProductImportJob> findAll() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    public Optional<ProductImportJob> findOne(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    private static String id(String fileName, String suffix) {
+        return fileName.substring(0, fileName.length() - suffix.length());
+    }
+
+    private void queue(ProductImportJob job, Path file) {
+        register(job);
+        executor.execute(() -> run(job, file));
+    }
+
+    private void register(ProductImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            // Forgets the oldest imports done.
+            Iterator<ProductImportJob> oldest = jobs.values().iterator();
+            while (jobs.size() > MAX_JOBS && oldest.hasNext()) {
+                if (oldest.next().getFinishedAt() != null) {
+                    oldest.remove();
+                }
+            }
+        }
+    }
+
+    private void run(ProductImportJob job, Path queued) {
+        Path file = queued.resolveSibling(job.getId() + RUNNING_SUFFIX);
+        try {
+            Files.move(queued, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Could not import the products of {}: {}", job.getId(), e.getMessage());
+            job.failed(e.getMessage());
+            return;
+        }
+        try (
+            CountingInputStream in = new CountingInputStream(Files.newInputStream(file));
+            CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), DELIMITER)
+        ) {
+            job.started(in::getCount);
+            Map<Long, ProductCategoryDTO> categories = new HashMap<>();
+            productCategoryRepository
+                .findAll()
+                .forEach(category -> categories.put(category.getId(), productMapper.toDtoProductCategoryName(category)));
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            Columns columns = new Columns(header);
+            List<ProductDTO> chunk = new ArrayList<>(properties.getChunkSize());
+            List<Long> chunkRows = new ArrayList<>(properties.getChunkSize());
+            long row = 0;
+            for (List<String> record = reader.next(); record != null; record = reader.next()) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                row++;
+                job.rowRead();
+                try {
+                    chunk.add(columns.toProduct(record, categories));
+                    chunkRows.add(row);
+                } catch (IllegalArgumentException e) {
+                    job.invalid(row, e.getMessage());
+                }
+                if (chunk.size() == properties.getChunkSize()) {
+                    save(job, chunk, chunkRows);
+                }
+            }
+            save(job, chunk, chunkRows);
+            job.completed();
+            log.info(
+                "Imported {} rows of products in {}: {} created, {} updated, {} rejected",
+                job.getRows(),
+                job.getId(),
+                job.getCreated(),
+                job.getUpdated(),
+                job.getInvalid() + job.getNotFound() + job.getFailed()
+            );
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not import the products of {}: {}", job.getId(), e.getMessage());
+            job.failed(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete the imported file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private void save(ProductImportJob job, List<ProductDTO> chunk, List<Long> chunkRows) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            List<ProductBulkResultDTO> results = productUsecase.saveAll(chunk);
+            for (ProductBulkResultDTO result : results) {
+                long row = chunkRows.get(result.getIndex());
+                switch (result.getStatus()) {
+                    case CREATED:
+                        job.created();
+                        break;
+                    case UPDATED:
+                        job.updated();
+                        break;
+                    case NOT_FOUND:
+                        job.notFound(row, result.getId());
+                        break;
+                    default:
+                        job.invalid(row, String.join(", ", result.getErrors()));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not save {} imported products: {}", chunk.size(), e.getMessage());
+            chunkRows.forEach(row -> job.failed(row, String.valueOf(e.getMessage())));
+        }
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    /**
+     * Positions of the columns of a file, from its header.
+     */
+    private static final class Columns {
+
+        private final Map<String, Integer> positions = new HashMap<>();
+
+        Columns(List<String> header) {
+            for (int i = 0; i < header.size(); i++) {
+                positions.put(header.get(i).trim(), i);
+            }
+            for (String required : List.of("name", "price", "product_size")) {
+                if (!positions.containsKey(required)) {
+                    throw new IllegalArgumentException("The column " + required + " is missing");
+                }
+            }
+        }
+
+        ProductDTO toProduct(List<String> record, Map<Long, ProductCategoryDTO> categories) {
+            ProductDTO product = new ProductDTO();
+            String id = value(record, "id");
+            product.setId(id != null ? parse("id", id, Long::valueOf) : null);
+            product.setName(value(record, "name"));
+            product.setDescription(value(record, "description"));
+            String price = value(record, "price");
+            product.setPrice(price != null ? parse("price", price, BigDecimal::new) : null);
+            String size = value(record, "product_size");
+            product.setProductSize(size != null ? parse("product_size", size, Size::valueOf) : null);
+            product.setImageContentType(value(record, "image_content_type"));
+            String categoryId = value(record, "product_category_id");
+            if (categoryId != null) {
+                ProductCategoryDTO category = categories.get(parse("product_category_id", categoryId, Long::valueOf));
+                if (category == null) {
+                    throw new IllegalArgumentException("product_category_id: category " + categoryId + " not found");
+                }
+                product.setProductCategory(category);
+            }
+            return product;
+        }
+
+        private String value(List<String> record, String column) {
+            Integer position = positions.get(column);
+            if (position == null || position >= record.size() || record.get(position).isBlank()) {
+                return null;
+            }
+            return record.get(position).trim();
+        }
+
+        private static <T> T parse(String column, String value, Function<String, T> parser) {
+            try {
+                return parser.apply(value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(column + ": invalid value " + value);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read from a stream, for the progress of the import.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.poc.redis.infrastructure.management;
+
+import java.util.Collection;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code productimports} management endpoint: the progress of the last product imports of this node, queued through
+ * {@code POST /api/products/_import}.
+ */
+@Component
+@Endpoint(id = "productimports")
+public class ProductImportsEndpoint {
+
+    private final ProductImportService productImportService;
+
+    public ProductImportsEndpoint(ProductImportService productImportService) {
+        this.productImportService = productImportService;
+    }
+
+    @ReadOperation
+    public Collection<ProductImportJob> imports() {
+        return productImportService.findAll();
+    }
+
+    /**
+     * @return the import, or {@code null} for a {@code 404 (Not Found)}.
+     */
+    @ReadOperation
+    public ProductImportJob productImport(@Selector String id) {
+        return productImportService.findOne(id).orElse(null);
+    }
+}
@@ -0,0 +1,47 @@
+package com.poc.redis.infrastructure.repository;
+
+import java.util.Map;
+import java.util.Properties;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Sequence generator reserving its ids by blocks, read from the sequence by the pooled-lo optimizer.
+ * <p>
+ * The size of the block of each sequence is taken from the {@value #BLOCK_SIZES_SETTING} setting, a map of the sizes
+ * by sequence name, rather than from the mapping: it must be equal to the increment of the sequence, which Hibernate
+ * checks on startup ({@code hibernate.id.sequence.increment_size_mismatch_strategy}).
+ */
+public class BlockSequenceGenerator extends SequenceStyleGenerator {
+
+    /**
+     * Hibernate setting holding the {@code Map<String, Integer>} of the block sizes, by sequence name.
+     */
+    public static final String BLOCK_SIZES_SETTING = "application.id_generator.block_sizes";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        String sequenceName = params.getProperty(SEQUENCE_PARAM);
+        Object blockSize = blockSizes(serviceRegistry).get(sequenceName);
+        if (blockSize == null) {
+            throw new MappingException("No block size configured in " + BLOCK_SIZES_SETTING + " for sequence " + sequenceName);
+        }
+        Properties blockParams = new Properties();
+        blockParams.putAll(params);
+        blockParams.setProperty(INCREMENT_PARAM, blockSize.toString());
+        blockParams.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, blockParams, serviceRegistry);
+    }
+
+    private static Map<?, ?> blockSizes(ServiceRegistry serviceRegistry) {
+        Object blockSizes = serviceRegistry.getService(ConfigurationService.class).getSettings().get(BLOCK_SIZES_SETTING);
+        if (!(blockSizes instanceof Map)) {
+            throw new MappingException("Setting " + BLOCK_SIZES_SETTING + " is missing");
+        }
+        return (Map<?, ?>) blockSizes;
+    }
+}
@@ -0,0 +1,15 @@
+package com.poc.redis.infrastructure.repository;
+
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * Repository writing many entities in a single transaction.
+ */
+@NoRepositoryBean
+public interface BulkRepository {
+    /**
+     * Writes the changes pending in the persistence context, by JDBC batches, then detaches every entity so that the
+     * context does not grow with each entity written.
+     */
+    void flushAndClear();
+}
@@ -0,0 +1,28 @@
+package com.poc.redis.infrastructure.repository;
+
+import java.util.stream.Stream;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * Repository reading whole tables through a database cursor: the rows are fetched by blocks as they are consumed,
+ * instead of all at once.
+ *
+ * @param <T> the entity type.
+ */
+@NoRepositoryBean
+public interface CursorRepository<T> {
+    /**
+     * Reads all the rows, ordered by id, through a read-only cursor. The stream must be consumed and closed within
+     * the transaction it is opened in.
+     *
+     * @param fetchSize the number of rows fetched per round trip to the database.
+     * @param fetches the to-one relationships to fetch with the rows, as paths such as {@code product.productCategory}.
+     * @return the rows.
+     */
+    Stream<T> streamAll(int fetchSize, String... fetches);
+
+    /**
+     * Detaches every entity read, so that the persistence context does not grow with each row streamed.
+     */
+    void detachAll();
+}
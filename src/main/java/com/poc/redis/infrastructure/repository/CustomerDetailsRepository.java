@@ -4,8 +4,8 @@ import java.util.List;
 import java.util.Optional;
 
 import com.poc.redis.domain.model.CustomerDetails;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,24 +14,25 @@ import org.springframework.stereotype.Repository;
  * Spring Data JPA repository for the CustomerDetails entity.
  */
 @Repository
-public interface CustomerDetailsRepository extends JpaRepository<CustomerDetails, Long> {
+public interface CustomerDetailsRepository extends JpaRepository<CustomerDetails, Long>, KeysetRepository<CustomerDetails> {
+    String CUSTOMER_DETAILS_COUNT = "customerDetails";
+
     default Optional<CustomerDetails> findOneWithEagerRelationships(Long id) {
         return this.findOneWithToOneRelationships(id);
     }
 
+    Slice<CustomerDetails> findAllBy(Pageable pageable);
+
     default List<CustomerDetails> findAllWithEagerRelationships() {
         return this.findAllWithToOneRelationships();
     }
 
-    default Page<CustomerDetails> findAllWithEagerRelationships(Pageable pageable) {
+    default Slice<CustomerDetails> findAllWithEagerRelationships(Pageable pageable) {
         return this.findAllWithToOneRelationships(pageable);
     }
 
-    @Query(
-        value = "select distinct customerDetails from CustomerDetails customerDetails left join fetch customerDetails.user",
-        countQuery = "select count(distinct customerDetails) from CustomerDetails customerDetails"
-    )
-    Page<CustomerDetails> findAllWithToOneRelationships(Pageable pageable);
+    @Query("select distinct customerDetails from CustomerDetails customerDetails left join fetch customerDetails.user")
+    Slice<CustomerDetails> findAllWithToOneRelationships(Pageable pageable);
 
     @Query("select distinct customerDetails from CustomerDetails customerDetails left join fetch customerDetails.user")
     List<CustomerDetails> findAllWithToOneRelationships();
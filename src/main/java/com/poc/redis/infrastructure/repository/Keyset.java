@@ -0,0 +1,78 @@
+package com.poc.redis.infrastructure.repository;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Position in a listing ordered by a sort property then by id, from which the next rows are read.
+ * <p>
+ * The values are kept as text, as received from a cursor, and converted to the types of the attributes when
+ * the query is built.
+ */
+public final class Keyset {
+
+    private final String property;
+
+    private final Sort.Direction direction;
+
+    private final String value;
+
+    private final String id;
+
+    private final int size;
+
+    private Keyset(String property, Sort.Direction direction, String value, String id, int size) {
+        this.property = property;
+        this.direction = direction;
+        this.value = value;
+        this.id = id;
+        this.size = size;
+    }
+
+    /**
+     * The first rows of a listing.
+     */
+    public static Keyset first(String property, Sort.Direction direction, int size) {
+        return new Keyset(property, direction, null, null, size);
+    }
+
+    /**
+     * The rows following the one with the given sort property value and id.
+     */
+    public static Keyset after(String property, Sort.Direction direction, String value, String id, int size) {
+        return new Keyset(property, direction, value, id, size);
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * The sort property value of the last row read, {@code null} for the first rows.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * The id of the last row read, {@code null} for the first rows.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    public Sort getSort(String idProperty) {
+        return property.equals(idProperty) ? Sort.by(direction, idProperty) : Sort.by(direction, property, idProperty);
+    }
+}
@@ -0,0 +1,129 @@
+package com.poc.redis.infrastructure.repository;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.FetchParent;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+/**
+ * Base class of the repositories, implementing {@link KeysetRepository}, {@link BulkRepository} and
+ * {@link CursorRepository} for those declaring them.
+ * <p>
+ * The rows following {@code (value, id)} in ascending order are read with
+ * {@code property >= value and (property > value or id > :id)}: the first condition is a range on an index
+ * starting with the property, which the second one only refines.
+ */
+public class KeysetJpaRepository<T, ID extends Serializable>
+    extends SimpleJpaRepository<T, ID>
+    implements KeysetRepository<T>, BulkRepository, CursorRepository<T> {
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    private final JpaEntityInformation<T, ?> entityInformation;
+
+    private final EntityManager entityManager;
+
+    public KeysetJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public Slice<T> findAll(Keyset keyset, String... fetches) {
+        String idProperty = entityInformation.getIdAttribute().getName();
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(getDomainClass());
+        Root<T> root = query.from(getDomainClass());
+        fetch(root, fetches);
+        Path<Comparable> key = root.get(keyset.getProperty());
+        Path<Comparable> id = root.get(idProperty);
+        boolean ascending = keyset.getDirection().isAscending();
+
+        if (!keyset.isFirst()) {
+            Comparable lastId = CONVERSION_SERVICE.convert(keyset.getId(), id.getJavaType());
+            if (keyset.getProperty().equals(idProperty)) {
+                query.where(ascending ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId));
+            } else {
+                Comparable lastValue = CONVERSION_SERVICE.convert(keyset.getValue(), key.getJavaType());
+                Predicate range = ascending ? cb.greaterThanOrEqualTo(key, lastValue) : cb.lessThanOrEqualTo(key, lastValue);
+                Predicate after = ascending
+                    ? cb.or(cb.greaterThan(key, lastValue), cb.greaterThan(id, lastId))
+                    : cb.or(cb.lessThan(key, lastValue), cb.lessThan(id, lastId));
+                query.where(range, after);
+            }
+        }
+        if (keyset.getProperty().equals(idProperty)) {
+            query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+        } else {
+            query.orderBy(ascending ? cb.asc(key) : cb.desc(key), ascending ? cb.asc(id) : cb.desc(id));
+        }
+
+        // One more row than requested tells whether a next page exists, without a count query.
+        List<T> rows = entityManager.createQuery(query).setMaxResults(keyset.getSize() + 1).getResultList();
+        boolean hasNext = rows.size() > keyset.getSize();
+        List<T> content = hasNext ? rows.subList(0, keyset.getSize()) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, keyset.getSize(), keyset.getSort(idProperty)), hasNext);
+    }
+
+    @Override
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    public Stream<T> streamAll(int fetchSize, String... fetches) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(getDomainClass());
+        Root<T> root = query.from(getDomainClass());
+        fetch(root, fetches);
+        query.orderBy(cb.asc(root.get(entityInformation.getIdAttribute().getName())));
+        // Streamed through a forward-only cursor: the driver fetches the rows by blocks, and they are not snapshotted
+        // for dirty checking.
+        return entityManager
+            .createQuery(query)
+            .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+            .setHint(QueryHints.HINT_READONLY, true)
+            .getResultStream();
+    }
+
+    @Override
+    public void detachAll() {
+        entityManager.clear();
+    }
+
+    /**
+     * Fetches relationships with the rows, each path such as {@code cart.customerDetails} joining its prefixes once.
+     */
+    private static void fetch(Root<?> root, String... paths) {
+        Map<String, FetchParent<?, ?>> fetched = new HashMap<>();
+        for (String path : paths) {
+            FetchParent<?, ?> parent = root;
+            String prefix = "";
+            for (String attribute : path.split("\\.")) {
+                FetchParent<?, ?> from = parent;
+                prefix = prefix.isEmpty() ? attribute : prefix + "." + attribute;
+                parent = fetched.computeIfAbsent(prefix, fetchedPath -> from.fetch(attribute, JoinType.LEFT));
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.poc.redis.infrastructure.repository;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * Repository listing entities by keyset: each page is read from the position of the last row of the previous
+ * one, instead of skipping the rows before it, and without counting the rows.
+ *
+ * @param <T> the entity type.
+ */
+@NoRepositoryBean
+public interface KeysetRepository<T> {
+    /**
+     * Reads the rows following a keyset, ordered by its property then by id.
+     *
+     * @param keyset the position to read from and the number of rows to read.
+     * @param fetches the to-one relationships to fetch with the rows.
+     * @return the rows, and whether more follow.
+     */
+    Slice<T> findAll(Keyset keyset, String... fetches);
+}
@@ -1,6 +1,8 @@
 package com.poc.redis.infrastructure.repository;
 
 import com.poc.redis.domain.model.ProductCategory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +11,8 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProductCategoryRepository extends JpaRepository<ProductCategory, Long> {}
+public interface ProductCategoryRepository extends JpaRepository<ProductCategory, Long>, KeysetRepository<ProductCategory> {
+    String PRODUCT_CATEGORIES_COUNT = "productCategories";
+
+    Slice<ProductCategory> findAllBy(Pageable pageable);
+}
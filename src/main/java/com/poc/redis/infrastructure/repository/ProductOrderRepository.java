@@ -1,5 +1,6 @@
 package com.poc.redis.infrastructure.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,7 +15,7 @@ import org.springframework.stereotype.Repository;
  * Spring Data JPA repository for the ProductOrder entity.
  */
 @Repository
-public interface ProductOrderRepository extends JpaRepository<ProductOrder, Long> {
+public interface ProductOrderRepository extends JpaRepository<ProductOrder, Long>, CursorRepository<ProductOrder> {
     default Optional<ProductOrder> findOneWithEagerRelationships(Long id) {
         return this.findOneWithToOneRelationships(id);
     }
@@ -38,4 +39,22 @@ public interface ProductOrderRepository extends JpaRepository<ProductOrder, Long
 
     @Query("select productOrder from ProductOrder productOrder left join fetch productOrder.product where productOrder.id =:id")
     Optional<ProductOrder> findOneWithToOneRelationships(@Param("id") Long id);
+
+    @Query("select productOrder.product.id from ProductOrder productOrder where productOrder.id = :id")
+    Optional<Long> findProductIdById(@Param("id") Long id);
+
+    /**
+     * @return the product id and the total quantity ordered of each product ordered.
+     */
+    @Query("select productOrder.product.id, sum(productOrder.quantity) from ProductOrder productOrder group by productOrder.product.id")
+    List<Object[]> sumQuantityGroupByProductId();
+
+    /**
+     * @return the product id and the total quantity ordered of each of the products ordered.
+     */
+    @Query(
+        "select productOrder.product.id, sum(productOrder.quantity) from ProductOrder productOrder" +
+        " where productOrder.product.id in :productIds group by productOrder.product.id"
+    )
+    List<Object[]> sumQuantityGroupByProductId(@Param("productIds") Collection<Long> productIds);
 }
@@ -1,11 +1,12 @@
 package com.poc.redis.infrastructure.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import com.poc.redis.domain.model.Product;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,28 +15,41 @@ import org.springframework.stereotype.Repository;
  * Spring Data JPA repository for the Product entity.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, KeysetRepository<Product>, BulkRepository {
+    String PRODUCTS_CACHE = "products";
+
+    String PRODUCTS_COUNT = "products";
+
     default Optional<Product> findOneWithEagerRelationships(Long id) {
         return this.findOneWithToOneRelationships(id);
     }
 
+    Slice<Product> findAllBy(Pageable pageable);
+
     default List<Product> findAllWithEagerRelationships() {
         return this.findAllWithToOneRelationships();
     }
 
-    default Page<Product> findAllWithEagerRelationships(Pageable pageable) {
+    default List<Product> findAllWithEagerRelationships(Collection<Long> ids) {
+        return this.findAllWithToOneRelationships(ids);
+    }
+
+    default Slice<Product> findAllWithEagerRelationships(Pageable pageable) {
         return this.findAllWithToOneRelationships(pageable);
     }
 
-    @Query(
-        value = "select distinct product from Product product left join fetch product.productCategory",
-        countQuery = "select count(distinct product) from Product product"
-    )
-    Page<Product> findAllWithToOneRelationships(Pageable pageable);
+    @Query("select distinct product from Product product left join fetch product.productCategory")
+    Slice<Product> findAllWithToOneRelationships(Pageable pageable);
 
     @Query("select distinct product from Product product left join fetch product.productCategory")
     List<Product> findAllWithToOneRelationships();
 
+    @Query("select product from Product product left join fetch product.productCategory where product.id in :ids")
+    List<Product> findAllWithToOneRelationships(@Param("ids") Collection<Long> ids);
+
     @Query("select product from Product product left join fetch product.productCategory where product.id =:id")
     Optional<Product> findOneWithToOneRelationships(@Param("id") Long id);
+
+    @Query("select product.imageKey from Product product where product.id =:id")
+    Optional<String> findImageKeyById(@Param("id") Long id);
 }
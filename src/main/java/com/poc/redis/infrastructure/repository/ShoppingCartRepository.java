@@ -9,4 +9,4 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ShoppingCartRepository extends JpaRepository<ShoppingCart, Long> {}
+public interface ShoppingCartRepository extends JpaRepository<ShoppingCart, Long>, CursorRepository<ShoppingCart> {}
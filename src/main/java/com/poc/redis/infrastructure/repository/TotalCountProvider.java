@@ -0,0 +1,249 @@
+package com.poc.redis.infrastructure.repository;
+
+import com.poc.redis.infrastructure.cache.RedisCircuitBreaker;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.config.CacheConfiguration;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.persistence.Table;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Totals of the paginated listings, so that a page view does not count the rows again.
+ * <p>
+ * The exact total of each counted query is kept in Redis for {@code application.cache.total-count.ttl}. The
+ * usecases adjust it when they insert or delete rows, once their transaction commits. A total counted while rows
+ * were being written may or may not include them, so Redis also counts the writes started and finished for each
+ * query: a total is only cached when no write started since its counting began, and none is in flight. The ttl
+ * bounds the drift from the writes made elsewhere, outside a transaction, or while Redis was unavailable.
+ * <p>
+ * An estimated total is read from the table statistics of the database instead, without counting at all. It
+ * falls back to the exact total when the database keeps none. The statistics count every row of a table, so the
+ * listings filtering its rows only get the exact total.
+ */
+@Component
+public class TotalCountProvider {
+
+    public static final String TOTAL_COUNT_KEY_PREFIX = CacheConfiguration.CACHE_KEY_PREFIX + "total-count:";
+
+    /**
+     * Returns the number of writes started on the rows of a query.
+     */
+    private static final String STARTED_WRITES_SCRIPT = "return tonumber(redis.call('hget', KEYS[1], 'started') or '0')";
+
+    /**
+     * Counts a write as started; the writes are forgotten after the ttl of the totals, in case one never finishes.
+     */
+    private static final String START_WRITE_SCRIPT =
+        "local started = redis.call('hincrby', KEYS[1], 'started', 1) redis.call('pexpire', KEYS[1], ARGV[1]) return started";
+
+    /**
+     * Counts a write as finished, and increments the cached total unless it expired: a total created by the increment
+     * would miss the other rows.
+     */
+    private static final String FINISH_WRITE_SCRIPT =
+        "redis.call('hincrby', KEYS[1], 'finished', 1) redis.call('pexpire', KEYS[1], ARGV[2]) " +
+        "if ARGV[1] ~= '0' and redis.call('exists', KEYS[2]) == 1 then return redis.call('incrby', KEYS[2], ARGV[1]) end return nil";
+
+    /**
+     * Caches a total unless a write started since the given number of started writes, or is still in flight.
+     */
+    private static final String SET_IF_NO_WRITE_SCRIPT =
+        "local started = tonumber(redis.call('hget', KEYS[1], 'started') or '0') " +
+        "local finished = tonumber(redis.call('hget', KEYS[1], 'finished') or '0') " +
+        "if started ~= tonumber(ARGV[1]) or finished ~= started then return nil end " +
+        "redis.call('set', KEYS[2], ARGV[2], 'PX', ARGV[3], 'NX') return 1";
+
+    private final Logger log = LoggerFactory.getLogger(TotalCountProvider.class);
+
+    private final RedissonClient redissonClient;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationProperties.TotalCount properties;
+
+    private volatile String statisticsQuery;
+
+    public TotalCountProvider(
+        RedissonClient redissonClient,
+        RedisCircuitBreaker circuitBreaker,
+        JdbcTemplate jdbcTemplate,
+        ApplicationProperties applicationProperties
+    ) {
+        this.redissonClient = redissonClient;
+        this.circuitBreaker = circuitBreaker;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = applicationProperties.getCache().getTotalCount();
+    }
+
+    /**
+     * Returns the total of a listing.
+     *
+     * @param query the name of the counted query, e.g. {@code products}.
+     * @param entityClass the entity listed, whose table statistics give the estimated total.
+     * @param estimated whether an estimate is enough.
+     * @param counter counts the rows of the query.
+     * @return the total.
+     */
+    public long getTotalCount(String query, Class<?> entityClass, boolean estimated, LongSupplier counter) {
+        if (estimated) {
+            Long estimate = readStatistics(entityClass.getAnnotation(Table.class).name());
+            if (estimate != null) {
+                return estimate;
+            }
+        }
+        return getTotalCount(query, counter);
+    }
+
+    /**
+     * Returns the exact total of a listing, for the listings of part of the rows of a table.
+     *
+     * @param query the name of the counted query, e.g. {@code activated-users}.
+     * @param counter counts the rows of the query.
+     * @return the total.
+     */
+    public long getTotalCount(String query, LongSupplier counter) {
+        if (!properties.isEnabled()) {
+            return counter.getAsLong();
+        }
+        RBucket<Long> bucket = redissonClient.getBucket(totalKey(query), LongCodec.INSTANCE);
+        Long cached = call(bucket::get, () -> null);
+        if (cached != null) {
+            return cached;
+        }
+        Long started = eval(query, STARTED_WRITES_SCRIPT);
+        long count = counter.getAsLong();
+        if (started != null) {
+            eval(query, SET_IF_NO_WRITE_SCRIPT, started, count, properties.getTtl().toMillis());
+        }
+        return count;
+    }
+
+    /**
+     * Adds the rows inserted, or removes the rows deleted, from the cached total of a listing once the current
+     * transaction commits.
+     *
+     * @param query the name of the counted query.
+     * @param delta the number of rows added to the query, negative for rows removed.
+     */
+    public void adjust(String query, long delta) {
+        if (!properties.isEnabled() || delta == 0) {
+            return;
+        }
+        long ttl = properties.getTtl().toMillis();
+        eval(query, START_WRITE_SCRIPT, ttl);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eval(query, FINISH_WRITE_SCRIPT, delta, ttl);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eval(query, FINISH_WRITE_SCRIPT, status == STATUS_COMMITTED ? delta : 0, ttl);
+                }
+            }
+        );
+    }
+
+    /**
+     * The key of the cached total of a query. The hash tag keeps it in the slot of the writes of the query, which the
+     * scripts read with it.
+     */
+    private static String totalKey(String query) {
+        return TOTAL_COUNT_KEY_PREFIX + "{" + query + "}";
+    }
+
+    private static String writesKey(String query) {
+        return totalKey(query) + ":writes";
+    }
+
+    private Long eval(String query, String script, Object... values) {
+        List<Object> keys = List.of(writesKey(query), totalKey(query));
+        return call(
+            () ->
+                redissonClient
+                    .getScript(LongCodec.INSTANCE)
+                    .eval(RScript.Mode.READ_WRITE, script, RScript.ReturnType.INTEGER, keys, values),
+            () -> null
+        );
+    }
+
+    private Long readStatistics(String table) {
+        try {
+            String sql = getStatisticsQuery();
+            if (sql == null) {
+                return null;
+            }
+            List<Long> rows = jdbcTemplate.queryForList(sql, Long.class, table);
+            // PostgreSQL reports -1 for the tables never analyzed.
+            return rows.isEmpty() || rows.get(0) == null || rows.get(0) < 0 ? null : rows.get(0);
+        } catch (DataAccessException e) {
+            log.debug("Could not read the statistics of table {}: {}", table, e.getMessage());
+            return null;
+        }
+    }
+
+    private String getStatisticsQuery() {
+        String sql = statisticsQuery;
+        if (sql == null) {
+            String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()
+            );
+            sql = statisticsQuery(product == null ? "" : product.toLowerCase(Locale.ROOT));
+            statisticsQuery = sql;
+        }
+        return sql.isEmpty() ? null : sql;
+    }
+
+    /**
+     * The query reading the estimated row count of a table, empty when the database is not supported.
+     *
+     * @see DatabaseMetaData#getDatabaseProductName()
+     */
+    private static String statisticsQuery(String databaseProduct) {
+        if (databaseProduct.contains("h2")) {
+            return "select row_count_estimate from information_schema.tables where table_schema = schema() and lower(table_name) = ?";
+        }
+        if (databaseProduct.contains("mysql") || databaseProduct.contains("mariadb")) {
+            return "select table_rows from information_schema.tables where table_schema = database() and table_name = ?";
+        }
+        if (databaseProduct.contains("postgresql")) {
+            return "select cast(reltuples as bigint) from pg_class where oid = to_regclass(?)";
+        }
+        return "";
+    }
+
+    private <T> T call(Supplier<T> redisCall, Supplier<T> fallback) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return fallback.get();
+        }
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = redisCall.get();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            log.debug("Redis call on the listing totals failed, counting the rows instead: {}", e.getMessage());
+            return fallback.get();
+        }
+        circuitBreaker.onSuccess(System.nanoTime() - start);
+        return result;
+    }
+}
@@ -0,0 +1,792 @@
+package com.poc.redis.infrastructure.search;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntPredicate;
+
+/**
+ * Set of non-negative ints, compressed the way Roaring bitmaps are.
+ * <p>
+ * The values are grouped by their upper 16 bits; each group holds its lower 16 bits either as a sorted array, while
+ * it has at most {@value #MAX_ARRAY_SIZE} values, or as a 65536-bit bitmap. Sparse groups thus take 2 bytes per
+ * value and dense ones 8 KiB. {@link #runOptimize} turns the groups made of few runs of consecutive values into
+ * lists of runs, taking 4 bytes per run, which stay so while updated as long as they have at most {@value #MAX_RUNS}
+ * runs. The results of {@link #and}, {@link #or} and {@link #andNot} share nothing with their operands.
+ * <p>
+ * Not thread-safe.
+ */
+public final class CompressedBitmap {
+
+    private static final int MAX_ARRAY_SIZE = 4096;
+
+    private static final int MAX_RUNS = 2048;
+
+    private char[] keys = new char[0];
+
+    private Container[] containers = new Container[0];
+
+    private int size;
+
+    public void add(int value) {
+        char key = (char) (value >>> 16);
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        if (i < 0) {
+            i = -i - 1;
+            insert(i, key, new ArrayContainer());
+        }
+        containers[i] = containers[i].add((char) value);
+    }
+
+    public void remove(int value) {
+        int i = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        if (i < 0) {
+            return;
+        }
+        Container container = containers[i].remove((char) value);
+        if (container.cardinality() == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            containers[--size] = null;
+        } else {
+            containers[i] = container;
+        }
+    }
+
+    public boolean contains(int value) {
+        int i = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return the memory taken by the values, in bytes, leaving out the fixed cost of each group.
+     */
+    long sizeInBytes() {
+        long bytes = 0;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the values in both bitmaps.
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.insert(result.size, keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of values in both bitmaps, without building their intersection.
+     */
+    public int andCardinality(CompressedBitmap other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                cardinality += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return the values in either bitmap.
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.insert(result.size, keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.insert(result.size, other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.insert(result.size, keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the values in this bitmap but not in the other.
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container container = j < other.size && other.keys[j] == keys[i]
+                ? containers[i].andNot(other.containers[j])
+                : containers[i].copy();
+            if (container.cardinality() > 0) {
+                result.insert(result.size, keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores each group in the smallest of its representations, runs included. Worth it once the bitmap is built,
+     * when its values are mostly consecutive.
+     */
+    public void runOptimize() {
+        for (int i = 0; i < size; i++) {
+            containers[i] = containers[i].optimize();
+        }
+    }
+
+    /**
+     * @return the values, in increasing order.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int i;
+
+            private PrimitiveIterator.OfInt current = size > 0 ? containers[0].iterator() : null;
+
+            @Override
+            public boolean hasNext() {
+                while (current != null && !current.hasNext()) {
+                    current = ++i < size ? containers[i].iterator() : null;
+                }
+                return current != null;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return keys[i] << 16 | current.nextInt();
+            }
+        };
+    }
+
+    private void insert(int i, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(4, size * 2));
+            containers = Arrays.copyOf(containers, keys.length);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = container;
+        size++;
+    }
+
+    /**
+     * The lower 16 bits of the values sharing the same upper 16 bits. Updates return the container to use from then
+     * on, which changes representation when crossing {@value #MAX_ARRAY_SIZE} values or {@value #MAX_RUNS} runs.
+     */
+    private abstract static class Container {
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract int sizeInBytes();
+
+        abstract Container and(Container other);
+
+        abstract int andCardinality(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract PrimitiveIterator.OfInt iterator();
+
+        /**
+         * @return this container, or its values as runs when they take less memory so.
+         */
+        Container optimize() {
+            int maxRuns = sizeInBytes() / 4;
+            RunContainer runs = new RunContainer();
+            for (PrimitiveIterator.OfInt iterator = iterator(); iterator.hasNext();) {
+                runs.append((char) iterator.nextInt());
+                if (runs.runs >= maxRuns) {
+                    return this;
+                }
+            }
+            return runs;
+        }
+
+        /**
+         * @return the values of this container matching the predicate.
+         */
+        Container filter(IntPredicate predicate) {
+            Container result = new ArrayContainer();
+            for (PrimitiveIterator.OfInt iterator = iterator(); iterator.hasNext();) {
+                int value = iterator.nextInt();
+                if (predicate.test(value)) {
+                    result = result.add((char) value);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return a copy of the other container, with the values of this one added.
+         */
+        Container addTo(Container other) {
+            Container result = other.copy();
+            for (PrimitiveIterator.OfInt iterator = iterator(); iterator.hasNext();) {
+                result = result.add((char) iterator.nextInt());
+            }
+            return result;
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == MAX_ARRAY_SIZE) {
+                return toBitmap().add(value);
+            }
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(cardinality * 2, MAX_ARRAY_SIZE));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int sizeInBytes() {
+            return cardinality * 2;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        Container or(Container other) {
+            return addTo(other);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[Math.max(cardinality, 4)];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 4)), cardinality);
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator() {
+            return new PrimitiveIterator.OfInt() {
+                private int i;
+
+                @Override
+                public boolean hasNext() {
+                    return i < cardinality;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return values[i++];
+                }
+            };
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long word = words[value >>> 6];
+            long updated = word | (1L << value);
+            if (updated != word) {
+                words[value >>> 6] = updated;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long word = words[value >>> 6];
+            long updated = word & ~(1L << value);
+            if (updated != word) {
+                words[value >>> 6] = updated;
+                cardinality--;
+            }
+            return cardinality <= MAX_ARRAY_SIZE ? toArray() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int sizeInBytes() {
+            return words.length * 8;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (!(other instanceof BitmapContainer)) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[words.length];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            BitmapContainer bitmap = new BitmapContainer(result, count);
+            return count <= MAX_ARRAY_SIZE ? bitmap.toArray() : bitmap;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (!(other instanceof BitmapContainer)) {
+                return other.andCardinality(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                count += Long.bitCount(words[i] & otherWords[i]);
+            }
+            return count;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (!(other instanceof BitmapContainer)) {
+                return other.addTo(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[words.length];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                result[i] = words[i] | otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            if (!(other instanceof BitmapContainer)) {
+                Container result = copy();
+                for (PrimitiveIterator.OfInt iterator = other.iterator(); iterator.hasNext();) {
+                    result = result.remove((char) iterator.nextInt());
+                }
+                return result;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[words.length];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                result[i] = words[i] & ~otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            BitmapContainer bitmap = new BitmapContainer(result, count);
+            return count <= MAX_ARRAY_SIZE ? bitmap.toArray() : bitmap;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator() {
+            return new PrimitiveIterator.OfInt() {
+                private int i;
+
+                private long word = words[0];
+
+                @Override
+                public boolean hasNext() {
+                    while (word == 0 && i < words.length - 1) {
+                        word = words[++i];
+                    }
+                    return word != 0;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int value = i * 64 + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    return value;
+                }
+            };
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[Math.max(cardinality, 4)];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+
+    /**
+     * Runs of consecutive values, each as its first value and its length minus one, in increasing order.
+     */
+    private static final class RunContainer extends Container {
+
+        private char[] starts;
+
+        private char[] lengths;
+
+        private int runs;
+
+        private int cardinality;
+
+        RunContainer() {
+            this(new char[4], new char[4], 0, 0);
+        }
+
+        RunContainer(char[] starts, char[] lengths, int runs, int cardinality) {
+            this.starts = starts;
+            this.lengths = lengths;
+            this.runs = runs;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * Adds a value greater than the others.
+         */
+        void append(char value) {
+            if (runs > 0 && end(runs - 1) + 1 == value) {
+                lengths[runs - 1]++;
+            } else {
+                insertRun(runs, value, (char) 0);
+            }
+            cardinality++;
+        }
+
+        @Override
+        Container add(char value) {
+            int i = runIndex(value);
+            if (i >= 0 && value <= end(i)) {
+                return this;
+            }
+            boolean extendsPrevious = i >= 0 && end(i) + 1 == value;
+            boolean extendsNext = i + 1 < runs && starts[i + 1] == value + 1;
+            if (extendsPrevious && extendsNext) {
+                lengths[i] = (char) (end(i + 1) - starts[i]);
+                removeRun(i + 1);
+            } else if (extendsPrevious) {
+                lengths[i]++;
+            } else if (extendsNext) {
+                starts[i + 1]--;
+                lengths[i + 1]++;
+            } else {
+                insertRun(i + 1, value, (char) 0);
+            }
+            cardinality++;
+            return runs > MAX_RUNS ? toArrayOrBitmap() : this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int i = runIndex(value);
+            if (i < 0 || value > end(i)) {
+                return this;
+            }
+            int end = end(i);
+            if (starts[i] == end) {
+                removeRun(i);
+            } else if (value == starts[i]) {
+                starts[i]++;
+                lengths[i]--;
+            } else if (value == end) {
+                lengths[i]--;
+            } else {
+                // Splits the run around the value.
+                lengths[i] = (char) (value - 1 - starts[i]);
+                insertRun(i + 1, (char) (value + 1), (char) (end - value - 1));
+            }
+            cardinality--;
+            return runs > MAX_RUNS ? toArrayOrBitmap() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            int i = runIndex(value);
+            return i >= 0 && value <= end(i);
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int sizeInBytes() {
+            return runs * 4;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            return filter(value -> other.contains((char) value));
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.andCardinality(this);
+            }
+            int count = 0;
+            for (int i = 0; i < runs; i++) {
+                for (int value = starts[i]; value <= end(i); value++) {
+                    if (other.contains((char) value)) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        Container or(Container other) {
+            return addTo(other);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            return filter(value -> !other.contains((char) value));
+        }
+
+        @Override
+        Container copy() {
+            return new RunContainer(Arrays.copyOf(starts, Math.max(runs, 4)), Arrays.copyOf(lengths, Math.max(runs, 4)), runs, cardinality);
+        }
+
+        @Override
+        Container optimize() {
+            return sizeInBytes() < Math.min(cardinality * 2, 8192) ? this : toArrayOrBitmap();
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator() {
+            return new PrimitiveIterator.OfInt() {
+                private int i;
+
+                private int value = runs > 0 ? starts[0] : 0;
+
+                @Override
+                public boolean hasNext() {
+                    if (i < runs && value > end(i)) {
+                        i++;
+                        value = i < runs ? starts[i] : 0;
+                    }
+                    return i < runs;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return value++;
+                }
+            };
+        }
+
+        /**
+         * @return the last value of a run.
+         */
+        private int end(int i) {
+            return starts[i] + lengths[i];
+        }
+
+        /**
+         * @return the index of the last run starting at or before the value, or -1.
+         */
+        private int runIndex(char value) {
+            int i = Arrays.binarySearch(starts, 0, runs, value);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        private void insertRun(int i, char start, char length) {
+            if (runs == starts.length) {
+                starts = Arrays.copyOf(starts, runs * 2);
+                lengths = Arrays.copyOf(lengths, runs * 2);
+            }
+            System.arraycopy(starts, i, starts, i + 1, runs - i);
+            System.arraycopy(lengths, i, lengths, i + 1, runs - i);
+            starts[i] = start;
+            lengths[i] = length;
+            runs++;
+        }
+
+        private void removeRun(int i) {
+            System.arraycopy(starts, i + 1, starts, i, runs - i - 1);
+            System.arraycopy(lengths, i + 1, lengths, i, runs - i - 1);
+            runs--;
+        }
+
+        private Container toArrayOrBitmap() {
+            Container result = new ArrayContainer();
+            for (int i = 0; i < runs; i++) {
+                for (int value = starts[i]; value <= end(i); value++) {
+                    result = result.add((char) value);
+                }
+            }
+            return result;
+        }
+    }
+}
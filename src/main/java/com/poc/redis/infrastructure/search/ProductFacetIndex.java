@@ -0,0 +1,420 @@
+package com.poc.redis.infrastructure.search;
+
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.dto.ProductFacetsDTO;
+import com.poc.redis.domain.enumeration.Size;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * In-memory facets of the products: a {@link CompressedBitmap} of the products of each category and of each size,
+ * and a column of the prices sorted in increasing order.
+ * <p>
+ * Each indexed product gets an ordinal, in indexing order, which it keeps when updated. Filtering intersects the
+ * bitmaps of the categories and sizes requested with the bitmap of the price range, read from the price column;
+ * the counts of each facet apply the filters on the other facets only, so that they tell how many products a
+ * filter on another value would find. The ordinals of the deleted products are not reused; the index is compacted
+ * once they outnumber the live ones. Once built, and when compacted, the bitmaps are stored as runs of ordinals where
+ * smaller: the products indexed one after the other, as by a rebuild, mostly have consecutive ordinals. Queries run
+ * concurrently, updates exclusively.
+ */
+public class ProductFacetIndex {
+
+    private static final int MIN_COMPACTED_ORDINALS = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    private final CompressedBitmap all = new CompressedBitmap();
+
+    private final Map<Long, CompressedBitmap> byCategory = new HashMap<>();
+
+    private final Map<Size, CompressedBitmap> bySize = new EnumMap<>(Size.class);
+
+    private long[] ids = new long[1024];
+
+    private Long[] categories = new Long[1024];
+
+    private Size[] sizes = new Size[1024];
+
+    private long[] prices = new long[1024];
+
+    /**
+     * The prices of the products, in cents, in increasing order, then by ordinal.
+     */
+    private long[] priceColumn = new long[1024];
+
+    /**
+     * The ordinal of the product of each price of {@link #priceColumn}.
+     */
+    private int[] priceOrdinals = new int[1024];
+
+    private int priceCount;
+
+    private int nextOrdinal;
+
+    private int deleted;
+
+    /**
+     * Indexes a product, replacing its former version.
+     */
+    public void put(ProductDTO product) {
+        putAll(Collections.singletonList(product));
+    }
+
+    /**
+     * Indexes products, replacing their former versions.
+     */
+    public void putAll(Collection<ProductDTO> products) {
+        lock.writeLock().lock();
+        try {
+            for (ProductDTO product : products) {
+                Integer ordinal = ordinals.get(product.getId());
+                if (ordinal != null) {
+                    unsetFacets(ordinal);
+                }
+            }
+            int sorted = priceCount;
+            for (ProductDTO product : products) {
+                Integer ordinal = ordinals.get(product.getId());
+                if (ordinal == null) {
+                    ordinal = newOrdinal(product.getId());
+                }
+                Long categoryId = product.getProductCategory() == null ? null : product.getProductCategory().getId();
+                Long price = product.getPrice() == null
+                    ? null
+                    : product.getPrice().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+                setFacets(ordinal, categoryId, product.getProductSize(), price);
+            }
+            mergePrices(sorted);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            unsetFacets(ordinal);
+            all.remove(ordinal);
+            deleted++;
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores the bitmaps in their smallest representation, once the products are indexed.
+     *
+     * @see CompressedBitmap#runOptimize
+     */
+    public void runOptimize() {
+        lock.writeLock().lock();
+        try {
+            all.runOptimize();
+            byCategory.values().forEach(CompressedBitmap::runOptimize);
+            bySize.values().forEach(CompressedBitmap::runOptimize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the products matching the filters, with the number of products of each facet value.
+     *
+     * @param categoryIds the categories the products must be in one of, every category if empty.
+     * @param productSizes the sizes the products must have one of, every size if empty.
+     * @param minPrice the lowest price of the products, inclusive, or {@code null}.
+     * @param maxPrice the highest price of the products, inclusive, or {@code null}.
+     * @param pageable the page of ids requested, in indexing order; its sort is ignored.
+     * @return the ids of the matching products with their total number, and the facets.
+     */
+    public ProductFacetsDTO facets(
+        Collection<Long> categoryIds,
+        Collection<Size> productSizes,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Pageable pageable
+    ) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap categoryFilter = categoryIds.isEmpty() ? null : union(categoryIds, byCategory);
+            CompressedBitmap sizeFilter = productSizes.isEmpty() ? null : union(productSizes, bySize);
+            CompressedBitmap priceFilter = minPrice == null && maxPrice == null ? null : priceRange(minPrice, maxPrice);
+
+            CompressedBitmap withoutCategory = intersect(intersect(all, priceFilter), sizeFilter);
+            CompressedBitmap withoutSize = intersect(intersect(all, priceFilter), categoryFilter);
+            CompressedBitmap withoutPrice = intersect(intersect(all, categoryFilter), sizeFilter);
+            CompressedBitmap matches = intersect(withoutCategory, categoryFilter);
+
+            ProductFacetsDTO facets = new ProductFacetsDTO();
+            facets.setTotal(matches.cardinality());
+            facets.setIds(page(matches, pageable));
+            Map<Long, Long> categoryCounts = new TreeMap<>();
+            byCategory.forEach((categoryId, bitmap) -> {
+                int count = withoutCategory.andCardinality(bitmap);
+                if (count > 0) {
+                    categoryCounts.put(categoryId, (long) count);
+                }
+            });
+            facets.setCategories(categoryCounts);
+            Map<Size, Long> sizeCounts = new LinkedHashMap<>();
+            bySize.forEach((size, bitmap) -> {
+                int count = withoutSize.andCardinality(bitmap);
+                if (count > 0) {
+                    sizeCounts.put(size, (long) count);
+                }
+            });
+            facets.setSizes(sizeCounts);
+            for (int i = 0; i < priceCount && facets.getMinPrice() == null; i++) {
+                if (withoutPrice.contains(priceOrdinals[i])) {
+                    facets.setMinPrice(BigDecimal.valueOf(priceColumn[i], 2));
+                }
+            }
+            for (int i = priceCount - 1; i >= 0 && facets.getMaxPrice() == null; i--) {
+                if (withoutPrice.contains(priceOrdinals[i])) {
+                    facets.setMaxPrice(BigDecimal.valueOf(priceColumn[i], 2));
+                }
+            }
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static <K> CompressedBitmap union(Collection<K> keys, Map<K, CompressedBitmap> bitmaps) {
+        CompressedBitmap union = new CompressedBitmap();
+        for (K key : keys) {
+            CompressedBitmap bitmap = bitmaps.get(key);
+            if (bitmap != null) {
+                union = union.or(bitmap);
+            }
+        }
+        return union;
+    }
+
+    private static CompressedBitmap intersect(CompressedBitmap bitmap, CompressedBitmap filter) {
+        return filter == null ? bitmap : bitmap.and(filter);
+    }
+
+    private CompressedBitmap priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        int from = minPrice == null ? 0 : pricePosition(minPrice.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue(), -1);
+        int to = maxPrice == null
+            ? priceCount
+            : pricePosition(maxPrice.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue(), Integer.MAX_VALUE);
+        CompressedBitmap range = new CompressedBitmap();
+        for (int i = from; i < to; i++) {
+            range.add(priceOrdinals[i]);
+        }
+        return range;
+    }
+
+    private List<Long> page(CompressedBitmap matches, Pageable pageable) {
+        List<Long> page = new ArrayList<>();
+        PrimitiveIterator.OfInt iterator = matches.iterator();
+        if (pageable.isPaged()) {
+            for (long skipped = 0; skipped < pageable.getOffset() && iterator.hasNext(); skipped++) {
+                iterator.nextInt();
+            }
+        }
+        while ((pageable.isUnpaged() || page.size() < pageable.getPageSize()) && iterator.hasNext()) {
+            page.add(ids[iterator.nextInt()]);
+        }
+        return page;
+    }
+
+    private int newOrdinal(Long id) {
+        int ordinal = nextOrdinal++;
+        if (ordinal == ids.length) {
+            ids = Arrays.copyOf(ids, ordinal * 2);
+            categories = Arrays.copyOf(categories, ordinal * 2);
+            sizes = Arrays.copyOf(sizes, ordinal * 2);
+            prices = Arrays.copyOf(prices, ordinal * 2);
+        }
+        ids[ordinal] = id;
+        ordinals.put(id, ordinal);
+        all.add(ordinal);
+        return ordinal;
+    }
+
+    /**
+     * Adds a product to the bitmaps of its facets, and its price at the end of the price column; the caller then
+     * sorts the price column with {@link #mergePrices}.
+     */
+    private void setFacets(int ordinal, Long categoryId, Size size, Long price) {
+        categories[ordinal] = categoryId;
+        if (categoryId != null) {
+            byCategory.computeIfAbsent(categoryId, key -> new CompressedBitmap()).add(ordinal);
+        }
+        sizes[ordinal] = size;
+        if (size != null) {
+            bySize.computeIfAbsent(size, key -> new CompressedBitmap()).add(ordinal);
+        }
+        prices[ordinal] = price == null ? -1 : price;
+        if (price != null) {
+            if (priceCount == priceColumn.length) {
+                priceColumn = Arrays.copyOf(priceColumn, priceCount * 2);
+                priceOrdinals = Arrays.copyOf(priceOrdinals, priceCount * 2);
+            }
+            priceColumn[priceCount] = price;
+            priceOrdinals[priceCount] = ordinal;
+            priceCount++;
+        }
+    }
+
+    private void unsetFacets(int ordinal) {
+        if (categories[ordinal] != null) {
+            removeFrom(byCategory, categories[ordinal], ordinal);
+        }
+        if (sizes[ordinal] != null) {
+            removeFrom(bySize, sizes[ordinal], ordinal);
+        }
+        if (prices[ordinal] >= 0) {
+            removePrice(prices[ordinal], ordinal);
+        }
+        categories[ordinal] = null;
+        sizes[ordinal] = null;
+        prices[ordinal] = -1;
+    }
+
+    private static <K> void removeFrom(Map<K, CompressedBitmap> bitmaps, K key, int ordinal) {
+        CompressedBitmap bitmap = bitmaps.get(key);
+        bitmap.remove(ordinal);
+        if (bitmap.cardinality() == 0) {
+            bitmaps.remove(key);
+        }
+    }
+
+    /**
+     * Sorts the prices appended to the price column since the given position, and merges them with the sorted ones.
+     */
+    private void mergePrices(int sorted) {
+        int appended = priceCount - sorted;
+        if (appended == 0) {
+            return;
+        }
+        Integer[] order = new Integer[appended];
+        for (int i = 0; i < appended; i++) {
+            order[i] = sorted + i;
+        }
+        Arrays.sort(order, (a, b) -> comparePrices(priceColumn[a], priceOrdinals[a], priceColumn[b], priceOrdinals[b]));
+        long[] tailPrices = new long[appended];
+        int[] tailOrdinals = new int[appended];
+        for (int i = 0; i < appended; i++) {
+            tailPrices[i] = priceColumn[order[i]];
+            tailOrdinals[i] = priceOrdinals[order[i]];
+        }
+        // Merges from the end, so that the sorted prices are moved before being overwritten.
+        int head = sorted - 1;
+        int tail = appended - 1;
+        for (int i = priceCount - 1; tail >= 0; i--) {
+            if (head >= 0 && comparePrices(priceColumn[head], priceOrdinals[head], tailPrices[tail], tailOrdinals[tail]) > 0) {
+                priceColumn[i] = priceColumn[head];
+                priceOrdinals[i] = priceOrdinals[head];
+                head--;
+            } else {
+                priceColumn[i] = tailPrices[tail];
+                priceOrdinals[i] = tailOrdinals[tail];
+                tail--;
+            }
+        }
+    }
+
+    private void removePrice(long cents, int ordinal) {
+        int i = pricePosition(cents, ordinal);
+        System.arraycopy(priceColumn, i + 1, priceColumn, i, priceCount - i - 1);
+        System.arraycopy(priceOrdinals, i + 1, priceOrdinals, i, priceCount - i - 1);
+        priceCount--;
+    }
+
+    /**
+     * @return the position of the first entry of the price column not lower than the price and ordinal given.
+     */
+    private int pricePosition(long cents, int ordinal) {
+        int low = 0;
+        int high = priceCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparePrices(priceColumn[middle], priceOrdinals[middle], cents, ordinal) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int comparePrices(long cents, int ordinal, long otherCents, int otherOrdinal) {
+        return cents != otherCents ? Long.compare(cents, otherCents) : Integer.compare(ordinal, otherOrdinal);
+    }
+
+    private void compactIfNeeded() {
+        if (deleted < MIN_COMPACTED_ORDINALS || deleted < ordinals.size()) {
+            return;
+        }
+        int[] live = new int[ordinals.size()];
+        int count = 0;
+        for (PrimitiveIterator.OfInt iterator = all.iterator(); iterator.hasNext();) {
+            live[count++] = iterator.nextInt();
+        }
+        long[] liveIds = new long[count];
+        Long[] liveCategories = new Long[count];
+        Size[] liveSizes = new Size[count];
+        long[] livePrices = new long[count];
+        for (int i = 0; i < count; i++) {
+            liveIds[i] = ids[live[i]];
+            liveCategories[i] = categories[live[i]];
+            liveSizes[i] = sizes[live[i]];
+            livePrices[i] = prices[live[i]];
+            all.remove(live[i]);
+        }
+        ordinals.clear();
+        byCategory.clear();
+        bySize.clear();
+        int capacity = Math.max(count, 1024);
+        ids = new long[capacity];
+        categories = new Long[capacity];
+        sizes = new Size[capacity];
+        prices = new long[capacity];
+        priceColumn = new long[capacity];
+        priceOrdinals = new int[capacity];
+        priceCount = 0;
+        nextOrdinal = 0;
+        deleted = 0;
+        for (int i = 0; i < count; i++) {
+            int ordinal = newOrdinal(liveIds[i]);
+            setFacets(ordinal, liveCategories[i], liveSizes[i], livePrices[i] < 0 ? null : livePrices[i]);
+        }
+        mergePrices(0);
+        runOptimize();
+    }
+}
@@ -0,0 +1,332 @@
+package com.poc.redis.infrastructure.search;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.mapper.ProductMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * In-memory inverted index of the products, searched by {@code name} and {@code description} with BM25 ranking.
+ * <p>
+ * Each indexed product gets an ordinal, in indexing order, so that the postings list of a term is a sorted array of
+ * ordinals. A product matches a query when it contains every term of the query; the postings lists are intersected
+ * from the shortest one. The name counts {@value #NAME_WEIGHT} times as much as the description.
+ * <p>
+ * Updating a product indexes it again under a new ordinal and marks the former one deleted; the postings lists are
+ * compacted once the deleted ordinals outnumber the live ones. Searches run concurrently, updates exclusively. The
+ * indexed products are returned by the searches as they are, so they are never modified, only replaced.
+ */
+public class ProductSearchIndex {
+
+    /**
+     * Weight of a term of the name relatively to a term of the description.
+     */
+    static final int NAME_WEIGHT = 3;
+
+    /**
+     * BM25 term frequency saturation.
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * BM25 document length normalization.
+     */
+    private static final double B = 0.75;
+
+    /**
+     * Maximum number of ranked hits, bounding the hits kept per search whatever the page requested.
+     */
+    private static final int MAX_WINDOW = 10_000;
+
+    private static final int MIN_COMPACTED_ORDINALS = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ProductMapper productMapper;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    private ProductDTO[] documents = new ProductDTO[1024];
+
+    private int[] lengths = new int[1024];
+
+    private int nextOrdinal;
+
+    private int deleted;
+
+    private long totalLength;
+
+    public ProductSearchIndex(ProductMapper productMapper) {
+        this.productMapper = productMapper;
+    }
+
+    /**
+     * Indexes a product, replacing its former version.
+     */
+    public void put(ProductDTO product) {
+        putAll(Collections.singletonList(product));
+    }
+
+    /**
+     * Indexes products, replacing their former versions.
+     */
+    public void putAll(Collection<ProductDTO> products) {
+        lock.writeLock().lock();
+        try {
+            for (ProductDTO product : products) {
+                removeLocked(product.getId());
+                addLocked(product);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the indexed products of a category with copies embedding its new version.
+     */
+    public void updateCategory(ProductCategoryDTO category) {
+        lock.writeLock().lock();
+        try {
+            for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+                ProductDTO product = documents[ordinal];
+                if (
+                    product != null &&
+                    product.getProductCategory() != null &&
+                    category.getId().equals(product.getProductCategory().getId())
+                ) {
+                    ProductDTO updated = productMapper.copy(product);
+                    updated.setProductCategory(category);
+                    documents[ordinal] = updated;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the products containing every term of a query, the most relevant first.
+     *
+     * @param query the terms to find, split by {@link SearchTokenizer}.
+     * @param pageable the page of hits requested; its sort is ignored.
+     * @return the hits, with their total number.
+     */
+    public Page<ProductDTO> search(String query, Pageable pageable) {
+        Set<String> terms = new LinkedHashSet<>(SearchTokenizer.tokenize(query));
+        int window = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), MAX_WINDOW);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[terms.size()];
+            int i = 0;
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return Page.empty(pageable);
+                }
+                lists[i++] = list;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.live));
+            int live = ordinals.size();
+            double averageLength = (double) totalLength / live;
+            double[] idfs = new double[lists.length];
+            for (int j = 0; j < lists.length; j++) {
+                idfs[j] = Math.log(1 + (live - lists[j].live + 0.5) / (lists[j].live + 0.5));
+            }
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(window + 1, Hit.WORST_FIRST);
+            int[] cursors = new int[lists.length];
+            long total = 0;
+            Postings first = lists[0];
+            for (int p = 0; p < first.size; p++) {
+                int ordinal = first.ordinals[p];
+                if (documents[ordinal] == null) {
+                    continue;
+                }
+                double normalization = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+                double score = score(idfs[0], first.frequencies[p], normalization);
+                boolean matches = true;
+                for (int j = 1; j < lists.length && matches; j++) {
+                    Postings list = lists[j];
+                    int position = Arrays.binarySearch(list.ordinals, cursors[j], list.size, ordinal);
+                    matches = position >= 0;
+                    if (matches) {
+                        cursors[j] = position + 1;
+                        score += score(idfs[j], list.frequencies[position], normalization);
+                    } else {
+                        cursors[j] = -position - 1;
+                    }
+                }
+                if (!matches) {
+                    continue;
+                }
+                total++;
+                if (window > 0 && (top.size() < window || score > top.peek().score)) {
+                    top.add(new Hit(ordinal, score));
+                    if (top.size() > window) {
+                        top.poll();
+                    }
+                }
+            }
+
+            List<ProductDTO> ranked = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ranked.add(documents[top.poll().ordinal]);
+            }
+            Collections.reverse(ranked);
+            int from = (int) Math.min(pageable.getOffset(), ranked.size());
+            return new PageImpl<>(new ArrayList<>(ranked.subList(from, ranked.size())), pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static double score(double idf, int frequency, double normalization) {
+        return idf * frequency * (K1 + 1) / (frequency + normalization);
+    }
+
+    private void addLocked(ProductDTO product) {
+        Map<String, Integer> frequencies = termFrequencies(product);
+        int ordinal = nextOrdinal++;
+        if (ordinal == documents.length) {
+            documents = Arrays.copyOf(documents, ordinal * 2);
+            lengths = Arrays.copyOf(lengths, ordinal * 2);
+        }
+        int length = 0;
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            postings.computeIfAbsent(frequency.getKey(), term -> new Postings()).add(ordinal, frequency.getValue());
+            length += frequency.getValue();
+        }
+        documents[ordinal] = product;
+        lengths[ordinal] = length;
+        totalLength += length;
+        ordinals.put(product.getId(), ordinal);
+    }
+
+    private void removeLocked(Long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        for (String term : termFrequencies(documents[ordinal]).keySet()) {
+            Postings list = postings.get(term);
+            if (--list.live == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengths[ordinal];
+        documents[ordinal] = null;
+        deleted++;
+    }
+
+    private void compactIfNeeded() {
+        if (deleted < MIN_COMPACTED_ORDINALS || deleted < ordinals.size()) {
+            return;
+        }
+        List<ProductDTO> live = new ArrayList<>(ordinals.size());
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (documents[ordinal] != null) {
+                live.add(documents[ordinal]);
+            }
+        }
+        postings.clear();
+        ordinals.clear();
+        documents = new ProductDTO[Math.max(live.size(), 1024)];
+        lengths = new int[documents.length];
+        nextOrdinal = 0;
+        deleted = 0;
+        totalLength = 0;
+        live.forEach(this::addLocked);
+    }
+
+    private static Map<String, Integer> termFrequencies(ProductDTO product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : SearchTokenizer.tokenize(product.getName())) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : SearchTokenizer.tokenize(product.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    /**
+     * The ordinals of the products containing a term, in increasing order, with the weighted frequency of the term.
+     * The deleted ordinals are left in place until the next compaction, {@code live} does not count them.
+     */
+    private static final class Postings {
+
+        private int[] ordinals = new int[4];
+
+        private int[] frequencies = new int[4];
+
+        private int size;
+
+        private int live;
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+            live++;
+        }
+    }
+
+    private static final class Hit {
+
+        static final Comparator<Hit> WORST_FIRST = Comparator.<Hit>comparingDouble(hit -> hit.score).thenComparingInt(hit -> -hit.ordinal);
+
+        final int ordinal;
+
+        final double score;
+
+        Hit(int ordinal, double score) {
+            this.ordinal = ordinal;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.poc.redis.infrastructure.search;
+
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductFacetsDTO;
+import com.poc.redis.application.dto.ProductSuggestionDTO;
+import com.poc.redis.application.mapper.ProductMapper;
+import com.poc.redis.domain.enumeration.Size;
+import com.poc.redis.domain.model.Product;
+import com.poc.redis.domain.model.ProductCategory;
+import com.poc.redis.infrastructure.cache.RedisCircuitBreaker;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.repository.Keyset;
+import com.poc.redis.infrastructure.repository.ProductCategoryRepository;
+import com.poc.redis.infrastructure.repository.ProductOrderRepository;
+import com.poc.redis.infrastructure.repository.ProductRepository;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.BaseStatusListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the {@link ProductSearchIndex}, the {@link ProductFacetIndex} and the {@link ProductSuggestIndex} of this node
+ * in sync with the database.
+ * <p>
+ * The index is built on startup, before the application reports ready. The usecases then report every product and
+ * category written: once their transaction commits, the product is read again and indexed by a single worker, in
+ * write order, and the change is published on a Redis topic for the other nodes to do the same. Changes published
+ * while this node was disconnected from Redis are lost, so the index is rebuilt when the node subscribes again.
+ * <p>
+ * Orders only change the popularity of the products suggested: the products ordered are collected, and their
+ * quantities ordered read and published at most once per {@code application.search.popularity-interval}.
+ */
+@Service
+public class ProductSearchService implements ApplicationRunner, DisposableBean {
+
+    public static final String INDEX_UPDATE_TOPIC = "products:search-index-updates";
+
+    private final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
+
+    private final ProductRepository productRepository;
+
+    private final ProductCategoryRepository productCategoryRepository;
+
+    private final ProductOrderRepository productOrderRepository;
+
+    private final ProductMapper productMapper;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final ApplicationProperties.Search properties;
+
+    private final RTopic topic;
+
+    private final String origin = UUID.randomUUID().toString();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+        new CustomizableThreadFactory("product-search-")
+    );
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    /**
+     * The products ordered since the popularities were last updated.
+     */
+    private final Set<Long> orderedProductIds = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean popularityUpdateQueued = new AtomicBoolean();
+
+    private volatile ProductSearchIndex index;
+
+    private volatile ProductFacetIndex facetIndex = new ProductFacetIndex();
+
+    private volatile ProductSuggestIndex suggestIndex = new ProductSuggestIndex();
+
+    public ProductSearchService(
+        ProductRepository productRepository,
+        ProductCategoryRepository productCategoryRepository,
+        ProductOrderRepository productOrderRepository,
+        ProductMapper productMapper,
+        RedissonClient redissonClient,
+        RedisCircuitBreaker circuitBreaker,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productRepository = productRepository;
+        this.productCategoryRepository = productCategoryRepository;
+        this.productOrderRepository = productOrderRepository;
+        this.productMapper = productMapper;
+        this.index = new ProductSearchIndex(productMapper);
+        this.circuitBreaker = circuitBreaker;
+        this.properties = applicationProperties.getSearch();
+        this.topic = redissonClient.getTopic(INDEX_UPDATE_TOPIC);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException, ExecutionException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        topic.addListener(
+            IndexUpdate.class,
+            (channel, update) -> {
+                if (!origin.equals(update.getOrigin())) {
+                    executor.execute(() -> apply(update));
+                }
+            }
+        );
+        topic.addListener(
+            new BaseStatusListener() {
+                @Override
+                public void onSubscribe(String channel) {
+                    if (!subscribed.compareAndSet(false, true)) {
+                        queueRebuild();
+                    }
+                }
+            }
+        );
+        // The updates skipped while Redis was unavailable are lost as well.
+        circuitBreaker.addRebuildListener(this::queueRebuild);
+        executor.submit(this::rebuild).get();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Finds the products containing every term of a query, the most relevant first.
+     */
+    public Page<ProductDTO> search(String query, Pageable pageable) {
+        return index.search(query, pageable);
+    }
+
+    /**
+     * Finds the ids of the products matching facet filters, and counts the products of each facet value.
+     *
+     * @see ProductFacetIndex#facets
+     */
+    public ProductFacetsDTO facets(
+        Collection<Long> categoryIds,
+        Collection<Size> sizes,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Pageable pageable
+    ) {
+        return facetIndex.facets(categoryIds, sizes, minPrice, maxPrice, pageable);
+    }
+
+    /**
+     * Completes a prefix with the names of products and categories, the most ordered first.
+     *
+     * @see ProductSuggestIndex#suggest
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Indexes a product again once the current transaction commits, on this node and the others.
+     *
+     * @param id the id of the product created, updated or deleted.
+     */
+    public void productChanged(Long id) {
+        productsChanged(Collections.singletonList(id));
+    }
+
+    /**
+     * Indexes products again once the current transaction commits, on this node and the others, with a single
+     * message.
+     *
+     * @param ids the ids of the products created, updated or deleted.
+     */
+    public void productsChanged(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            afterCommit(() -> dispatch(new IndexUpdate(origin, new ArrayList<>(ids), null, null)));
+        }
+    }
+
+    /**
+     * Updates the popularity of products in the suggestions, and of their categories, once the current transaction
+     * commits and the popularity interval elapses, on this node and the others.
+     *
+     * @param ids the ids of the products whose orders were created, updated or deleted.
+     */
+    public void productsOrdered(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            afterCommit(() -> {
+                orderedProductIds.addAll(ids);
+                if (popularityUpdateQueued.compareAndSet(false, true)) {
+                    executor.schedule(this::updatePopularities, properties.getPopularityInterval().toMillis(), TimeUnit.MILLISECONDS);
+                }
+            });
+        }
+    }
+
+    /**
+     * Indexes a category again, and updates the category embedded in the indexed products, once the current
+     * transaction commits, on this node and the others.
+     *
+     * @param id the id of the category created, updated or deleted.
+     */
+    public void categoryChanged(Long id) {
+        afterCommit(() -> dispatch(new IndexUpdate(origin, null, null, id)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            }
+        );
+    }
+
+    /**
+     * Publishes the products ordered since the last call, once for all the orders of the interval.
+     */
+    private void updatePopularities() {
+        popularityUpdateQueued.set(false);
+        List<Long> ids = new ArrayList<>(orderedProductIds);
+        orderedProductIds.removeAll(ids);
+        if (!ids.isEmpty()) {
+            dispatch(new IndexUpdate(origin, null, ids, null));
+        }
+    }
+
+    private void dispatch(IndexUpdate update) {
+        executor.execute(() -> apply(update));
+        if (circuitBreaker.isOpen()) {
+            // Redis is unavailable, every node rebuilds its index once it is back.
+            return;
+        }
+        try {
+            topic.publish(update);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish the search index update {}: {}", update, e.getMessage());
+        }
+    }
+
+    private void apply(IndexUpdate update) {
+        try {
+            if (update.getProductIds() != null) {
+                List<Long> ids = update.getProductIds();
+                for (int from = 0; from < ids.size(); from += properties.getBatchSize()) {
+                    applyProducts(ids.subList(from, Math.min(from + properties.getBatchSize(), ids.size())));
+                }
+            } else if (update.getOrderedProductIds() != null) {
+                List<Long> ids = update.getOrderedProductIds();
+                for (int from = 0; from < ids.size(); from += properties.getBatchSize()) {
+                    applyPopularities(ids.subList(from, Math.min(from + properties.getBatchSize(), ids.size())));
+                }
+            } else if (update.getCategoryId() != null) {
+                Optional<ProductCategoryDTO> category = productCategoryRepository
+                    .findById(update.getCategoryId())
+                    .map(productMapper::toDtoProductCategoryName);
+                if (category.isPresent()) {
+                    index.updateCategory(category.get());
+                    suggestIndex.putCategory(category.get());
+                } else {
+                    suggestIndex.removeCategory(update.getCategoryId());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not apply the search index update {}: {}", update, e.getMessage());
+        }
+    }
+
+    private void applyProducts(List<Long> ids) {
+        Map<Long, ProductDTO> products = new HashMap<>();
+        for (Product product : productRepository.findAllWithEagerRelationships(ids)) {
+            products.put(product.getId(), productMapper.toDto(product));
+        }
+        Map<Long, Long> quantitiesOrdered = new HashMap<>();
+        for (Object[] row : productOrderRepository.sumQuantityGroupByProductId(ids)) {
+            quantitiesOrdered.put((Long) row[0], (Long) row[1]);
+        }
+        for (Long id : ids) {
+            ProductDTO product = products.get(id);
+            if (product != null) {
+                index.put(product);
+                facetIndex.put(product);
+                suggestIndex.putProduct(product, quantitiesOrdered.getOrDefault(id, 0L));
+            } else {
+                index.remove(id);
+                facetIndex.remove(id);
+                suggestIndex.removeProduct(id);
+            }
+        }
+    }
+
+    private void applyPopularities(List<Long> ids) {
+        Map<Long, Long> quantitiesOrdered = new HashMap<>();
+        for (Long id : ids) {
+            quantitiesOrdered.put(id, 0L);
+        }
+        for (Object[] row : productOrderRepository.sumQuantityGroupByProductId(ids)) {
+            quantitiesOrdered.put((Long) row[0], (Long) row[1]);
+        }
+        suggestIndex.updatePopularities(quantitiesOrdered);
+    }
+
+    /**
+     * Queues a rebuild, unless one is queued already.
+     */
+    private void queueRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        rebuildQueued.set(false);
+        long start = System.nanoTime();
+        ProductSearchIndex rebuilt = new ProductSearchIndex(productMapper);
+        ProductFacetIndex rebuiltFacets = new ProductFacetIndex();
+        ProductSuggestIndex rebuiltSuggestions = new ProductSuggestIndex();
+        try {
+            Map<Long, Long> quantitiesOrdered = new HashMap<>();
+            for (Object[] row : productOrderRepository.sumQuantityGroupByProductId()) {
+                quantitiesOrdered.put((Long) row[0], (Long) row[1]);
+            }
+            Keyset keyset = Keyset.first("id", Sort.Direction.ASC, properties.getBatchSize());
+            while (true) {
+                Slice<Product> batch = productRepository.findAll(keyset, "productCategory");
+                List<ProductDTO> products = batch.getContent().stream().map(productMapper::toDto).collect(Collectors.toList());
+                rebuilt.putAll(products);
+                rebuiltFacets.putAll(products);
+                rebuiltSuggestions.putProducts(products, quantitiesOrdered);
+                if (!batch.hasNext()) {
+                    break;
+                }
+                Long lastId = products.get(products.size() - 1).getId();
+                keyset = Keyset.after("id", Sort.Direction.ASC, lastId.toString(), lastId.toString(), properties.getBatchSize());
+            }
+            // After the products, whose quantities ordered add up to the popularity of their category.
+            keyset = Keyset.first("id", Sort.Direction.ASC, properties.getBatchSize());
+            while (true) {
+                Slice<ProductCategory> batch = productCategoryRepository.findAll(keyset);
+                List<ProductCategoryDTO> categories = batch
+                    .getContent()
+                    .stream()
+                    .map(productMapper::toDtoProductCategoryName)
+                    .collect(Collectors.toList());
+                rebuiltSuggestions.putCategories(categories);
+                if (!batch.hasNext()) {
+                    break;
+                }
+                Long lastId = categories.get(categories.size() - 1).getId();
+                keyset = Keyset.after("id", Sort.Direction.ASC, lastId.toString(), lastId.toString(), properties.getBatchSize());
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not build the product search indexes, keeping the current ones: {}", e.getMessage());
+            return;
+        }
+        rebuiltFacets.runOptimize();
+        index = rebuilt;
+        facetIndex = rebuiltFacets;
+        suggestIndex = rebuiltSuggestions;
+        log.info(
+            "Indexed {} products and categories for search in {} ms",
+            rebuiltSuggestions.size(),
+            (System.nanoTime() - start) / 1_000_000
+        );
+    }
+
+    /**
+     * Message broadcast to the other nodes: either products changed, products were ordered or a category changed.
+     */
+    public static class IndexUpdate implements Serializable {
+
+        private static final long serialVersionUID = 3L;
+
+        private String origin;
+
+        private List<Long> productIds;
+
+        private List<Long> orderedProductIds;
+
+        private Long categoryId;
+
+        public IndexUpdate() {}
+
+        public IndexUpdate(String origin, List<Long> productIds, List<Long> orderedProductIds, Long categoryId) {
+            this.origin = origin;
+            this.productIds = productIds;
+            this.orderedProductIds = orderedProductIds;
+            this.categoryId = categoryId;
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public List<Long> getProductIds() {
+            return productIds;
+        }
+
+        public List<Long> getOrderedProductIds() {
+            return orderedProductIds;
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        @Override
+        public String toString() {
+            return "IndexUpdate{productIds=" + productIds + ", orderedProductIds=" + orderedProductIds + ", categoryId=" + categoryId + "}";
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package com.poc.redis.infrastructure.search;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.dto.ProductSuggestionDTO;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory autocompletion of the product and category names, the most popular first.
+ * <p>
+ * Each name is normalized by {@link SearchTokenizer} and completes the prefixes of each of its words onwards:
+ * {@code "Trail running shoe"} completes {@code "tra"}, {@code "running s"} and {@code "sho"}. These keys are kept
+ * sorted as (name, offset) pairs rather than strings, so that the names matching a prefix are a range of keys, found
+ * by binary search. A max tree over the popularity of the keys then yields the most popular keys of the range
+ * without visiting the others.
+ * <p>
+ * The popularity of a product is the quantity ordered, the popularity of a category the sum of the popularity of its
+ * products. Adding or removing suggestions rebuilds the max tree; a change of popularity only updates the path from
+ * the keys of the suggestion to the root. Suggestions run concurrently, updates exclusively.
+ */
+public class ProductSuggestIndex {
+
+    /**
+     * Maximum number of suggestions returned at once.
+     */
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> productOrdinals = new HashMap<>();
+
+    private final Map<Long, Integer> categoryOrdinals = new HashMap<>();
+
+    private final Map<Long, Long> categoryPopularities = new HashMap<>();
+
+    private ProductSuggestionDTO.Type[] types = new ProductSuggestionDTO.Type[1024];
+
+    private long[] ids = new long[1024];
+
+    private String[] names = new String[1024];
+
+    private String[] texts = new String[1024];
+
+    private long[] popularities = new long[1024];
+
+    /**
+     * The category of each product suggestion, whose popularity adds up to the category one.
+     */
+    private Long[] productCategories = new Long[1024];
+
+    private int[] freeOrdinals = new int[16];
+
+    private int freeCount;
+
+    private int nextOrdinal;
+
+    /**
+     * The suggestion of each key, sorted by the text of the suggestion from the offset of the key.
+     */
+    private int[] keyOrdinals = new int[4096];
+
+    private int[] keyOffsets = new int[4096];
+
+    private int keyCount;
+
+    /**
+     * Max tree over the keys: {@code tree[keyCount + i]} is key {@code i}, {@code tree[i]} the most popular of
+     * {@code tree[2 * i]} and {@code tree[2 * i + 1]}.
+     */
+    private int[] tree = new int[0];
+
+    /**
+     * Indexes products, replacing their former versions.
+     *
+     * @param products the products to index.
+     * @param quantitiesOrdered the quantity ordered of each product, missing if none.
+     */
+    public void putProducts(Collection<ProductDTO> products, Map<Long, Long> quantitiesOrdered) {
+        lock.writeLock().lock();
+        try {
+            for (ProductDTO product : products) {
+                Integer ordinal = productOrdinals.get(product.getId());
+                if (ordinal != null) {
+                    adjustCategory(productCategories[ordinal], -popularities[ordinal]);
+                    removeKeys(ordinal);
+                }
+            }
+            int sorted = keyCount;
+            for (ProductDTO product : products) {
+                int ordinal = productOrdinals.computeIfAbsent(product.getId(), id -> newOrdinal());
+                long popularity = quantitiesOrdered.getOrDefault(product.getId(), 0L);
+                set(ordinal, ProductSuggestionDTO.Type.PRODUCT, product.getId(), product.getName(), popularity);
+                productCategories[ordinal] = product.getProductCategory() == null ? null : product.getProductCategory().getId();
+                adjustCategory(productCategories[ordinal], popularity);
+            }
+            mergeKeys(sorted);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putProduct(ProductDTO product, long quantityOrdered) {
+        putProducts(Collections.singletonList(product), Map.of(product.getId(), quantityOrdered));
+    }
+
+    public void removeProduct(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = productOrdinals.remove(id);
+            if (ordinal != null) {
+                adjustCategory(productCategories[ordinal], -popularities[ordinal]);
+                removeKeys(ordinal);
+                releaseOrdinal(ordinal);
+                buildTree();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates the popularity of indexed products, and of their categories, keeping their keys in place.
+     *
+     * @param quantitiesOrdered the quantity ordered of each product, those not indexed are ignored.
+     */
+    public void updatePopularities(Map<Long, Long> quantitiesOrdered) {
+        lock.writeLock().lock();
+        try {
+            Set<Integer> changed = new LinkedHashSet<>();
+            quantitiesOrdered.forEach((id, quantityOrdered) -> {
+                Integer ordinal = productOrdinals.get(id);
+                if (ordinal == null || popularities[ordinal] == quantityOrdered) {
+                    return;
+                }
+                adjustCategory(productCategories[ordinal], quantityOrdered - popularities[ordinal]);
+                popularities[ordinal] = quantityOrdered;
+                changed.add(ordinal);
+                Integer categoryOrdinal = productCategories[ordinal] == null ? null : categoryOrdinals.get(productCategories[ordinal]);
+                if (categoryOrdinal != null) {
+                    changed.add(categoryOrdinal);
+                }
+            });
+            changed.forEach(this::updateTree);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes categories, replacing their former versions.
+     */
+    public void putCategories(Collection<ProductCategoryDTO> categories) {
+        lock.writeLock().lock();
+        try {
+            for (ProductCategoryDTO category : categories) {
+                Integer ordinal = categoryOrdinals.get(category.getId());
+                if (ordinal != null) {
+                    removeKeys(ordinal);
+                }
+            }
+            int sorted = keyCount;
+            for (ProductCategoryDTO category : categories) {
+                int ordinal = categoryOrdinals.computeIfAbsent(category.getId(), id -> newOrdinal());
+                long popularity = categoryPopularities.getOrDefault(category.getId(), 0L);
+                set(ordinal, ProductSuggestionDTO.Type.CATEGORY, category.getId(), category.getName(), popularity);
+                productCategories[ordinal] = null;
+            }
+            mergeKeys(sorted);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putCategory(ProductCategoryDTO category) {
+        putCategories(Collections.singletonList(category));
+    }
+
+    public void removeCategory(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = categoryOrdinals.remove(id);
+            if (ordinal != null) {
+                removeKeys(ordinal);
+                releaseOrdinal(ordinal);
+                buildTree();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Completes a prefix with the names of products and categories.
+     *
+     * @param prefix the start of the words to complete, normalized by {@link SearchTokenizer}.
+     * @param limit the maximum number of suggestions, up to {@value #MAX_SUGGESTIONS}.
+     * @return the products and categories whose name has a word starting with the prefix, the most popular first.
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        String normalized = String.join(" ", SearchTokenizer.tokenize(prefix));
+        int max = Math.min(limit, MAX_SUGGESTIONS);
+        if (normalized.isEmpty() || max <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            int from = bound(normalized, false);
+            int to = bound(normalized, true);
+            // The ranges of keys left to visit, by their most popular key.
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compareKeyPopularities(a[2], b[2]));
+            if (from < to) {
+                ranges.add(new int[] { from, to, mostPopular(from, to) });
+            }
+            Set<Integer> suggested = new LinkedHashSet<>();
+            while (suggested.size() < max && !ranges.isEmpty()) {
+                int[] range = ranges.poll();
+                int key = range[2];
+                suggested.add(keyOrdinals[key]);
+                if (range[0] < key) {
+                    ranges.add(new int[] { range[0], key, mostPopular(range[0], key) });
+                }
+                if (key + 1 < range[1]) {
+                    ranges.add(new int[] { key + 1, range[1], mostPopular(key + 1, range[1]) });
+                }
+            }
+            List<ProductSuggestionDTO> suggestions = new ArrayList<>(suggested.size());
+            for (int ordinal : suggested) {
+                suggestions.add(new ProductSuggestionDTO(types[ordinal], ids[ordinal], names[ordinal]));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return productOrdinals.size() + categoryOrdinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int newOrdinal() {
+        if (freeCount > 0) {
+            return freeOrdinals[--freeCount];
+        }
+        int ordinal = nextOrdinal++;
+        if (ordinal == ids.length) {
+            types = Arrays.copyOf(types, ordinal * 2);
+            ids = Arrays.copyOf(ids, ordinal * 2);
+            names = Arrays.copyOf(names, ordinal * 2);
+            texts = Arrays.copyOf(texts, ordinal * 2);
+            popularities = Arrays.copyOf(popularities, ordinal * 2);
+            productCategories = Arrays.copyOf(productCategories, ordinal * 2);
+        }
+        return ordinal;
+    }
+
+    private void releaseOrdinal(int ordinal) {
+        names[ordinal] = null;
+        texts[ordinal] = null;
+        productCategories[ordinal] = null;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+        }
+        freeOrdinals[freeCount++] = ordinal;
+    }
+
+    /**
+     * Sets a suggestion and appends its keys; the caller then sorts them with {@link #mergeKeys}.
+     */
+    private void set(int ordinal, ProductSuggestionDTO.Type type, long id, String name, long popularity) {
+        types[ordinal] = type;
+        ids[ordinal] = id;
+        names[ordinal] = name;
+        texts[ordinal] = String.join(" ", SearchTokenizer.tokenize(name));
+        popularities[ordinal] = popularity;
+        String text = texts[ordinal];
+        for (int offset = 0; offset < text.length(); offset = nextWord(text, offset)) {
+            if (keyCount == keyOrdinals.length) {
+                keyOrdinals = Arrays.copyOf(keyOrdinals, keyCount * 2);
+                keyOffsets = Arrays.copyOf(keyOffsets, keyCount * 2);
+            }
+            keyOrdinals[keyCount] = ordinal;
+            keyOffsets[keyCount] = offset;
+            keyCount++;
+        }
+    }
+
+    private void adjustCategory(Long categoryId, long delta) {
+        if (categoryId == null || delta == 0) {
+            return;
+        }
+        long popularity = categoryPopularities.merge(categoryId, delta, Long::sum);
+        Integer ordinal = categoryOrdinals.get(categoryId);
+        if (ordinal != null) {
+            popularities[ordinal] = popularity;
+        }
+    }
+
+    private static int nextWord(String text, int offset) {
+        int space = text.indexOf(' ', offset);
+        return space < 0 ? text.length() : space + 1;
+    }
+
+    /**
+     * @return the position of the key of a suggestion at an offset of its text.
+     */
+    private int keyPosition(int ordinal, int offset) {
+        int low = 0;
+        int high = keyCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareKeys(keyOrdinals[middle], keyOffsets[middle], ordinal, offset) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void removeKeys(int ordinal) {
+        String text = texts[ordinal];
+        for (int offset = 0; offset < text.length(); offset = nextWord(text, offset)) {
+            int low = keyPosition(ordinal, offset);
+            System.arraycopy(keyOrdinals, low + 1, keyOrdinals, low, keyCount - low - 1);
+            System.arraycopy(keyOffsets, low + 1, keyOffsets, low, keyCount - low - 1);
+            keyCount--;
+        }
+        // Removing the keys of a suggestion listed twice in a batch removes them once.
+        texts[ordinal] = "";
+    }
+
+    /**
+     * Sorts the keys appended since the given position, merges them with the sorted ones and rebuilds the max tree.
+     */
+    private void mergeKeys(int sorted) {
+        int appended = keyCount - sorted;
+        Integer[] order = new Integer[appended];
+        for (int i = 0; i < appended; i++) {
+            order[i] = sorted + i;
+        }
+        Arrays.sort(order, (a, b) -> compareKeys(keyOrdinals[a], keyOffsets[a], keyOrdinals[b], keyOffsets[b]));
+        int[] tailOrdinals = new int[appended];
+        int[] tailOffsets = new int[appended];
+        for (int i = 0; i < appended; i++) {
+            tailOrdinals[i] = keyOrdinals[order[i]];
+            tailOffsets[i] = keyOffsets[order[i]];
+        }
+        // Merges from the end, so that the sorted keys are moved before being overwritten.
+        int head = sorted - 1;
+        int tail = appended - 1;
+        for (int i = keyCount - 1; tail >= 0; i--) {
+            if (head >= 0 && compareKeys(keyOrdinals[head], keyOffsets[head], tailOrdinals[tail], tailOffsets[tail]) > 0) {
+                keyOrdinals[i] = keyOrdinals[head];
+                keyOffsets[i] = keyOffsets[head];
+                head--;
+            } else {
+                keyOrdinals[i] = tailOrdinals[tail];
+                keyOffsets[i] = tailOffsets[tail];
+                tail--;
+            }
+        }
+        buildTree();
+    }
+
+    private void buildTree() {
+        tree = new int[2 * keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            tree[keyCount + i] = i;
+        }
+        for (int i = keyCount - 1; i > 0; i--) {
+            tree[i] = morePopular(tree[2 * i], tree[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Updates the max tree from the keys of a suggestion whose popularity changed up to the root.
+     */
+    private void updateTree(int ordinal) {
+        String text = texts[ordinal];
+        for (int offset = 0; offset < text.length(); offset = nextWord(text, offset)) {
+            for (int i = (keyCount + keyPosition(ordinal, offset)) >>> 1; i > 0; i >>>= 1) {
+                tree[i] = morePopular(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+    }
+
+    /**
+     * @return the most popular key between {@code from}, inclusive, and {@code to}, exclusive.
+     */
+    private int mostPopular(int from, int to) {
+        int best = -1;
+        for (int low = from + keyCount, high = to + keyCount; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                best = morePopular(best, tree[low++]);
+            }
+            if ((high & 1) == 1) {
+                best = morePopular(best, tree[--high]);
+            }
+        }
+        return best;
+    }
+
+    private int morePopular(int key, int other) {
+        if (key < 0) {
+            return other;
+        }
+        return compareKeyPopularities(key, other) <= 0 ? key : other;
+    }
+
+    /**
+     * Orders keys by decreasing popularity, then alphabetically.
+     */
+    private int compareKeyPopularities(int key, int other) {
+        int comparison = Long.compare(popularities[keyOrdinals[other]], popularities[keyOrdinals[key]]);
+        return comparison != 0 ? comparison : Integer.compare(key, other);
+    }
+
+    /**
+     * @return the first key starting with the prefix, or following it if {@code after}.
+     */
+    private int bound(String prefix, boolean after) {
+        int low = 0;
+        int high = keyCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = comparePrefix(middle, prefix);
+            if (comparison < 0 || (after && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return a negative number if the key sorts before the prefix, zero if it starts with it, a positive number if it
+     * sorts after it.
+     */
+    private int comparePrefix(int key, String prefix) {
+        String text = texts[keyOrdinals[key]];
+        int offset = keyOffsets[key];
+        for (int i = 0; i < prefix.length(); i++) {
+            if (offset + i == text.length()) {
+                return -1;
+            }
+            int comparison = Character.compare(text.charAt(offset + i), prefix.charAt(i));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private int compareKeys(int ordinal, int offset, int otherOrdinal, int otherOffset) {
+        String text = texts[ordinal];
+        String other = texts[otherOrdinal];
+        int length = Math.min(text.length() - offset, other.length() - otherOffset);
+        for (int i = 0; i < length; i++) {
+            int comparison = Character.compare(text.charAt(offset + i), other.charAt(otherOffset + i));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        int comparison = Integer.compare(text.length() - offset, other.length() - otherOffset);
+        if (comparison != 0) {
+            return comparison;
+        }
+        comparison = Integer.compare(ordinal, otherOrdinal);
+        return comparison != 0 ? comparison : Integer.compare(offset, otherOffset);
+    }
+}
@@ -0,0 +1,93 @@
+package com.poc.redis.infrastructure.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Content-addressed store of binary objects.
+ * <p>
+ * A blob is keyed by the hex SHA-256 of its content: storing the same content twice yields the same key and
+ * keeps a single copy, and the content of a key never changes.
+ */
+public interface BlobStore {
+    /**
+     * Size of the chunks the content of a stream is copied by.
+     */
+    int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Starts a new blob, whose content is written in chunks as it becomes available; the content is hashed as it
+     * is written, so the key is known as soon as the last chunk is.
+     *
+     * @return the writer of the blob, to be closed by the caller; closing it without committing discards the content.
+     * @throws IOException if the blob could not be created.
+     */
+    BlobWriter create() throws IOException;
+
+    /**
+     * Stores the content read from the stream, until its end.
+     *
+     * @param content the content to store, not closed.
+     * @return the key of the content.
+     * @throws IOException if the content could not be read or stored.
+     */
+    default String put(InputStream content) throws IOException {
+        try (BlobWriter writer = create()) {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = content.read(chunk)) != -1) {
+                ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                while (buffer.hasRemaining()) {
+                    writer.write(buffer);
+                }
+            }
+            return writer.commit();
+        }
+    }
+
+    /**
+     * Stores the content.
+     *
+     * @param content the content to store.
+     * @return the key of the content.
+     * @throws IOException if the content could not be stored.
+     */
+    default String put(byte[] content) throws IOException {
+        return put(new ByteArrayInputStream(content));
+    }
+
+    /**
+     * Checks whether a blob is stored under the key.
+     *
+     * @param key the key of the blob.
+     * @return {@code true} if the blob exists.
+     */
+    boolean exists(String key);
+
+    /**
+     * Opens the content of a blob for reading.
+     *
+     * @param key the key of the blob.
+     * @return a channel positioned at the start of the content, to be closed by the caller.
+     * @throws java.nio.file.NoSuchFileException if no blob is stored under the key.
+     * @throws IOException if the blob could not be opened.
+     */
+    SeekableByteChannel open(String key) throws IOException;
+
+    /**
+     * Writer of a new blob.
+     */
+    interface BlobWriter extends WritableByteChannel {
+        /**
+         * Stores the content written so far, after which nothing more can be written.
+         *
+         * @return the key of the content.
+         * @throws IOException if the content could not be stored.
+         */
+        String commit() throws IOException;
+    }
+}
@@ -0,0 +1,121 @@
+package com.poc.redis.infrastructure.storage;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BlobStore} keeping every blob in a file of a local directory.
+ * <p>
+ * The blob with key {@code 3fa1c2...} is stored in {@code <root>/3f/a1/3fa1c2...}, so that no directory grows
+ * beyond 65536 entries. The content is first written to a temporary file of {@code <root>/tmp} while being
+ * hashed, then atomically moved in place: readers never see a partially written blob.
+ */
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+
+    private final Path tmp;
+
+    public FileSystemBlobStore(Path root) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.tmp = Files.createDirectories(this.root.resolve("tmp"));
+    }
+
+    @Override
+    public BlobWriter create() throws IOException {
+        return new FileBlobWriter(Files.createTempFile(tmp, "blob", null));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return isKey(key) && Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public SeekableByteChannel open(String key) throws IOException {
+        if (!isKey(key)) {
+            throw new NoSuchFileException(key);
+        }
+        return FileChannel.open(resolve(key), StandardOpenOption.READ);
+    }
+
+    private class FileBlobWriter implements BlobWriter {
+
+        private final Path file;
+
+        private final FileChannel channel;
+
+        private final MessageDigest digest = newDigest();
+
+        FileBlobWriter(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            ByteBuffer written = src.duplicate();
+            int count = channel.write(src);
+            written.limit(written.position() + count);
+            digest.update(written);
+            return count;
+        }
+
+        @Override
+        public String commit() throws IOException {
+            channel.close();
+            String key = String.format("%064x", new BigInteger(1, digest.digest()));
+            Path target = resolve(key);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Stored concurrently, with the same content.
+                }
+            }
+            return key;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path resolve(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static boolean isKey(String key) {
+        return key != null && KEY_PATTERN.matcher(key).matches();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.poc.redis.infrastructure.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+/**
+ * Raster image formats accepted and served as product images, recognized by ImageIO from the first bytes of the
+ * content. The content type a client declares is never trusted: an upload declared {@code image/png} may as well
+ * be HTML or SVG, which a browser would run on the origin of the API.
+ */
+public final class ImageFormats {
+
+    /**
+     * Number of bytes the format is recognized from.
+     */
+    public static final int HEADER_SIZE = 64;
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+        "png",
+        "image/png",
+        "jpeg",
+        "image/jpeg",
+        "gif",
+        "image/gif",
+        "bmp",
+        "image/bmp"
+    );
+
+    private ImageFormats() {}
+
+    /**
+     * Recognizes the format of an image from its first bytes.
+     *
+     * @param header the first bytes of the image, at most {@link #HEADER_SIZE} are read.
+     * @param length the number of bytes of the header.
+     * @return the content type of the image, or empty if it is not in one of the supported formats.
+     */
+    public static Optional<String> detectContentType(byte[] header, int length) {
+        try (ImageInputStream in = new MemoryCacheImageInputStream(new ByteArrayInputStream(header, 0, length))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            while (readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    String contentType = CONTENT_TYPES.get(reader.getFormatName().toLowerCase(Locale.ROOT));
+                    if (contentType != null) {
+                        return Optional.of(contentType);
+                    }
+                } finally {
+                    reader.dispose();
+                }
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            // Only thrown by the in-memory stream when closed.
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Recognizes the format of an image from its first bytes, read from the current position of a channel.
+     *
+     * @param image the image, left after its first {@link #HEADER_SIZE} bytes at most.
+     * @return the content type of the image, or empty if it is not in one of the supported formats.
+     * @throws IOException if the image could not be read.
+     */
+    public static Optional<String> detectContentType(ReadableByteChannel image) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        int read = 0;
+        while (header.hasRemaining() && read >= 0) {
+            read = image.read(header);
+        }
+        return detectContentType(header.array(), header.position());
+    }
+}
@@ -0,0 +1,317 @@
+package com.poc.redis.infrastructure.storage;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Resized variants of the images of a {@link BlobStore}, cached on disk.
+ * <p>
+ * Each variant is named (e.g. {@code thumbnail}) and bounded by a maximum width and height, the aspect ratio is
+ * kept and images are never enlarged. The variants of an image are generated together, by a bounded worker pool,
+ * when the image is stored; an image whose generation could not be queued gets its variants on first request.
+ * The variant of blob {@code 3fa1c2...} bounded by 256 pixels is stored in
+ * {@code <root>/3f/3fa1c2.../256.jpg}, or {@code 256.png} for images with transparency.
+ * <p>
+ * To bound the heap used per image, the source is subsampled while decoding to the smallest resolution still
+ * larger than the biggest missing variant.
+ */
+public class ImageVariantStore implements DisposableBean {
+
+    private static final String JPEG = "jpg";
+    private static final String PNG = "png";
+    private static final String UNSUPPORTED = "unsupported";
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final Logger log = LoggerFactory.getLogger(ImageVariantStore.class);
+
+    private final BlobStore blobStore;
+
+    private final Path root;
+
+    private final Path tmp;
+
+    private final Map<String, Integer> sizes;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> generations = new ConcurrentHashMap<>();
+
+    /**
+     * @param sizes the maximum width and height of each variant, by variant name.
+     * @param concurrency the number of images processed concurrently.
+     * @param queueCapacity the number of images waiting to be processed, beyond which they are processed on first request.
+     */
+    public ImageVariantStore(BlobStore blobStore, Path root, Map<String, Integer> sizes, int concurrency, int queueCapacity)
+        throws IOException {
+        this.blobStore = blobStore;
+        this.root = root.toAbsolutePath().normalize();
+        this.tmp = Files.createDirectories(this.root.resolve("tmp"));
+        this.sizes = Collections.unmodifiableMap(new LinkedHashMap<>(sizes));
+        this.executor =
+            new ThreadPoolExecutor(
+                concurrency,
+                concurrency,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("image-variants-")
+            );
+    }
+
+    public Set<String> getVariantNames() {
+        return sizes.keySet();
+    }
+
+    /**
+     * Queues the generation of the variants of an image that are not stored yet.
+     *
+     * @param key the key of the image in the blob store.
+     */
+    public void generateAsync(String key) {
+        CompletableFuture<Void> generation = new CompletableFuture<>();
+        if (generations.putIfAbsent(key, generation) != null) {
+            return;
+        }
+        try {
+            executor.execute(() -> generate(key, generation));
+        } catch (RejectedExecutionException e) {
+            log.debug("Image variant queue is full, the variants of {} will be generated on first request", key);
+            generations.remove(key, generation);
+            generation.complete(null);
+        }
+    }
+
+    /**
+     * Returns a variant of an image, generating the variants of the image first if needed.
+     *
+     * @param key the key of the image in the blob store.
+     * @param name the name of the variant.
+     * @return the variant, or empty if the variant name is unknown or the image is not in a supported format.
+     * @throws IOException if the variants could not be generated.
+     */
+    public Optional<Variant> getVariant(String key, String name) throws IOException {
+        Integer size = sizes.get(name);
+        if (size == null || !blobStore.exists(key)) {
+            return Optional.empty();
+        }
+        Optional<Variant> variant = find(key, size);
+        if (variant.isPresent()) {
+            return variant;
+        }
+        CompletableFuture<Void> generation = new CompletableFuture<>();
+        CompletableFuture<Void> running = generations.putIfAbsent(key, generation);
+        if (running != null) {
+            running.exceptionally(e -> null).join();
+        } else {
+            generate(key, generation);
+        }
+        return find(key, size);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private Optional<Variant> find(String key, int size) {
+        Path directory = directory(key);
+        for (String extension : List.of(JPEG, PNG)) {
+            Path file = directory.resolve(size + "." + extension);
+            if (Files.isRegularFile(file)) {
+                return Optional.of(new Variant(file, JPEG.equals(extension) ? "image/jpeg" : "image/png", key + "-" + size));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean isStored(String key, int size) {
+        return find(key, size).isPresent() || Files.exists(directory(key).resolve(size + "." + UNSUPPORTED));
+    }
+
+    private Path directory(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private void generate(String key, CompletableFuture<Void> generation) {
+        try {
+            generateMissing(key);
+            generation.complete(null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not generate the variants of image {}: {}", key, e.getMessage());
+            generation.completeExceptionally(e);
+        } finally {
+            generations.remove(key, generation);
+        }
+    }
+
+    private void generateMissing(String key) throws IOException {
+        List<Integer> missing = new ArrayList<>();
+        for (Integer size : sizes.values()) {
+            if (!isStored(key, size) && !missing.contains(size)) {
+                missing.add(size);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        missing.sort(Collections.reverseOrder());
+        Files.createDirectories(directory(key));
+
+        BufferedImage source;
+        try (InputStream in = Channels.newInputStream(blobStore.open(key)); ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                for (Integer size : missing) {
+                    write(key, size, UNSUPPORTED, out -> {});
+                }
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                int subsampling = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / missing.get(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        // From the biggest variant to the smallest, each one being resized from the previous one.
+        BufferedImage current = source;
+        for (Integer size : missing) {
+            current = resize(current, size);
+            BufferedImage variant = current;
+            if (variant.getColorModel().hasAlpha()) {
+                write(key, size, PNG, out -> ImageIO.write(variant, PNG, out));
+            } else {
+                write(key, size, JPEG, out -> writeJpeg(variant, out));
+            }
+        }
+    }
+
+    /**
+     * Resizes an image to fit in a square of the given size, halving it as long as it is more than twice too big so
+     * that bilinear interpolation keeps the details of large reductions.
+     */
+    private static BufferedImage resize(BufferedImage image, int size) {
+        double scale = Math.min(1, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        do {
+            int stepWidth = Math.max(width, current.getWidth() / 2);
+            int stepHeight = Math.max(height, current.getHeight() / 2);
+            BufferedImage step = new BufferedImage(stepWidth, stepHeight, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, stepWidth, stepHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (current.getWidth() != width || current.getHeight() != height);
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private void write(String key, int size, String extension, ImageWriterCallback callback) throws IOException {
+        Path file = Files.createTempFile(tmp, "variant", null);
+        try {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                callback.write(out);
+            }
+            Files.move(file, directory(key).resolve(size + "." + extension), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ImageWriterCallback {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * A stored variant of an image.
+     */
+    public static final class Variant {
+
+        private final Path path;
+
+        private final String contentType;
+
+        private final String version;
+
+        Variant(Path path, String contentType, String version) {
+            this.path = path;
+            this.contentType = contentType;
+            this.version = version;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Identifies the content of the variant: it changes with the image and with the size of the variant.
+         */
+        public String getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.poc.redis.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Liquibase change moving the images stored in the {@code product.image} column to a {@link FileSystemBlobStore},
+ * recording their keys in {@code product.image_key}.
+ * <p>
+ * The images are moved one at a time so that a single one is held in memory. Running it again is harmless: the
+ * blob store keeps a single copy of identical content.
+ */
+public class ProductImageMigration implements CustomTaskChange {
+
+    private final Logger log = LoggerFactory.getLogger(ProductImageMigration.class);
+
+    private String root;
+
+    private int moved;
+
+    public void setRoot(String root) {
+        this.root = root;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        try {
+            BlobStore blobStore = new FileSystemBlobStore(Paths.get(root));
+            Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+            List<Long> ids = new ArrayList<>();
+            try (
+                PreparedStatement select = connection.prepareStatement("select id from product where image is not null");
+                ResultSet resultSet = select.executeQuery()
+            ) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+            }
+            try (
+                PreparedStatement select = connection.prepareStatement("select image from product where id = ?");
+                PreparedStatement update = connection.prepareStatement("update product set image_key = ? where id = ?")
+            ) {
+                for (Long id : ids) {
+                    select.setLong(1, id);
+                    String key;
+                    try (ResultSet resultSet = select.executeQuery()) {
+                        if (!resultSet.next()) {
+                            continue;
+                        }
+                        try (InputStream image = resultSet.getBinaryStream(1)) {
+                            key = blobStore.put(image);
+                        }
+                    }
+                    update.setString(1, key);
+                    update.setLong(2, id);
+                    update.executeUpdate();
+                    moved++;
+                }
+            }
+            log.info("Moved {} product images to the blob store in {}", moved, root);
+        } catch (SQLException | IOException e) {
+            throw new CustomChangeException("Could not move the product images to the blob store", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Moved " + moved + " product images to the blob store";
+    }
+
+    @Override
+    public void setUp() {
+        // Nothing to set up
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+        // Reads no files
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        if (root == null || root.isBlank() || root.contains("${")) {
+            errors.addError("The blob store root is not set, pass it as the blobStoreRoot changelog parameter");
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,184 @@
+package com.poc.redis.web.rest;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.redis.application.dto.ProductBulkResultDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.usecase.ProductUsecase;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.management.ProductImportJob;
+import com.poc.redis.infrastructure.management.ProductImportService;
+import com.poc.redis.infrastructure.security.AuthoritiesConstants;
+import com.poc.redis.web.errors.BadRequestAlertException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller writing many {@link com.poc.redis.domain.model.Product} per request, or importing them from files.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api")
+public class ProductBulkResource {
+
+    private static final String ENTITY_NAME = "product";
+
+    private final ProductUsecase productUsecase;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final ApplicationProperties.Bulk properties;
+
+    private final ProductImportService productImportService;
+
+    public ProductBulkResource(
+        ProductUsecase productUsecase,
+        ObjectMapper objectMapper,
+        Validator validator,
+        ApplicationProperties applicationProperties,
+        ProductImportService productImportService
+    ) {
+        this.productUsecase = productUsecase;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.properties = applicationProperties.getBulk();
+        this.productImportService = productImportService;
+    }
+
+    /**
+     * {@code POST  /products/_bulk} : Create the products without id and update the others.
+     * <p>
+     * The array is read as it is received, by chunks of {@code application.bulk.chunk-size} items: the items of a
+     * chunk are validated in parallel, then the valid ones are persisted in a single transaction, by JDBC batches.
+     * A chunk failing to persist fails all its items, and the following chunks are processed still.
+     *
+     * @param body the JSON array of productDTOs, as {@code POST} and {@code PUT  /products/:id} accept them.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of each item, in order,
+     * or with status {@code 400 (Bad Request)} if the body is not a JSON array; when it is malformed further on, the
+     * items before are persisted still.
+     * @throws IOException if the body cannot be read.
+     */
+    @PostMapping(value = "/products/_bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ProductBulkResultDTO>> bulkSaveProducts(InputStream body) throws IOException {
+        log.debug("REST request to bulk save Products");
+        List<ProductBulkResultDTO> results = new ArrayList<>();
+        List<JsonNode> chunk = new ArrayList<>(properties.getChunkSize());
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestAlertException("A JSON array of products is expected", ENTITY_NAME, "bulknotarray");
+            }
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw new JsonParseException(parser, "Unexpected end of input");
+                }
+                chunk.add(parser.readValueAsTree());
+                if (chunk.size() == properties.getChunkSize()) {
+                    results.addAll(saveChunk(chunk, results.size()));
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            String message = "Malformed JSON array, the first " + results.size() + " items were processed: " + e.getOriginalMessage();
+            throw new BadRequestAlertException(message, ENTITY_NAME, "bulkmalformed");
+        }
+        results.addAll(saveChunk(chunk, results.size()));
+        log.debug("Bulk saved {} Products", results.size());
+        return ResponseEntity.ok().body(results);
+    }
+
+    /**
+     * {@code POST  /products/_import} : Import products from a CSV file, in the background.
+     *
+     * @param body the CSV file, with the columns of {@code config/liquibase/fake-data/product.csv}.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)}, with body the import queued and its
+     * progress at the {@code Location} of the {@code productimports} management endpoint.
+     * @throws IOException if the file cannot be received.
+     */
+    @PostMapping(value = "/products/_import", consumes = { "text/csv", MediaType.TEXT_PLAIN_VALUE })
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<ProductImportJob> importProducts(InputStream body) throws IOException {
+        log.debug("REST request to import Products");
+        ProductImportJob job = productImportService.submit(body);
+        return ResponseEntity.accepted().location(URI.create("/management/productimports/" + job.getId())).body(job);
+    }
+
+    private List<ProductBulkResultDTO> saveChunk(List<JsonNode> chunk, int offset) {
+        ProductDTO[] products = new ProductDTO[chunk.size()];
+        ProductBulkResultDTO[] results = new ProductBulkResultDTO[chunk.size()];
+        IntStream.range(0, chunk.size()).parallel().forEach(i -> results[i] = validate(chunk.get(i), product -> products[i] = product));
+        List<ProductDTO> valid = Arrays.stream(products).filter(Objects::nonNull).collect(Collectors.toList());
+        List<ProductBulkResultDTO> saved;
+        try {
+            saved = productUsecase.saveAll(valid);
+        } catch (RuntimeException e) {
+            log.warn("Could not bulk save {} Products: {}", valid.size(), e.getMessage());
+            saved =
+                valid
+                    .stream()
+                    .map(product -> result(ProductBulkResultDTO.Status.FAILED, product.getId(), String.valueOf(e.getMessage())))
+                    .collect(Collectors.toList());
+        }
+        Iterator<ProductBulkResultDTO> savedResults = saved.iterator();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = savedResults.next();
+            }
+            results[i].setIndex(offset + i);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Reads and validates an item.
+     *
+     * @param node the item.
+     * @param onValid receives the item read, when valid.
+     * @return the result reporting why the item is invalid, or {@code null}.
+     */
+    private ProductBulkResultDTO validate(JsonNode node, Consumer<ProductDTO> onValid) {
+        ProductDTO productDTO;
+        try {
+            productDTO = objectMapper.treeToValue(node, ProductDTO.class);
+        } catch (JsonProcessingException e) {
+            return result(ProductBulkResultDTO.Status.INVALID, null, e.getOriginalMessage());
+        }
+        List<String> errors = validator
+            .validate(productDTO)
+            .stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.toList());
+        if (!errors.isEmpty()) {
+            return new ProductBulkResultDTO(0, ProductBulkResultDTO.Status.INVALID, productDTO.getId(), errors);
+        }
+        onValid.accept(productDTO);
+        return null;
+    }
+
+    private static ProductBulkResultDTO result(ProductBulkResultDTO.Status status, Long id, String error) {
+        return new ProductBulkResultDTO(0, status, id, List.of(error));
+    }
+}
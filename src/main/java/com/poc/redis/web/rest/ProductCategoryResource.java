@@ -2,12 +2,15 @@ package com.poc.redis.web.rest;
 
 import com.poc.redis.application.dto.ProductCategoryDTO;
 import com.poc.redis.application.usecase.ProductCategoryUsecase;
+import com.poc.redis.infrastructure.repository.Keyset;
 import com.poc.redis.infrastructure.repository.ProductCategoryRepository;
 import com.poc.redis.web.errors.BadRequestAlertException;
+import com.poc.redis.web.util.KeysetPaginationUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +26,7 @@ import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * REST controller for managing {@link com.poc.redis.domain.model.ProductCategory}.
@@ -34,6 +38,8 @@ public class ProductCategoryResource {
 
     private static final String ENTITY_NAME = "productCategory";
 
+    private static final Set<String> KEYSET_SORT_PROPERTIES = Set.of("name");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -141,14 +147,29 @@ public class ProductCategoryResource {
      * {@code GET  /product-categories} : get all the productCategories.
      *
      * @param pageable the pagination information.
+     * @param after the cursor of the page to get, from the {@code next} link of the previous page, empty for the first page.
+     *              When present, the listing is sorted by one of {@code id}, {@code name} and is not counted.
+     * @param estimatedCount whether the {@code X-Total-Count} header may be estimated from the table statistics instead of counted.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productCategories in body.
      */
     @GetMapping("/product-categories")
     public ResponseEntity<List<ProductCategoryDTO>> getAllProductCategories(
-        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestParam(required = false) String after,
+        @RequestParam(required = false, defaultValue = "false") boolean estimatedCount
     ) {
         log.debug("REST request to get a page of ProductCategories");
-        Page<ProductCategoryDTO> page = productCategoryUsecase.findAll(pageable);
+        if (after != null) {
+            Keyset keyset = KeysetPaginationUtil.keyset(after, pageable, KEYSET_SORT_PROPERTIES, ProductCategoryDTO.class, ENTITY_NAME);
+            Slice<ProductCategoryDTO> slice = productCategoryUsecase.findAll(keyset);
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                keyset,
+                slice
+            );
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        Page<ProductCategoryDTO> page = productCategoryUsecase.findAll(pageable, estimatedCount);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
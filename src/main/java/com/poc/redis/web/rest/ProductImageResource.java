@@ -0,0 +1,421 @@
+package com.poc.redis.web.rest;
+
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.usecase.ProductUsecase;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.storage.BlobStore;
+import com.poc.redis.infrastructure.storage.ImageFormats;
+import com.poc.redis.infrastructure.storage.ImageVariantStore;
+import com.poc.redis.web.errors.BadRequestAlertException;
+import io.undertow.connector.ByteBufferPool;
+import io.undertow.server.DefaultByteBufferPool;
+import io.undertow.servlet.spec.ServletOutputStreamImpl;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.MultipartParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller serving the images of {@link com.poc.redis.domain.model.Product}.
+ * <p>
+ * Images are copied from the blob store to the socket by the kernel, without going through the heap: with
+ * {@code sendfile} when the response runs to the end of the image, from a memory-mapped region otherwise. Their
+ * {@code ETag} is the content hash, so they can be cached by browsers and CDNs and revalidated cheaply.
+ * <p>
+ * Only the raster formats of {@link ImageFormats}, recognized from the content, are sent inline with their content
+ * type; anything else is sent as an {@code application/octet-stream} attachment, never sniffed by browsers.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api")
+public class ProductImageResource {
+
+    private static final String ENTITY_NAME = "product";
+
+    private static final long MAX_MAPPED_REGION_SIZE = 8 * 1024 * 1024;
+
+    private static final String X_CONTENT_TYPE_OPTIONS = "X-Content-Type-Options";
+
+    private static final ByteBufferPool MULTIPART_BUFFER_POOL = new DefaultByteBufferPool(false, BlobStore.CHUNK_SIZE);
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final ProductUsecase productUsecase;
+
+    private final BlobStore blobStore;
+
+    private final ImageVariantStore imageVariantStore;
+
+    private final long maxUploadSize;
+
+    public ProductImageResource(
+        ProductUsecase productUsecase,
+        BlobStore blobStore,
+        ImageVariantStore imageVariantStore,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productUsecase = productUsecase;
+        this.blobStore = blobStore;
+        this.imageVariantStore = imageVariantStore;
+        this.maxUploadSize = applicationProperties.getBlobStore().getMaxUploadSize().toBytes();
+    }
+
+    /**
+     * {@code PUT  /products/:id/image} : Replaces the image of the "id" product with the {@code image} part of a
+     * {@code multipart/form-data} request.
+     * <p>
+     * The part is streamed to the blob store in fixed-size chunks, and hashed on the fly: the image is never held
+     * in memory as a whole. Its content type is the one recognized from its first bytes, not the one of the part.
+     *
+     * @param id the id of the product.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated productDTO,
+     * or with status {@code 400 (Bad Request)} if the request has no {@code image} part,
+     * or with status {@code 404 (Not Found)} if the product is not found,
+     * or with status {@code 413 (Payload Too Large)} if the image is larger than
+     * {@code application.blob-store.max-upload-size},
+     * or with status {@code 415 (Unsupported Media Type)} if the image is not in one of the formats of
+     * {@link ImageFormats}.
+     * @throws IOException if the image could not be received or stored.
+     */
+    @PutMapping(value = "/products/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ProductDTO> updateProductImage(@PathVariable Long id, HttpServletRequest request) throws IOException {
+        log.debug("REST request to update Product image : {}", id);
+        if (productUsecase.findOne(id).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        String boundary = MediaType.parseMediaType(request.getContentType()).getParameter("boundary");
+        if (boundary == null) {
+            throw new BadRequestAlertException("Invalid multipart request", ENTITY_NAME, "multipartinvalid");
+        }
+        if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+            boundary = boundary.substring(1, boundary.length() - 1);
+        }
+
+        try (ImagePartHandler handler = new ImagePartHandler()) {
+            MultipartParser.ParseState state = MultipartParser.beginParse(
+                MULTIPART_BUFFER_POOL,
+                handler,
+                boundary.getBytes(StandardCharsets.US_ASCII),
+                request.getCharacterEncoding() != null ? request.getCharacterEncoding() : StandardCharsets.UTF_8.name()
+            );
+            InputStream in = request.getInputStream();
+            byte[] chunk = new byte[BlobStore.CHUNK_SIZE];
+            int read;
+            while (!state.isComplete() && (read = in.read(chunk)) != -1) {
+                state.parse(ByteBuffer.wrap(chunk, 0, read));
+            }
+            if (!state.isComplete() || handler.key == null) {
+                throw new BadRequestAlertException("No image part in the request", ENTITY_NAME, "imagemissing");
+            }
+            Optional<ProductDTO> result = productUsecase.updateImage(id, handler.key, handler.contentType);
+            return ResponseUtil.wrapOrNotFound(
+                result,
+                HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, id.toString())
+            );
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * {@code GET  /products/:id/image} : get the image of the "id" product.
+     * <p>
+     * Answers {@code If-None-Match} with {@code 304 (Not Modified)} and a single {@code Range} with
+     * {@code 206 (Partial Content)}; several ranges are answered with the whole image. The content type is the one
+     * recognized from the image, not the {@code imageContentType} of the product.
+     *
+     * @param id the id of the product.
+     * @throws IOException if the image could not be read or sent.
+     */
+    @GetMapping("/products/{id}/image")
+    public void getProductImage(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("REST request to get Product image : {}", id);
+        ProductDTO product = findProductWithImage(id);
+        String etag = "\"" + product.getImageKey() + "\"";
+        if (isNotModified(etag, request, response)) {
+            return;
+        }
+        SeekableByteChannel image;
+        try {
+            image = blobStore.open(product.getImageKey());
+        } catch (NoSuchFileException e) {
+            log.warn("Image {} of Product {} is missing from the blob store", product.getImageKey(), id);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        // The content type stored with the product is the one its client declared.
+        String contentType;
+        try {
+            contentType = ImageFormats.detectContentType(image).orElse(null);
+        } catch (IOException e) {
+            image.close();
+            throw e;
+        }
+        send(image, contentType, etag, request, response);
+    }
+
+    /**
+     * {@code GET  /products/:id/image/:variant} : get a resized variant of the image of the "id" product, e.g.
+     * {@code thumbnail}. Variants are configured by {@code application.image-variants.sizes}.
+     *
+     * @param id the id of the product.
+     * @param variant the name of the variant.
+     * @throws IOException if the variant could not be generated, read or sent.
+     */
+    @GetMapping("/products/{id}/image/{variant}")
+    public void getProductImageVariant(
+        @PathVariable Long id,
+        @PathVariable String variant,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        log.debug("REST request to get Product image variant : {}, {}", id, variant);
+        ProductDTO product = findProductWithImage(id);
+        ImageVariantStore.Variant image = imageVariantStore
+            .getVariant(product.getImageKey(), variant)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        String etag = "\"" + image.getVersion() + "\"";
+        if (isNotModified(etag, request, response)) {
+            return;
+        }
+        send(FileChannel.open(image.getPath(), StandardOpenOption.READ), image.getContentType(), etag, request, response);
+    }
+
+    private ProductDTO findProductWithImage(Long id) {
+        return productUsecase
+            .findOne(id)
+            .filter(p -> p.getImageKey() != null)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    private static boolean isNotModified(String etag, HttpServletRequest request, HttpServletResponse response) {
+        // Private: the images are served to authenticated requests only, which shared caches must not answer.
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        return new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    /**
+     * Sends the content of the channel, or the range of it requested, and closes the channel.
+     *
+     * @param contentType the content type of a supported image, or {@code null} to send the content as an attachment.
+     */
+    private static void send(
+        SeekableByteChannel image,
+        String contentType,
+        String etag,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        try (image) {
+            long length = image.size();
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(X_CONTENT_TYPE_OPTIONS, "nosniff");
+            if (contentType != null) {
+                response.setContentType(contentType);
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline().build().toString());
+            } else {
+                response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().build().toString());
+            }
+
+            long start = 0;
+            long end = length - 1;
+            HttpRange range = requestedRange(request, etag);
+            if (range != null) {
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    start = length;
+                }
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+            response.setContentLengthLong(end - start + 1);
+            if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+                return;
+            }
+            transfer(image, start, end - start + 1, response);
+        }
+    }
+
+    /**
+     * Returns the single range requested, or {@code null} to send the whole image: when no or several ranges are
+     * requested, when the header is invalid, or when {@code If-Range} names another version of the image.
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void transfer(SeekableByteChannel image, long position, long count, HttpServletResponse response) throws IOException {
+        // Commits the headers through the response wrappers (e.g. the security headers) before writing to the
+        // Undertow stream underneath them.
+        response.flushBuffer();
+        ServletOutputStream out = unwrap(response).getOutputStream();
+        if (image instanceof FileChannel && out instanceof ServletOutputStreamImpl) {
+            FileChannel file = (FileChannel) image;
+            ServletOutputStreamImpl undertowOut = (ServletOutputStreamImpl) out;
+            if (position + count == file.size()) {
+                file.position(position);
+                undertowOut.transferFrom(file);
+            } else {
+                for (long sent = 0; sent < count;) {
+                    long size = Math.min(count - sent, MAX_MAPPED_REGION_SIZE);
+                    undertowOut.write(file.map(FileChannel.MapMode.READ_ONLY, position + sent, size));
+                    sent += size;
+                }
+            }
+        } else {
+            image.position(position);
+            WritableByteChannel target = Channels.newChannel(out);
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count, 64 * 1024));
+            for (long remaining = count; remaining > 0;) {
+                buffer.clear().limit((int) Math.min(remaining, buffer.capacity()));
+                int read = image.read(buffer);
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                remaining -= read;
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the content of the first {@code image} part to a new blob, ignoring the other parts. The blob is only
+     * committed if its first bytes are those of a supported image.
+     */
+    private class ImagePartHandler implements MultipartParser.PartHandler, AutoCloseable {
+
+        private BlobStore.BlobWriter writer;
+
+        private long size;
+
+        private String key;
+
+        private String contentType;
+
+        private final ByteBuffer header = ByteBuffer.allocate(ImageFormats.HEADER_SIZE);
+
+        @Override
+        public void beginPart(HeaderMap headers) {
+            String name = Headers.extractQuotedValueFromHeader(headers.getFirst(Headers.CONTENT_DISPOSITION), "name");
+            if (!"image".equals(name) || writer != null) {
+                return;
+            }
+            try {
+                writer = blobStore.create();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void data(ByteBuffer buffer) throws IOException {
+            if (writer == null || key != null) {
+                return;
+            }
+            size += buffer.remaining();
+            if (size > maxUploadSize) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "The image is larger than " + maxUploadSize + " bytes");
+            }
+            if (header.hasRemaining()) {
+                ByteBuffer start = buffer.duplicate();
+                start.limit(start.position() + Math.min(start.remaining(), header.remaining()));
+                header.put(start);
+            }
+            while (buffer.hasRemaining()) {
+                writer.write(buffer);
+            }
+        }
+
+        @Override
+        public void endPart() {
+            if (writer == null || key != null) {
+                return;
+            }
+            Optional<String> detected = ImageFormats.detectContentType(header.array(), header.position());
+            if (detected.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "The image is not in a supported format");
+            }
+            contentType = detected.get();
+            try {
+                key = writer.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    private static ServletResponse unwrap(ServletResponse response) {
+        while (response instanceof ServletResponseWrapper) {
+            response = ((ServletResponseWrapper) response).getResponse();
+        }
+        return response;
+    }
+}
@@ -1,18 +1,23 @@
 package com.poc.redis.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.poc.redis.application.dto.ProductOrderDTO;
 import com.poc.redis.application.usecase.ProductOrderUsecase;
 import com.poc.redis.infrastructure.repository.ProductOrderRepository;
 import com.poc.redis.web.errors.BadRequestAlertException;
+import com.poc.redis.web.util.NdjsonUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -36,9 +41,16 @@ public class ProductOrderResource {
 
     private final ProductOrderRepository productOrderRepository;
 
-    public ProductOrderResource(ProductOrderUsecase productOrderUsecase, ProductOrderRepository productOrderRepository) {
+    private final ObjectMapper objectMapper;
+
+    public ProductOrderResource(
+        ProductOrderUsecase productOrderUsecase,
+        ProductOrderRepository productOrderRepository,
+        ObjectMapper objectMapper
+    ) {
         this.productOrderUsecase = productOrderUsecase;
         this.productOrderRepository = productOrderRepository;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -144,6 +156,20 @@ public class ProductOrderResource {
         return productOrderUsecase.findAll();
     }
 
+    /**
+     * {@code GET  /product-orders/_export} : export all the productOrders, by id, one JSON document per line.
+     * <p>
+     * The productOrders are read through a database cursor and written as they are read, whatever their number.
+     *
+     * @param response the response the productOrders are written to, with status {@code 200 (OK)}.
+     * @throws IOException if the response could not be written.
+     */
+    @GetMapping(value = "/product-orders/_export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportProductOrders(HttpServletResponse response) throws IOException {
+        log.debug("REST request to export ProductOrders");
+        NdjsonUtil.write(response, objectMapper, ProductOrderDTO.class, productOrderUsecase::exportAll);
+    }
+
     /**
      * {@code GET  /product-orders/:id} : get the "id" productOrder.
      *
@@ -2,12 +2,15 @@ package com.poc.redis.web.rest;
 
 import com.poc.redis.application.dto.ProductDTO;
 import com.poc.redis.application.usecase.ProductUsecase;
+import com.poc.redis.infrastructure.repository.Keyset;
 import com.poc.redis.infrastructure.repository.ProductRepository;
 import com.poc.redis.web.errors.BadRequestAlertException;
+import com.poc.redis.web.util.KeysetPaginationUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +26,7 @@ import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * REST controller for managing {@link com.poc.redis.domain.model.Product}.
@@ -34,6 +38,8 @@ public class ProductResource {
 
     private static final String ENTITY_NAME = "product";
 
+    private static final Set<String> KEYSET_SORT_PROPERTIES = Set.of("name", "price");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -140,20 +146,35 @@ public class ProductResource {
      * {@code GET  /products} : get all the products.
      *
      * @param pageable the pagination information.
+     * @param after the cursor of the page to get, from the {@code next} link of the previous page, empty for the first page.
+     *              When present, the listing is sorted by one of {@code id}, {@code name}, {@code price} and is not counted.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
+     * @param estimatedCount whether the {@code X-Total-Count} header may be estimated from the table statistics instead of counted.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
      */
     @GetMapping("/products")
     public ResponseEntity<List<ProductDTO>> getAllProducts(
         @org.springdoc.api.annotations.ParameterObject Pageable pageable,
-        @RequestParam(required = false, defaultValue = "false") boolean eagerload
+        @RequestParam(required = false) String after,
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload,
+        @RequestParam(required = false, defaultValue = "false") boolean estimatedCount
     ) {
         log.debug("REST request to get a page of Products");
+        if (after != null) {
+            Keyset keyset = KeysetPaginationUtil.keyset(after, pageable, KEYSET_SORT_PROPERTIES, ProductDTO.class, ENTITY_NAME);
+            Slice<ProductDTO> slice = productUsecase.findAll(keyset);
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                keyset,
+                slice
+            );
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
         Page<ProductDTO> page;
         if (eagerload) {
-            page = productUsecase.findAllWithEagerRelationships(pageable);
+            page = productUsecase.findAllWithEagerRelationships(pageable, estimatedCount);
         } else {
-            page = productUsecase.findAll(pageable);
+            page = productUsecase.findAll(pageable, estimatedCount);
         }
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
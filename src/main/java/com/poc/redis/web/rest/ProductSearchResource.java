@@ -0,0 +1,101 @@
+package com.poc.redis.web.rest;
+
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.dto.ProductFacetsDTO;
+import com.poc.redis.application.dto.ProductSuggestionDTO;
+import com.poc.redis.application.usecase.ProductUsecase;
+import com.poc.redis.domain.enumeration.Size;
+import com.poc.redis.infrastructure.search.ProductSuggestIndex;
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * REST controller searching, filtering and completing {@link com.poc.redis.domain.model.Product}, from indexes kept in
+ * memory.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api")
+public class ProductSearchResource {
+
+    private final ProductUsecase productUsecase;
+
+    public ProductSearchResource(ProductUsecase productUsecase) {
+        this.productUsecase = productUsecase;
+    }
+
+    /**
+     * {@code GET  /products/_search?q=:query} : search the products by name and description.
+     *
+     * @param query the words the products must all contain, in any case and with or without accents.
+     * @param pageable the pagination information; the products are sorted by relevance.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
+     */
+    @GetMapping("/products/_search")
+    public ResponseEntity<List<ProductDTO>> searchProducts(
+        @RequestParam("q") String query,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search for a page of Products for query {}", query);
+        Page<ProductDTO> page = productUsecase.search(query, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /products/_facets} : filter the products by category, size and price range.
+     *
+     * @param categoryIds the categories the products must be in one of, every category if none.
+     * @param sizes the sizes the products must have one of, every size if none.
+     * @param minPrice the lowest price of the products, inclusive.
+     * @param maxPrice the highest price of the products, inclusive.
+     * @param pageable the pagination information of the ids; they are sorted by increasing id.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and in body the ids of the matching products,
+     * with the number of products of each category and size when filtering on it instead.
+     */
+    @GetMapping("/products/_facets")
+    public ResponseEntity<ProductFacetsDTO> getProductFacets(
+        @RequestParam(name = "categoryId", required = false, defaultValue = "") List<Long> categoryIds,
+        @RequestParam(name = "productSize", required = false, defaultValue = "") List<Size> sizes,
+        @RequestParam(required = false) BigDecimal minPrice,
+        @RequestParam(required = false) BigDecimal maxPrice,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to filter Products by categories {}, sizes {} and prices {} to {}", categoryIds, sizes, minPrice, maxPrice);
+        ProductFacetsDTO facets = productUsecase.facets(categoryIds, sizes, minPrice, maxPrice, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            new PageImpl<>(facets.getIds(), pageable, facets.getTotal())
+        );
+        return ResponseEntity.ok().headers(headers).body(facets);
+    }
+
+    /**
+     * {@code GET  /products/_suggest?prefix=:prefix} : complete a prefix with the names of products and categories.
+     *
+     * @param prefix the start of the words to complete, in any case and with or without accents.
+     * @param limit the maximum number of suggestions, up to {@value ProductSuggestIndex#MAX_SUGGESTIONS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of suggestions in body, the most
+     * ordered first.
+     */
+    @GetMapping("/products/_suggest")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggestProducts(
+        @RequestParam String prefix,
+        @RequestParam(required = false, defaultValue = "10") int limit
+    ) {
+        log.debug("REST request to suggest Products and ProductCategories for prefix {}", prefix);
+        return ResponseEntity.ok().body(productUsecase.suggest(prefix, limit));
+    }
+}
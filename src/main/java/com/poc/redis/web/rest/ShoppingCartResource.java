@@ -1,18 +1,23 @@
 package com.poc.redis.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.poc.redis.application.dto.ShoppingCartDTO;
 import com.poc.redis.application.usecase.ShoppingCartUsecase;
 import com.poc.redis.infrastructure.repository.ShoppingCartRepository;
 import com.poc.redis.web.errors.BadRequestAlertException;
+import com.poc.redis.web.util.NdjsonUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -36,9 +41,16 @@ public class ShoppingCartResource {
 
     private final ShoppingCartRepository shoppingCartRepository;
 
-    public ShoppingCartResource(ShoppingCartUsecase shoppingCartUsecase, ShoppingCartRepository shoppingCartRepository) {
+    private final ObjectMapper objectMapper;
+
+    public ShoppingCartResource(
+        ShoppingCartUsecase shoppingCartUsecase,
+        ShoppingCartRepository shoppingCartRepository,
+        ObjectMapper objectMapper
+    ) {
         this.shoppingCartUsecase = shoppingCartUsecase;
         this.shoppingCartRepository = shoppingCartRepository;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -143,6 +155,20 @@ public class ShoppingCartResource {
         return shoppingCartUsecase.findAll();
     }
 
+    /**
+     * {@code GET  /shopping-carts/_export} : export all the shoppingCarts, by id, one JSON document per line.
+     * <p>
+     * The shoppingCarts are read through a database cursor and written as they are read, whatever their number.
+     *
+     * @param response the response the shoppingCarts are written to, with status {@code 200 (OK)}.
+     * @throws IOException if the response could not be written.
+     */
+    @GetMapping(value = "/shopping-carts/_export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportShoppingCarts(HttpServletResponse response) throws IOException {
+        log.debug("REST request to export ShoppingCarts");
+        NdjsonUtil.write(response, objectMapper, ShoppingCartDTO.class, shoppingCartUsecase::exportAll);
+    }
+
     /**
      * {@code GET  /shopping-carts/:id} : get the "id" shoppingCart.
      *
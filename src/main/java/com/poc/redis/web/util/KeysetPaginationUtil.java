@@ -0,0 +1,125 @@
+package com.poc.redis.web.util;
+
+import com.poc.redis.infrastructure.repository.Keyset;
+import com.poc.redis.web.errors.BadRequestAlertException;
+import java.beans.PropertyDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for keyset (cursor) pagination.
+ * <p>
+ * A listing is read in cursor mode when the {@code after} request parameter is present: empty for the first page,
+ * then set to the cursor of the {@code next} link of the previous page. The cursor is opaque to clients; it holds
+ * the sort order and the sort property value and id of the last row of the previous page. The sort is given by
+ * the first {@code sort} parameter, and defaults to the id.
+ */
+public final class KeysetPaginationUtil {
+
+    private static final String ID_PROPERTY = "id";
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    private static final String SEPARATOR = "|";
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Reads the position of the requested page.
+     *
+     * @param after the cursor received, empty for the first page.
+     * @param pageable the sort and page size requested.
+     * @param sortProperties the properties other than the id a listing can be sorted by in cursor mode: non-null
+     *                       properties, indexed together with the id.
+     * @param rowType the type of the rows listed, whose sort property and {@code id} types the cursor values must
+     *                convert to.
+     * @param entityName the name of the entity, for error messages.
+     * @return the position of the page.
+     * @throws BadRequestAlertException if the sort is not supported or the cursor is invalid or belongs to another sort.
+     */
+    public static Keyset keyset(String after, Pageable pageable, Set<String> sortProperties, Class<?> rowType, String entityName) {
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc(ID_PROPERTY));
+        if (!ID_PROPERTY.equals(order.getProperty()) && !sortProperties.contains(order.getProperty())) {
+            throw new BadRequestAlertException("Unsupported sort property for cursor pagination", entityName, "sortinvalid");
+        }
+        if (after.isEmpty()) {
+            return Keyset.first(order.getProperty(), order.getDirection(), pageable.getPageSize());
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8).split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", entityName, "cursorinvalid");
+        }
+        if (
+            parts.length != 4 ||
+            !parts[0].equals(order.getProperty()) ||
+            !parts[1].equals(order.getDirection().name()) ||
+            !convertible(parts[2], rowType, ID_PROPERTY) ||
+            !convertible(parts[3], rowType, order.getProperty())
+        ) {
+            throw new BadRequestAlertException("Invalid cursor", entityName, "cursorinvalid");
+        }
+        return Keyset.after(order.getProperty(), order.getDirection(), parts[3], parts[2], pageable.getPageSize());
+    }
+
+    /**
+     * @return whether a cursor value converts to a non-null value of the type of a property, as the query converts it.
+     */
+    private static boolean convertible(String value, Class<?> rowType, String property) {
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(rowType, property);
+        try {
+            return descriptor != null && CONVERSION_SERVICE.convert(value, descriptor.getPropertyType()) != null;
+        } catch (ConversionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Generates the {@code Link} header to the next page, if any. No total count is sent.
+     *
+     * @param uriBuilder the uri builder of the current request.
+     * @param keyset the position of the current page.
+     * @param slice the current page.
+     * @param <T> the type of the rows, exposing the sort property and {@code id} as bean properties.
+     * @return the http headers.
+     */
+    public static <T> HttpHeaders generateKeysetHttpHeaders(UriComponentsBuilder uriBuilder, Keyset keyset, Slice<T> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        if (!slice.hasNext()) {
+            return headers;
+        }
+        List<T> content = slice.getContent();
+        BeanWrapper last = PropertyAccessorFactory.forBeanPropertyAccess(content.get(content.size() - 1));
+        String cursor = String.join(
+            SEPARATOR,
+            keyset.getProperty(),
+            keyset.getDirection().name(),
+            String.valueOf(last.getPropertyValue(ID_PROPERTY)),
+            String.valueOf(last.getPropertyValue(keyset.getProperty()))
+        );
+        String next = uriBuilder
+            .replaceQueryParam("page")
+            .replaceQueryParam("size", keyset.getSize())
+            .replaceQueryParam("after", Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8)))
+            .toUriString();
+        headers.add(HttpHeaders.LINK, MessageFormat.format(HEADER_LINK_FORMAT, next, "next"));
+        return headers;
+    }
+}
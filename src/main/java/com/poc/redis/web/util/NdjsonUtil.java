@@ -0,0 +1,55 @@
+package com.poc.redis.web.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+
+/**
+ * Utility class for the exports written as newline delimited JSON ({@code application/x-ndjson}): one document per
+ * line, written to the response as it is produced, so that exporting a whole table needs no more memory than a row.
+ */
+public final class NdjsonUtil {
+
+    private NdjsonUtil() {}
+
+    /**
+     * Writes the values of an export to the response, each on its own line, in the order they are produced.
+     * <p>
+     * The response is flushed when its buffer fills up, not after each value. Once the first bytes are sent the
+     * status cannot change: an export failing then ends the response early.
+     *
+     * @param response the response to write to.
+     * @param objectMapper the mapper serializing the values.
+     * @param type the type of the values.
+     * @param export produces the values, passing each to the consumer it is given.
+     * @param <T> the type of the values.
+     * @throws IOException if the response could not be written.
+     */
+    public static <T> void write(HttpServletResponse response, ObjectMapper objectMapper, Class<T> type, Consumer<Consumer<T>> export)
+        throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ObjectWriter writer = objectMapper
+            .writerFor(type)
+            .without(SerializationFeature.INDENT_OUTPUT, SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            // Each value ends its line, instead of being preceded by the default space.
+            generator.setRootValueSeparator(null);
+            export.accept(value -> {
+                try {
+                    writer.writeValue(generator, value);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.poc.redis.infrastructure.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.ServerSocket;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.redisson.spring.cache.CacheConfig;
+import org.springframework.cache.Cache;
+import redis.embedded.RedisServer;
+
+/**
+ * Application contexts of two releases, and a restart of the first, sharing the same Redis cache: the entries are
+ * kept on startup, and only read by the contexts caching the same layout of the value type.
+ */
+class CacheSchemaVersionTest {
+
+    private static final String CACHE = "test";
+
+    private RedisServer redis;
+
+    private RedissonClient redissonClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redis = RedisServer.newRedisServer().port(port).setting("bind 127.0.0.1").build();
+        redis.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        redissonClient.shutdown();
+        redis.stop();
+    }
+
+    @Test
+    void contextsShareTheEntriesOfTheSameSchemaOnly() {
+        Cache first = startContext(ValueV1.class);
+        first.put("key", new ValueV1("first"));
+
+        Cache restarted = startContext(ValueV1.class);
+        assertThat(restarted.get("key", ValueV1.class)).extracting(value -> value.name).isEqualTo("first");
+
+        Cache nextRelease = startContext(ValueV2.class);
+        assertThat(nextRelease.get("key")).isNull();
+        nextRelease.put("key", new ValueV2("next", 2));
+
+        assertThat(restarted.get("key", ValueV1.class)).extracting(value -> value.name).isEqualTo("first");
+        assertThat(nextRelease.get("key", ValueV2.class)).extracting(value -> value.version).isEqualTo(2);
+    }
+
+    /**
+     * Builds the caches as {@code CacheConfiguration} does on startup, for a release caching a type.
+     */
+    private Cache startContext(Class<?> valueType) {
+        CacheSchemas cacheSchemas = new CacheSchemas();
+        cacheSchemas.register(CACHE, valueType);
+        return new VersionedKeyCacheManager(
+            new PrefixedRedissonCacheManager(redissonClient, Map.of(CACHE, new CacheConfig()), "cache:"),
+            cacheSchemas
+        )
+            .getCache(CACHE);
+    }
+
+    static class ValueV1 implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        String name;
+
+        ValueV1(String name) {
+            this.name = name;
+        }
+    }
+
+    static class ValueV2 implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        String name;
+
+        int version;
+
+        ValueV2(String name, int version) {
+            this.name = name;
+            this.version = version;
+        }
+    }
+}
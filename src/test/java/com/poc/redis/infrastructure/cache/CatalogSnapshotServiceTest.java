@@ -0,0 +1,69 @@
+package com.poc.redis.infrastructure.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.poc.redis.application.mapper.ProductCategoryMapperImpl;
+import com.poc.redis.application.mapper.ProductMapperImpl;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.repository.Keyset;
+import com.poc.redis.infrastructure.repository.ProductCategoryRepository;
+import com.poc.redis.infrastructure.repository.ProductRepository;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.SliceImpl;
+
+class CatalogSnapshotServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+
+    private final ProductCategoryRepository productCategoryRepository = mock(ProductCategoryRepository.class);
+
+    private CatalogSnapshotService service;
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void retriesAFailedBuildAfterADelay() throws Exception {
+        when(productCategoryRepository.findAll(any(Keyset.class)))
+            .thenThrow(new DataAccessResourceFailureException("down"))
+            .thenThrow(new DataAccessResourceFailureException("still down"))
+            .thenReturn(new SliceImpl<>(List.of()));
+        when(productRepository.findAll(any(Keyset.class), any(String.class))).thenReturn(new SliceImpl<>(List.of()));
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getCatalog().getSnapshot().setEnabled(true);
+        properties.getCatalog().getSnapshot().setRetryInterval(Duration.ofMillis(50));
+        service =
+            new CatalogSnapshotService(
+                productRepository,
+                productCategoryRepository,
+                new ProductMapperImpl(),
+                new ProductCategoryMapperImpl(),
+                mock(RedissonClient.class, invocation -> mock(RTopic.class)),
+                new RedisCircuitBreaker(properties.getCache().getCircuitBreaker()),
+                properties
+            );
+
+        service.run(null);
+        assertThat(service.current()).isEmpty();
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (service.current().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(service.current()).get().extracting(CatalogSnapshot::getProductCount).isEqualTo(0);
+        verify(productCategoryRepository, times(3)).findAll(any(Keyset.class));
+    }
+}
@@ -0,0 +1,142 @@
+package com.poc.redis.infrastructure.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.mapper.ProductMapper;
+import com.poc.redis.application.mapper.ProductMapperImpl;
+import com.poc.redis.domain.enumeration.Size;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+class MappedCatalogSnapshotTest {
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+
+    private final Random random = new Random(42);
+
+    @TempDir
+    Path directory;
+
+    private List<ProductCategoryDTO> categories;
+
+    @BeforeEach
+    void setUp() {
+        categories = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            ProductCategoryDTO category = new ProductCategoryDTO();
+            category.setId(id);
+            category.setName("category " + id);
+            categories.add(category);
+        }
+    }
+
+    @Test
+    void withProductsReadsAsTheSnapshotWrittenFromScratch() throws Exception {
+        TreeMap<Long, ProductDTO> expected = new TreeMap<>();
+        for (long id = 1; id <= 200; id++) {
+            expected.put(id, product(id));
+        }
+        CatalogSnapshot snapshot = MappedCatalogSnapshot.write(
+            directory.resolve("snapshot"),
+            new ArrayList<>(expected.values()),
+            categories,
+            productMapper
+        );
+
+        // Enough rounds for the strings no longer referenced to be compacted.
+        for (int round = 0; round < 20; round++) {
+            Map<Long, ProductDTO> changes = new HashMap<>();
+            for (int i = 0; i < 30; i++) {
+                long id = 1 + random.nextInt(250);
+                changes.put(id, random.nextInt(4) == 0 ? null : product(id));
+            }
+            changes.forEach((id, product) -> {
+                if (product != null) {
+                    expected.put(id, product);
+                } else {
+                    expected.remove(id);
+                }
+            });
+            snapshot = snapshot.withProducts(changes);
+
+            CatalogSnapshot rewritten = MappedCatalogSnapshot.write(
+                directory.resolve("expected"),
+                new ArrayList<>(expected.values()),
+                categories,
+                productMapper
+            );
+            assertSameProducts(snapshot, rewritten);
+        }
+        assertThat(snapshot.findCategory(2L)).get().extracting(ProductCategoryDTO::getName).isEqualTo("category 2");
+    }
+
+    @Test
+    void withProductsRemovesEveryProduct() throws Exception {
+        CatalogSnapshot snapshot = MappedCatalogSnapshot.write(
+            directory.resolve("snapshot"),
+            List.of(product(1L), product(2L)),
+            categories,
+            productMapper
+        );
+        Map<Long, ProductDTO> changes = new HashMap<>();
+        changes.put(1L, null);
+        changes.put(2L, null);
+
+        snapshot = snapshot.withProducts(changes);
+
+        assertThat(snapshot.getProductCount()).isZero();
+        assertThat(snapshot.findProducts(PageRequest.of(0, 10, Sort.by("name", "id")))).get().satisfies(page -> assertThat(page).isEmpty());
+        assertThat(snapshot.getCategoryCount()).isEqualTo(3);
+    }
+
+    @Test
+    void toDtoMapsAsTheProductMapper() throws Exception {
+        ProductDTO product = product(7L);
+        product.setImageKey("key");
+        product.setImageContentType("image/png");
+        CatalogSnapshot snapshot = MappedCatalogSnapshot.write(directory.resolve("snapshot"), List.of(product), categories, productMapper);
+
+        ProductDTO read = snapshot.findProduct(7L).orElseThrow();
+
+        assertThat(read.getImageUrl()).isEqualTo("/api/products/7/image");
+        assertThat(read.getProductCategory().getName()).isEqualTo("category " + product.getProductCategory().getId());
+        assertThat(read.getProductCategory().getDescription()).isNull();
+    }
+
+    private void assertSameProducts(CatalogSnapshot actual, CatalogSnapshot expected) {
+        assertThat(actual.getProductCount()).isEqualTo(expected.getProductCount());
+        for (Sort sort : List.of(Sort.by("id"), Sort.by("name", "id"), Sort.by(Sort.Direction.DESC, "price", "id"))) {
+            PageRequest all = PageRequest.of(0, Math.max(1, expected.getProductCount()), sort);
+            assertThat(actual.findProducts(all).orElseThrow().getContent())
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(expected.findProducts(all).orElseThrow().getContent());
+        }
+    }
+
+    private ProductDTO product(long id) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        // Few distinct names and prices, so that the orders fall back on the id.
+        product.setName(random.nextInt(10) == 0 ? null : "product " + random.nextInt(20));
+        product.setDescription("description " + random.nextInt(1000));
+        product.setPrice(BigDecimal.valueOf(random.nextInt(50), 2));
+        product.setProductSize(Size.values()[random.nextInt(Size.values().length)]);
+        ProductCategoryDTO category = new ProductCategoryDTO();
+        category.setId(1L + random.nextInt(3));
+        product.setProductCategory(category);
+        return product;
+    }
+}
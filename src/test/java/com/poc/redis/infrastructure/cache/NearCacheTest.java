@@ -0,0 +1,128 @@
+package com.poc.redis.infrastructure.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+class NearCacheTest {
+
+    /**
+     * Run by the next lookup in L2, before it reads the key.
+     */
+    private Runnable beforeLookup = () -> {};
+
+    private final ConcurrentMapCache l2 = new ConcurrentMapCache("test") {
+        @Override
+        protected Object lookup(Object key) {
+            Runnable hook = beforeLookup;
+            beforeLookup = () -> {};
+            hook.run();
+            return super.lookup(key);
+        }
+    };
+
+    @Test
+    void servesL1UntilItExpires() throws InterruptedException {
+        NearCache cache = nearCache(Duration.ofMillis(100));
+        cache.put("key", "first");
+        // Written behind the back of the near cache, as another node reloading early would.
+        l2.put("key", "second");
+
+        assertThat(cache.get("key").get()).isEqualTo("first");
+        Thread.sleep(150);
+        assertThat(cache.get("key").get()).isEqualTo("second");
+    }
+
+    @Test
+    void loadsThroughL2OnceL1Expired() throws InterruptedException {
+        NearCache cache = nearCache(Duration.ofMillis(100));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get("key", loads::incrementAndGet)).isEqualTo(1);
+        assertThat(cache.get("key", loads::incrementAndGet)).isEqualTo(1);
+        l2.evict("key");
+        assertThat(cache.get("key", loads::incrementAndGet)).isEqualTo(1);
+        Thread.sleep(150);
+        assertThat(cache.get("key", loads::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotPromoteAValueReadWhileItsKeyWasInvalidated() {
+        NearCache cache = nearCache(Duration.ofMinutes(1));
+        l2.put("key", "first");
+        beforeLookup = () -> cache.evict("key");
+
+        assertThat(cache.get("key")).isNull();
+        l2.put("key", "second");
+        assertThat(cache.get("key").get()).isEqualTo("second");
+    }
+
+    @Test
+    void promotesAValueReadWhileAnotherKeyWasInvalidated() {
+        NearCache cache = nearCache(Duration.ofMinutes(1));
+        l2.put("key", "first");
+        beforeLookup = () -> cache.evict("other");
+
+        assertThat(cache.get("key").get()).isEqualTo("first");
+        l2.put("key", "second");
+        assertThat(cache.get("key").get()).isEqualTo("first");
+    }
+
+    @Test
+    void doesNotPromoteANullLoaded() {
+        NearCache cache = nearCache(Duration.ofMinutes(1));
+        String loaded = cache.get("key", () -> null);
+
+        assertThat(loaded).isNull();
+        l2.put("key", "loaded");
+        assertThat(cache.get("key").get()).isEqualTo("loaded");
+    }
+
+    @Test
+    void nearCacheManagerCapsTheL1TimeToLive() {
+        ApplicationProperties.CacheSpec spec = new ApplicationProperties.CacheSpec();
+        spec.setTtl(Duration.ofHours(1));
+        spec.setMaxIdle(Duration.ofMinutes(3));
+        spec.getNearCache().setTtl(Duration.ofHours(2));
+
+        assertThat(timeToLive(spec)).isEqualTo(Duration.ofMinutes(3));
+        spec.setMaxIdle(null);
+        assertThat(timeToLive(spec)).isEqualTo(Duration.ofHours(1));
+        spec.getNearCache().setTtl(null);
+        assertThat(timeToLive(spec)).isEqualTo(Duration.ofMinutes(6));
+    }
+
+    private NearCache nearCache(Duration timeToLive) {
+        return new NearCache(
+            "test",
+            l2,
+            10,
+            timeToLive,
+            mock(RTopic.class),
+            "origin",
+            new RedisCircuitBreaker(new ApplicationProperties.CircuitBreaker())
+        );
+    }
+
+    private Duration timeToLive(ApplicationProperties.CacheSpec spec) {
+        ApplicationProperties.Cache properties = new ApplicationProperties.Cache();
+        spec.getNearCache().setEnabled(true);
+        properties.getCaches().put("test", spec);
+        NearCacheManager manager = new NearCacheManager(
+            new ConcurrentMapCacheManager("test"),
+            mock(RedissonClient.class, invocation -> mock(RTopic.class)),
+            new RedisCircuitBreaker(new ApplicationProperties.CircuitBreaker()),
+            properties,
+            Duration.ofHours(1)
+        );
+        return ((NearCache) manager.getCache("test")).getTimeToLive();
+    }
+}
@@ -0,0 +1,85 @@
+package com.poc.redis.infrastructure.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RedisCircuitBreakerTest {
+
+    private RedisCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties.CircuitBreaker properties = new ApplicationProperties.CircuitBreaker();
+        properties.setMinimumCalls(1);
+        properties.setOpenDuration(Duration.ZERO);
+        properties.setRebuildJitter(Duration.ofMillis(200));
+        circuitBreaker = new RedisCircuitBreaker(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        circuitBreaker.destroy();
+    }
+
+    @Test
+    void opensOnFailuresAndClosesOnASuccessfulProbe() {
+        circuitBreaker.onFailure(new IllegalStateException("down"));
+
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+        circuitBreaker.onSuccess(0);
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void runsTheCloseListenersOffTheCallingThreadInOrder() throws InterruptedException {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        circuitBreaker.addRebuildListener(() -> {
+            calls.add("rebuild");
+            done.countDown();
+        });
+        circuitBreaker.addCloseListener(() -> {
+            calls.add("resync on " + Thread.currentThread().getName());
+            done.countDown();
+        });
+        circuitBreaker.addCloseListener(() -> {
+            calls.add("invalidate");
+            done.countDown();
+        });
+
+        circuitBreaker.onFailure(null);
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onSuccess(0);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(calls.get(0)).startsWith("resync on redis-circuit-breaker-");
+        assertThat(calls.get(1)).isEqualTo("invalidate");
+        assertThat(calls).contains("rebuild");
+    }
+
+    @Test
+    void keepsRunningTheListenersWhenOneFails() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        circuitBreaker.addCloseListener(() -> {
+            throw new IllegalStateException("failed");
+        });
+        circuitBreaker.addCloseListener(done::countDown);
+
+        circuitBreaker.onFailure(null);
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onSuccess(0);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,197 @@
+package com.poc.redis.infrastructure.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.redisson.spring.cache.CacheConfig;
+import org.redisson.spring.cache.RedissonSpringCacheManager;
+import org.springframework.cache.Cache;
+import redis.embedded.RedisServer;
+
+/**
+ * Two nodes sharing a Redis cache, through the near cache and the circuit breaker, while Redis is killed then
+ * started again with the data it had.
+ */
+class RedisOutageTest {
+
+    private static final String CACHE = "test";
+
+    /**
+     * The default {@code application.cache.command-timeout}.
+     */
+    private static final Duration COMMAND_TIMEOUT = new ApplicationProperties.Cache().getCommandTimeout();
+
+    /**
+     * Time allowed on top of the command timeout to a call while Redis is down.
+     */
+    private static final Duration LATENCY_MARGIN = Duration.ofMillis(100);
+
+    @TempDir
+    Path directory;
+
+    private int port;
+
+    private RedisServer redis;
+
+    private Node first;
+
+    private Node second;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redis = startRedis();
+        first = new Node();
+        second = new Node();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        first.close();
+        second.close();
+        redis.stop();
+    }
+
+    @Test
+    void nodesDropTheValuesWrittenWhileRedisWasDown() throws Exception {
+        // Listening after the near cache, on the same connection: notified once the near cache was.
+        AtomicInteger invalidations = new AtomicInteger();
+        second.redissonClient
+            .getTopic(CACHE + NearCacheManager.INVALIDATION_TOPIC_SUFFIX)
+            .addListener(NearCache.Invalidation.class, (channel, invalidation) -> invalidations.incrementAndGet());
+        first.cache.put("key", "before");
+        // Lets the invalidation of the put reach the other node before it reads the key.
+        await(() -> invalidations.get() == 1);
+        assertThat(second.cache.get("key").get()).isEqualTo("before");
+
+        redis.stop();
+        // Cannot reach Redis nor the other node: kept locally, and evicted from Redis once it is back.
+        first.cache.put("key", "during");
+        assertThat(first.circuitBreaker.isOpen()).isTrue();
+        assertThat(first.cache.get("key").get()).isEqualTo("during");
+        // Still served from the near cache of the other node, that does not know.
+        assertThat(second.cache.get("key").get()).isEqualTo("before");
+        // Neither reads nor loads wait on Redis past the command timeout: the first ones failing open the circuit.
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String key = "outage-" + i;
+            long start = System.nanoTime();
+            assertThat(second.cache.get(key)).isNull();
+            latencies.add(System.nanoTime() - start);
+            start = System.nanoTime();
+            assertThat(second.cache.get(key, () -> "loaded")).isEqualTo("loaded");
+            latencies.add(System.nanoTime() - start);
+        }
+        assertThat(second.circuitBreaker.isOpen()).isTrue();
+        Collections.sort(latencies);
+        Duration p99 = Duration.ofNanos(latencies.get(latencies.size() * 99 / 100 - 1));
+        assertThat(p99).isLessThan(COMMAND_TIMEOUT.plus(LATENCY_MARGIN));
+
+        redis = startRedis();
+        // Any call after the open duration probes Redis and closes the circuit.
+        await(() -> {
+            first.cache.get("probe");
+            return !first.circuitBreaker.isOpen();
+        });
+
+        // The first node evicted the stale entry from Redis, the second dropped its near cache on resubscribing.
+        await(() -> first.cache.get("key") == null && second.cache.get("key") == null);
+        assertThat(first.cache.get("key", () -> "after")).isEqualTo("after");
+        assertThat(second.cache.get("key").get()).isEqualTo("after");
+    }
+
+    private RedisServer startRedis() throws IOException {
+        RedisServer server = RedisServer
+            .newRedisServer()
+            .port(port)
+            .setting("bind 127.0.0.1")
+            .setting("dir " + directory)
+            .setting("appendonly yes")
+            .setting("appendfsync always")
+            .build();
+        server.start();
+        return server;
+    }
+
+    private static void await(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!condition.get()) {
+            assertThat(System.nanoTime()).as("condition met within 30 seconds").isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+
+    private final class Node {
+
+        final RedissonClient redissonClient;
+
+        final RedisCircuitBreaker circuitBreaker;
+
+        final NearCacheManager cacheManager;
+
+        final Cache cache;
+
+        Node() {
+            Config config = new Config();
+            config
+                .useSingleServer()
+                .setAddress("redis://127.0.0.1:" + port)
+                .setTimeout((int) COMMAND_TIMEOUT.toMillis())
+                .setConnectTimeout((int) COMMAND_TIMEOUT.toMillis())
+                .setRetryAttempts(0)
+                .setConnectionMinimumIdleSize(1)
+                .setSubscriptionConnectionMinimumIdleSize(1);
+            redissonClient = Redisson.create(config);
+
+            ApplicationProperties.CircuitBreaker circuitBreakerProperties = new ApplicationProperties.CircuitBreaker();
+            circuitBreakerProperties.setMinimumCalls(1);
+            circuitBreakerProperties.setSlowCallThreshold(Duration.ofSeconds(5));
+            circuitBreakerProperties.setOpenDuration(Duration.ofMillis(500));
+            circuitBreakerProperties.setRebuildJitter(Duration.ZERO);
+            circuitBreaker = new RedisCircuitBreaker(circuitBreakerProperties);
+
+            ApplicationProperties.Cache cacheProperties = new ApplicationProperties.Cache();
+            ApplicationProperties.CacheSpec spec = new ApplicationProperties.CacheSpec();
+            spec.getNearCache().setEnabled(true);
+            cacheProperties.getCaches().put(CACHE, spec);
+            cacheManager =
+                new NearCacheManager(
+                    new CircuitBreakingCacheManager(
+                        new RedissonSpringCacheManager(redissonClient, Map.of(CACHE, new CacheConfig())),
+                        circuitBreaker,
+                        100
+                    ),
+                    redissonClient,
+                    circuitBreaker,
+                    cacheProperties,
+                    Duration.ofHours(1)
+                );
+            cache = cacheManager.getCache(CACHE);
+        }
+
+        void close() {
+            cacheManager.destroy();
+            circuitBreaker.destroy();
+            redissonClient.shutdown();
+        }
+    }
+}
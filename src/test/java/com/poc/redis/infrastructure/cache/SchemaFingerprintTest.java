@@ -0,0 +1,72 @@
+package com.poc.redis.infrastructure.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.domain.model.User;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SchemaFingerprintTest {
+
+    @Test
+    void fingerprintIsAShortStableHash() {
+        assertThat(SchemaFingerprint.of(ProductDTO.class)).matches("[0-9a-f]{16}").isEqualTo(SchemaFingerprint.of(ProductDTO.class));
+        assertThat(SchemaFingerprint.of(ProductDTO.class)).isNotEqualTo(SchemaFingerprint.of(User.class));
+    }
+
+    @Test
+    void layoutCoversTheInstanceFieldsOfTheHierarchyOnly() {
+        String layout = SchemaFingerprint.layout(Child.class);
+
+        assertThat(layout)
+            .contains("name:java.lang.String;")
+            .contains("count:int;")
+            .contains("tags:java.util.List<java.lang.String>;")
+            .doesNotContain("CONSTANT")
+            .doesNotContain("cached");
+        // Sorted by name, the subclass first, whatever the order of declaration.
+        assertThat(layout.indexOf("count:")).isLessThan(layout.indexOf("tags:"));
+        assertThat(layout.indexOf("tags:")).isLessThan(layout.indexOf("name:"));
+    }
+
+    @Test
+    void layoutFollowsTheApplicationTypesOnce() {
+        String layout = SchemaFingerprint.layout(Tree.class);
+
+        assertThat(layout)
+            .contains(Color.class.getName() + "{RED,GREEN,}")
+            .contains("@" + Tree.class.getName() + ";")
+            .doesNotContain("java.lang.String{");
+    }
+
+    static class Parent {
+
+        private String name;
+    }
+
+    static class Child extends Parent {
+
+        private static final String CONSTANT = "constant";
+
+        private List<String> tags;
+
+        private int count;
+
+        private transient Object cached;
+    }
+
+    enum Color {
+        RED,
+        GREEN,
+    }
+
+    static class Tree {
+
+        private String label;
+
+        private Color color;
+
+        private List<Tree> children;
+    }
+}
@@ -0,0 +1,105 @@
+package com.poc.redis.infrastructure.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.poc.redis.application.usecase.ProductUsecase;
+import com.poc.redis.infrastructure.cache.AccessFrequencySketch;
+import com.poc.redis.infrastructure.cache.AccessFrequencySketches;
+import com.poc.redis.infrastructure.cache.RedisCircuitBreaker;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.repository.ProductRepository;
+import com.poc.redis.infrastructure.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.ServerSocket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+class CacheWarmUpServiceTest {
+
+    private static final String ACCESS_COUNTS = CacheWarmUpService.ACCESS_FREQUENCY_KEY_PREFIX + ProductRepository.PRODUCTS_CACHE;
+
+    private RedisServer redis;
+
+    private RedissonClient redissonClient;
+
+    private RedisCircuitBreaker circuitBreaker;
+
+    private AccessFrequencySketch sketch;
+
+    private CacheWarmUpService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redis = RedisServer.newRedisServer().port(port).setting("bind 127.0.0.1").build();
+        redis.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+        ApplicationProperties properties = new ApplicationProperties();
+        circuitBreaker = new RedisCircuitBreaker(properties.getCache().getCircuitBreaker());
+        AccessFrequencySketches sketches = new AccessFrequencySketches(100);
+        sketch = sketches.getSketch(ProductRepository.PRODUCTS_CACHE);
+        service =
+            new CacheWarmUpService(
+                redissonClient,
+                sketches,
+                circuitBreaker,
+                properties,
+                new SimpleMeterRegistry(),
+                mock(UserRepository.class),
+                mock(ProductUsecase.class)
+            );
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        circuitBreaker.destroy();
+        redissonClient.shutdown();
+        redis.stop();
+    }
+
+    @Test
+    void halvesTheAccessCountsOncePerHalfLife() {
+        record(1L, 8);
+        service.persistAccessCounts();
+        record(2L, 2);
+        service.persistAccessCounts();
+        RScoredSortedSet<Object> accessCounts = redissonClient.getScoredSortedSet(ACCESS_COUNTS);
+        assertThat(accessCounts.getScore(1L)).isEqualTo(8.0);
+        assertThat(accessCounts.getScore(2L)).isEqualTo(2.0);
+
+        // A half-life later.
+        redissonClient.getBucket(ACCESS_COUNTS + CacheWarmUpService.DECAYED_KEY_SUFFIX).delete();
+        record(2L, 5);
+        service.persistAccessCounts();
+
+        assertThat(accessCounts.getScore(1L)).isEqualTo(4.0);
+        assertThat(accessCounts.getScore(2L)).isEqualTo(6.0);
+        assertThat(accessCounts.valueRangeReversed(0, -1)).containsExactly(2L, 1L);
+
+        // Halved without any access either.
+        redissonClient.getBucket(ACCESS_COUNTS + CacheWarmUpService.DECAYED_KEY_SUFFIX).delete();
+        service.persistAccessCounts();
+
+        assertThat(accessCounts.getScore(1L)).isEqualTo(2.0);
+        assertThat(accessCounts.getScore(2L)).isEqualTo(3.0);
+    }
+
+    private void record(Long key, int accesses) {
+        for (int i = 0; i < accesses; i++) {
+            sketch.record(key);
+        }
+    }
+}
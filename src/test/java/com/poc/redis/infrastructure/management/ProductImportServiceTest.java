@@ -0,0 +1,103 @@
+package com.poc.redis.infrastructure.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.poc.redis.application.dto.ProductBulkResultDTO;
+import com.poc.redis.application.mapper.ProductMapperImpl;
+import com.poc.redis.application.usecase.ProductUsecase;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.repository.ProductCategoryRepository;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProductImportServiceTest {
+
+    private static final String CSV = "name;price;product_size\nShirt;9.99;M\n";
+
+    @TempDir
+    Path directory;
+
+    private final ProductUsecase productUsecase = mock(ProductUsecase.class);
+
+    private ProductImportService service;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getBulk().setImportDirectory(directory.toString());
+        service = new ProductImportService(productUsecase, mock(ProductCategoryRepository.class), new ProductMapperImpl(), properties);
+        when(productUsecase.saveAll(anyList()))
+            .thenReturn(List.of(new ProductBulkResultDTO(0, ProductBulkResultDTO.Status.CREATED, 1L, List.of())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void queuesAgainTheImportsLeftByTheLastStop() throws Exception {
+        Files.writeString(directory.resolve("queued.csv"), CSV);
+        Files.writeString(directory.resolve("running.csv.importing"), CSV);
+        Files.writeString(directory.resolve("partial.csv.uploading"), "name;pri");
+
+        service.run(null);
+
+        ProductImportJob queued = service.findOne("queued").orElseThrow();
+        awaitFinished(queued);
+        assertThat(queued.getState()).isEqualTo(ProductImportJob.State.COMPLETED);
+        assertThat(queued.getCreated()).isEqualTo(1);
+        ProductImportJob running = service.findOne("running").orElseThrow();
+        assertThat(running.getState()).isEqualTo(ProductImportJob.State.FAILED);
+        assertThat(running.getCreated()).isZero();
+        assertThat(service.findOne("partial")).isEmpty();
+        assertNoFileLeft();
+    }
+
+    @Test
+    void leavesNoFileOnceImported() throws Exception {
+        ProductImportJob job = service.submit(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)));
+
+        awaitFinished(job);
+
+        assertThat(job.getState()).isEqualTo(ProductImportJob.State.COMPLETED);
+        assertNoFileLeft();
+    }
+
+    /**
+     * Files are deleted once the import finished.
+     */
+    private void assertNoFileLeft() throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (fileCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(fileCount()).isZero();
+    }
+
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static void awaitFinished(ProductImportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (job.getFinishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
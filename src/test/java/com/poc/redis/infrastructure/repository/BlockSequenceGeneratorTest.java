@@ -0,0 +1,116 @@
+package com.poc.redis.infrastructure.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import org.hibernate.MappingException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BlockSequenceGeneratorTest {
+
+    private static final String URL = "jdbc:h2:mem:block-sequence;DB_CLOSE_DELAY=-1";
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create sequence item_sequence start with 1050 increment by 500");
+            statement.execute("create table item (id bigint primary key)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    void reservesTheIdsByBlocksOfTheConfiguredSize() throws SQLException {
+        try (SessionFactory sessionFactory = sessionFactory(500); Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < 501; i++) {
+                session.persist(new Item());
+            }
+            session.getTransaction().commit();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            var ids = statement.executeQuery("select min(id), max(id) from item");
+            ids.next();
+            assertThat(ids.getLong(1)).isEqualTo(1050L);
+            assertThat(ids.getLong(2)).isEqualTo(1550L);
+            var sequence = statement.executeQuery(
+                "select base_value from information_schema.sequences where sequence_name = 'ITEM_SEQUENCE'"
+            );
+            sequence.next();
+            assertThat(sequence.getLong(1)).as("two calls to the sequence").isEqualTo(2050L);
+        }
+    }
+
+    @Test
+    void failsOnStartupWhenTheBlockSizeIsNotTheIncrementOfTheSequence() {
+        assertThatThrownBy(() -> sessionFactory(1000).close())
+            .isInstanceOf(MappingException.class)
+            .getRootCause()
+            .hasMessageContaining("[item_sequence] sequence is set to [1000]");
+    }
+
+    @Test
+    void failsOnStartupWhenTheBlockSizeIsMissing() {
+        assertThatThrownBy(() -> sessionFactory(null).close())
+            .isInstanceOf(MappingException.class)
+            .getRootCause()
+            .hasMessageContaining(BlockSequenceGenerator.BLOCK_SIZES_SETTING);
+    }
+
+    private SessionFactory sessionFactory(Integer blockSize) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+            .applySetting(AvailableSettings.URL, URL)
+            .applySetting(AvailableSettings.HBM2DDL_AUTO, "none")
+            .applySetting(BlockSequenceGenerator.BLOCK_SIZES_SETTING, blockSize == null ? Map.of() : Map.of("item_sequence", blockSize))
+            .build();
+        try {
+            return new MetadataSources(registry).addAnnotatedClass(Item.class).buildMetadata().buildSessionFactory();
+        } catch (RuntimeException e) {
+            StandardServiceRegistryBuilder.destroy(registry);
+            throw e;
+        }
+    }
+
+    @Entity(name = "item")
+    static class Item {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "itemSequenceGenerator")
+        @GenericGenerator(
+            name = "itemSequenceGenerator",
+            strategy = "com.poc.redis.infrastructure.repository.BlockSequenceGenerator",
+            parameters = @Parameter(name = "sequence_name", value = "item_sequence")
+        )
+        private Long id;
+    }
+}
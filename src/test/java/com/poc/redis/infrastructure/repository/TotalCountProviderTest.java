@@ -0,0 +1,134 @@
+package com.poc.redis.infrastructure.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.poc.redis.domain.model.User;
+import com.poc.redis.infrastructure.cache.RedisCircuitBreaker;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redis.embedded.RedisServer;
+
+class TotalCountProviderTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private RedisCircuitBreaker circuitBreaker;
+
+    private TotalCountProvider provider;
+
+    private RedisServer redis;
+
+    private RedissonClient redissonClient;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getCache().getTotalCount().setEnabled(false);
+        circuitBreaker = new RedisCircuitBreaker(properties.getCache().getCircuitBreaker());
+        provider = new TotalCountProvider(mock(RedissonClient.class), circuitBreaker, jdbcTemplate, properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        circuitBreaker.destroy();
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+            redis.stop();
+        }
+    }
+
+    @Test
+    void estimatesTheTotalOfAWholeTableFromItsStatistics() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("jhi_user"))).thenReturn(List.of(42L));
+
+        assertThat(provider.getTotalCount("users", User.class, true, () -> 7L)).isEqualTo(42L);
+        assertThat(provider.getTotalCount("users", User.class, false, () -> 7L)).isEqualTo(7L);
+    }
+
+    @Test
+    void countsTheListingsOfPartOfATable() {
+        assertThat(provider.getTotalCount(UserRepository.ACTIVATED_USERS_COUNT, () -> 7L)).isEqualTo(7L);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void cachesTheTotalAndAdjustsIt() throws IOException {
+        TotalCountProvider cached = providerOnRedis();
+
+        assertThat(cached.getTotalCount("products", () -> 7L)).isEqualTo(7L);
+        assertThat(cached.getTotalCount("products", () -> 0L)).isEqualTo(7L);
+        cached.adjust("products", 2);
+        assertThat(cached.getTotalCount("products", () -> 0L)).isEqualTo(9L);
+    }
+
+    @Test
+    void doesNotCacheATotalCountedWhileRowsWereWritten() throws IOException {
+        TotalCountProvider cached = providerOnRedis();
+
+        // A product created once the rows were counted, before the total was cached.
+        long total = cached.getTotalCount(
+            "products",
+            () -> {
+                cached.adjust("products", 1);
+                return 7L;
+            }
+        );
+
+        assertThat(total).isEqualTo(7L);
+        // Counted again rather than missing the product until the total expires.
+        assertThat(cached.getTotalCount("products", () -> 8L)).isEqualTo(8L);
+        assertThat(cached.getTotalCount("products", () -> 0L)).isEqualTo(8L);
+    }
+
+    @Test
+    void doesNotCacheATotalCountedWhileAWriteIsInFlight() throws IOException {
+        TotalCountProvider cached = providerOnRedis();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cached.adjust("products", 1);
+            // The row may be committed while the others are counted, or not.
+            assertThat(cached.getTotalCount("products", () -> 7L)).isEqualTo(7L);
+            TransactionSynchronizationManager
+                .getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cached.getTotalCount("products", () -> 8L)).isEqualTo(8L);
+        assertThat(cached.getTotalCount("products", () -> 0L)).isEqualTo(8L);
+    }
+
+    private TotalCountProvider providerOnRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redis = RedisServer.newRedisServer().port(port).setting("bind 127.0.0.1").build();
+        redis.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port).setConnectionMinimumIdleSize(1);
+        redissonClient = Redisson.create(config);
+        return new TotalCountProvider(redissonClient, circuitBreaker, jdbcTemplate, new ApplicationProperties());
+    }
+}
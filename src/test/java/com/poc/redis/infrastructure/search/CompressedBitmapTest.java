@@ -0,0 +1,237 @@
+package com.poc.redis.infrastructure.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+
+class CompressedBitmapTest {
+
+    @Test
+    void switchesFromArrayToBitmapAndBack() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = 0; value < 4096 * 2; value += 2) {
+            bitmap.add(value);
+        }
+        assertThat(bitmap.sizeInBytes()).as("array").isEqualTo(4096 * 2);
+
+        bitmap.add(1);
+        assertThat(bitmap.sizeInBytes()).as("bitmap").isEqualTo(8192);
+        assertThat(bitmap.cardinality()).isEqualTo(4097);
+
+        bitmap.remove(0);
+        assertThat(bitmap.sizeInBytes()).as("array").isEqualTo(4096 * 2);
+        assertThat(bitmap.contains(1)).isTrue();
+        assertThat(bitmap.contains(0)).isFalse();
+        assertThat(bitmap.contains(8190)).isTrue();
+    }
+
+    @Test
+    void storesConsecutiveValuesAsRuns() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = 0; value < 100_000; value++) {
+            bitmap.add(value);
+        }
+        bitmap.runOptimize();
+        // One run in each of the two groups.
+        assertThat(bitmap.sizeInBytes()).isEqualTo(8);
+        assertThat(bitmap.cardinality()).isEqualTo(100_000);
+
+        bitmap.remove(500);
+        bitmap.remove(0);
+        bitmap.remove(65535);
+        bitmap.add(100_001);
+        assertThat(bitmap.sizeInBytes()).isEqualTo(16);
+        assertThat(bitmap.cardinality()).isEqualTo(99_998);
+        assertThat(bitmap.contains(499)).isTrue();
+        assertThat(bitmap.contains(500)).isFalse();
+        assertThat(bitmap.contains(65536)).isTrue();
+        assertThat(bitmap.contains(100_000)).isFalse();
+
+        bitmap.add(500);
+        assertThat(bitmap.sizeInBytes()).isEqualTo(12);
+    }
+
+    @Test
+    void switchesFromRunsBackOnceTooFragmented() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = 0; value < 65536; value++) {
+            bitmap.add(value);
+        }
+        bitmap.runOptimize();
+        assertThat(bitmap.sizeInBytes()).isEqualTo(4);
+
+        // Each value removed inside a run splits it.
+        for (int value = 1; value < 2047 * 2; value += 2) {
+            bitmap.remove(value);
+        }
+        assertThat(bitmap.sizeInBytes()).as("runs").isEqualTo(2048 * 4);
+        bitmap.remove(5000);
+        assertThat(bitmap.sizeInBytes()).as("bitmap").isEqualTo(8192);
+        assertThat(bitmap.cardinality()).isEqualTo(65536 - 2048);
+
+        // A few sparse values take less memory as an array.
+        CompressedBitmap sparse = new CompressedBitmap();
+        sparse.add(3);
+        sparse.add(300);
+        sparse.runOptimize();
+        assertThat(sparse.sizeInBytes()).isEqualTo(4);
+        assertThat(toList(sparse)).containsExactly(3, 300);
+    }
+
+    @Test
+    void combinesEveryPairOfRepresentations() {
+        Random random = new Random(42);
+        List<TreeSet<Integer>> sets = new ArrayList<>();
+        List<CompressedBitmap> bitmaps = new ArrayList<>();
+        for (Representation representation : Representation.values()) {
+            TreeSet<Integer> set = representation.values(random);
+            sets.add(set);
+            bitmaps.add(toBitmap(set, representation == Representation.RUNS));
+        }
+        for (int i = 0; i < bitmaps.size(); i++) {
+            for (int j = 0; j < bitmaps.size(); j++) {
+                String pair = Representation.values()[i] + " and " + Representation.values()[j];
+                CompressedBitmap left = bitmaps.get(i);
+                CompressedBitmap right = bitmaps.get(j);
+                assertCombination(pair + ": and", left.and(right), sets.get(i), sets.get(j), (a, b) -> {
+                    a.retainAll(b);
+                    return a;
+                });
+                assertCombination(pair + ": or", left.or(right), sets.get(i), sets.get(j), (a, b) -> {
+                    a.addAll(b);
+                    return a;
+                });
+                assertCombination(pair + ": and not", left.andNot(right), sets.get(i), sets.get(j), (a, b) -> {
+                    a.removeAll(b);
+                    return a;
+                });
+                TreeSet<Integer> intersection = new TreeSet<>(sets.get(i));
+                intersection.retainAll(sets.get(j));
+                assertThat(left.andCardinality(right)).as(pair + ": and cardinality").isEqualTo(intersection.size());
+            }
+        }
+        // The operands are left as they were.
+        for (int i = 0; i < bitmaps.size(); i++) {
+            assertThat(toList(bitmaps.get(i))).isEqualTo(new ArrayList<>(sets.get(i)));
+        }
+    }
+
+    @Test
+    void resultsShareNothingWithTheirOperands() {
+        CompressedBitmap runs = toBitmap(new TreeSet<>(List.of(1, 2, 3, 70_000)), true);
+        CompressedBitmap empty = new CompressedBitmap();
+
+        CompressedBitmap copy = runs.andNot(empty);
+        copy.remove(2);
+        CompressedBitmap union = runs.or(empty);
+        union.add(4);
+
+        assertThat(toList(runs)).containsExactly(1, 2, 3, 70_000);
+        assertThat(toList(copy)).containsExactly(1, 3, 70_000);
+        assertThat(toList(union)).containsExactly(1, 2, 3, 4, 70_000);
+        assertThat(runs.andNot(runs).cardinality()).isZero();
+    }
+
+    @Test
+    void matchesASetUnderRandomUpdates() {
+        Random random = new Random(7);
+        TreeSet<Integer> set = new TreeSet<>();
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int round = 0; round < 20; round++) {
+            // Alternates dense ranges and sparse values, so that groups go through every representation.
+            int from = random.nextInt(3 * 65536);
+            for (int k = 0; k < 5000; k++) {
+                int value = random.nextBoolean() ? from + k : random.nextInt(4 * 65536);
+                if (random.nextInt(4) == 0) {
+                    set.remove(value);
+                    bitmap.remove(value);
+                } else {
+                    set.add(value);
+                    bitmap.add(value);
+                }
+            }
+            if (round % 3 == 0) {
+                bitmap.runOptimize();
+            }
+            assertThat(bitmap.cardinality()).isEqualTo(set.size());
+            assertThat(toList(bitmap)).isEqualTo(new ArrayList<>(set));
+        }
+    }
+
+    private static void assertCombination(
+        String description,
+        CompressedBitmap actual,
+        TreeSet<Integer> left,
+        TreeSet<Integer> right,
+        BiFunction<TreeSet<Integer>, TreeSet<Integer>, TreeSet<Integer>> expected
+    ) {
+        List<Integer> values = new ArrayList<>(expected.apply(new TreeSet<>(left), right));
+        assertThat(toList(actual)).as(description).isEqualTo(values);
+        assertThat(actual.cardinality()).as(description).isEqualTo(values.size());
+    }
+
+    private static CompressedBitmap toBitmap(TreeSet<Integer> values, boolean runOptimize) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        values.forEach(bitmap::add);
+        if (runOptimize) {
+            bitmap.runOptimize();
+        }
+        return bitmap;
+    }
+
+    private static List<Integer> toList(CompressedBitmap bitmap) {
+        List<Integer> values = new ArrayList<>();
+        for (PrimitiveIterator.OfInt iterator = bitmap.iterator(); iterator.hasNext();) {
+            values.add(iterator.nextInt());
+        }
+        return values;
+    }
+
+    /**
+     * Values spread over the same two groups, each stored in one representation once built.
+     */
+    private enum Representation {
+        ARRAY {
+            @Override
+            TreeSet<Integer> values(Random random) {
+                return randomValues(random, 1000);
+            }
+        },
+        BITMAP {
+            @Override
+            TreeSet<Integer> values(Random random) {
+                return randomValues(random, 30_000);
+            }
+        },
+        RUNS {
+            @Override
+            TreeSet<Integer> values(Random random) {
+                TreeSet<Integer> values = new TreeSet<>();
+                for (int run = 0; run < 50; run++) {
+                    int start = random.nextInt(2 * 65536 - 2000);
+                    int end = start + random.nextInt(2000);
+                    for (int value = start; value < end; value++) {
+                        values.add(value);
+                    }
+                }
+                return values;
+            }
+        };
+
+        abstract TreeSet<Integer> values(Random random);
+
+        private static TreeSet<Integer> randomValues(Random random, int count) {
+            TreeSet<Integer> values = new TreeSet<>();
+            while (values.size() < count) {
+                values.add(random.nextInt(2 * 65536));
+            }
+            return values;
+        }
+    }
+}
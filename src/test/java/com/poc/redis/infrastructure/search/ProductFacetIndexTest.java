@@ -0,0 +1,133 @@
+package com.poc.redis.infrastructure.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.dto.ProductFacetsDTO;
+import com.poc.redis.domain.enumeration.Size;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+class ProductFacetIndexTest {
+
+    private final ProductFacetIndex index = new ProductFacetIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.putAll(
+            List.of(
+                product(1L, "10.00", 1L, Size.S),
+                // Rounded to the nearest cent when indexed.
+                product(2L, "10.005", 1L, Size.M),
+                product(3L, "20.00", 2L, Size.S),
+                product(4L, null, 2L, Size.L),
+                product(5L, "20.00", 2L, Size.M)
+            )
+        );
+    }
+
+    @Test
+    void priceBoundsAreInclusive() {
+        assertThat(ids(null, null)).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(ids("10.00", "20.00")).containsExactly(1L, 2L, 3L, 5L);
+        assertThat(ids("10.01", "10.01")).containsExactly(2L);
+        assertThat(ids("20", null)).containsExactly(3L, 5L);
+        assertThat(ids(null, "10")).containsExactly(1L);
+        assertThat(ids("20.01", null)).isEmpty();
+        assertThat(ids(null, "9.99")).isEmpty();
+        assertThat(ids("15", "12")).isEmpty();
+    }
+
+    @Test
+    void fractionalCentBoundsKeepThePricesWithinThem() {
+        assertThat(ids("10.001", null)).containsExactly(2L, 3L, 5L);
+        assertThat(ids(null, "20.009")).containsExactly(1L, 2L, 3L, 5L);
+        assertThat(ids(null, "19.999")).containsExactly(1L, 2L);
+        assertThat(ids("10.001", "10.019")).containsExactly(2L);
+        assertThat(ids("10.011", "10.019")).isEmpty();
+        assertThat(ids("10.001", "10.009")).isEmpty();
+    }
+
+    @Test
+    void priceFacetsIgnoreThePriceFilterOnly() {
+        ProductFacetsDTO facets = index.facets(List.of(2L), List.of(), new BigDecimal("15"), null, Pageable.unpaged());
+
+        assertThat(facets.getIds()).containsExactly(3L, 5L);
+        assertThat(facets.getMinPrice()).isEqualByComparingTo("20.00");
+        assertThat(facets.getMaxPrice()).isEqualByComparingTo("20.00");
+        assertThat(facets.getCategories()).isEqualTo(Map.of(2L, 2L));
+        assertThat(facets.getSizes()).containsOnly(Map.entry(Size.S, 1L), Map.entry(Size.M, 1L));
+
+        facets = index.facets(List.of(), List.of(Size.S, Size.M), new BigDecimal("15"), null, Pageable.unpaged());
+        assertThat(facets.getMinPrice()).isEqualByComparingTo("10.00");
+        assertThat(facets.getMaxPrice()).isEqualByComparingTo("20.00");
+        assertThat(facets.getCategories()).isEqualTo(Map.of(2L, 2L));
+    }
+
+    @Test
+    void updatedPricesMoveInTheRange() {
+        index.put(product(3L, "5.00", 2L, Size.S));
+        index.put(product(1L, "25.00", 1L, Size.S));
+        index.remove(5L);
+
+        assertThat(ids(null, "9.99")).containsExactly(3L);
+        assertThat(ids("20", null)).containsExactly(1L);
+        assertThat(index.facets(List.of(), List.of(), null, null, Pageable.unpaged()).getMaxPrice()).isEqualByComparingTo("25.00");
+    }
+
+    @Test
+    void keepsThePriceRangesOnceOptimizedAndCompacted() {
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id = 10; id < 3010; id++) {
+            products.add(product(id, BigDecimal.valueOf(id).toString(), id % 3, Size.XL));
+        }
+        index.putAll(products);
+        index.runOptimize();
+        assertThat(ids("100", "109")).containsExactly(100L, 101L, 102L, 103L, 104L, 105L, 106L, 107L, 108L, 109L);
+
+        // Enough removals to compact the index.
+        for (long id = 10; id < 2500; id++) {
+            index.remove(id);
+        }
+        index.put(product(2500L, "3000.50", 0L, Size.XL));
+
+        assertThat(index.size()).isEqualTo(515);
+        assertThat(ids("3005", null)).containsExactly(3005L, 3006L, 3007L, 3008L, 3009L);
+        assertThat(ids("3000", "3001")).containsExactly(2500L, 3000L, 3001L);
+        assertThat(ids("3000.50", "3000.50")).containsExactly(2500L);
+        ProductFacetsDTO facets = index.facets(List.of(0L), List.of(Size.XL), null, new BigDecimal("2600"), PageRequest.of(1, 10));
+        assertThat(facets.getTotal()).isEqualTo(33);
+        assertThat(facets.getIds()).hasSize(10).allMatch(id -> id % 3 == 0 && id > 2500 && id <= 2600);
+    }
+
+    private List<Long> ids(String minPrice, String maxPrice) {
+        return index
+            .facets(
+                List.of(),
+                List.of(),
+                minPrice == null ? null : new BigDecimal(minPrice),
+                maxPrice == null ? null : new BigDecimal(maxPrice),
+                Pageable.unpaged()
+            )
+            .getIds();
+    }
+
+    private static ProductDTO product(Long id, String price, Long categoryId, Size size) {
+        ProductCategoryDTO category = new ProductCategoryDTO();
+        category.setId(categoryId);
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(price == null ? null : new BigDecimal(price));
+        product.setProductCategory(category);
+        product.setProductSize(size);
+        return product;
+    }
+}
@@ -0,0 +1,172 @@
+package com.poc.redis.infrastructure.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.mapper.ProductMapperImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex(new ProductMapperImpl());
+
+    @Test
+    void matchesTheProductsContainingEveryTerm() {
+        index.putAll(
+            List.of(
+                product(1L, "Red shirt", "Cotton", 1L),
+                product(2L, "Blue shirt", "With red stripes", 1L),
+                product(3L, "Red dress", null, 2L),
+                product(4L, "Café crème mug", null, 2L)
+            )
+        );
+
+        assertThat(ids("red")).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(ids("shirt RED")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids("red red shirt")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids("cafe creme")).containsExactly(4L);
+        assertThat(ids("red hat")).isEmpty();
+        assertThat(index.search(" - ", PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    @Test
+    void ranksTheNameAboveTheDescription() {
+        index.putAll(List.of(product(1L, "Shirt", "Red stripes", 1L), product(2L, "Red shirt", "Stripes", 1L)));
+
+        assertThat(ids("red")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void ranksTheShorterProductsFirst() {
+        index.putAll(
+            List.of(
+                product(1L, "Lamp", "Brass desk lamp with a linen shade and a long cable", 1L),
+                product(2L, "Lamp", "Brass", 1L),
+                product(3L, "Lamp", "Brass desk lamp", 1L)
+            )
+        );
+
+        // The third mentions the term twice, which outweighs its length.
+        assertThat(ids("lamp")).containsExactly(3L, 2L, 1L);
+        assertThat(ids("brass")).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void ranksTheRarerTermsHigher() {
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            products.add(product(id, "Common", "Filler", 1L));
+        }
+        // Of the same length, with the name weighing the common term in one, the rare term in the other.
+        products.add(product(11L, "Common", "Filler rare", 1L));
+        products.add(product(12L, "Rare", "Filler common", 1L));
+        index.putAll(products);
+
+        assertThat(ids("common rare")).containsExactly(12L, 11L);
+    }
+
+    @Test
+    void intersectsPostingsListsOfAnyLength() {
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            String name = "item" + (id % 2 == 0 ? " even" : "") + (id % 3 == 0 ? " third" : "") + (id % 1000 == 0 ? " thousandth" : "");
+            products.add(product(id, name, null, 1L));
+        }
+        index.putAll(products);
+
+        Page<ProductDTO> hits = index.search("third item even", PageRequest.of(0, 1000));
+        assertThat(hits.getTotalElements()).isEqualTo(500);
+        assertThat(hits.getContent()).allMatch(product -> product.getId() % 6 == 0);
+        assertThat(ids("thousandth even third")).containsExactlyInAnyOrder(3000L);
+        assertThat(ids("thousandth even")).containsExactlyInAnyOrder(1000L, 2000L, 3000L);
+    }
+
+    @Test
+    void pagesTheRankedHits() {
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id = 1; id <= 30; id++) {
+            // Longer and longer descriptions, so the ids come out in increasing order.
+            products.add(product(id, "Item", "filler ".repeat((int) id), 1L));
+        }
+        index.putAll(products);
+
+        Page<ProductDTO> page = index.search("item", PageRequest.of(1, 10));
+        assertThat(page.getTotalElements()).isEqualTo(30);
+        assertThat(page.getContent()).extracting(ProductDTO::getId).containsExactlyElementsOf(
+            LongStream.rangeClosed(11, 20).boxed().collect(Collectors.toList())
+        );
+        assertThat(index.search("item", PageRequest.of(3, 10)).getContent()).isEmpty();
+        assertThat(index.search("item", PageRequest.of(3, 10)).getTotalElements()).isEqualTo(30);
+    }
+
+    @Test
+    void replacesAndRemovesProducts() {
+        index.putAll(List.of(product(1L, "Red shirt", null, 1L), product(2L, "Red dress", null, 1L)));
+
+        index.put(product(1L, "Blue shirt", null, 1L));
+        index.remove(2L);
+
+        assertThat(ids("red")).isEmpty();
+        assertThat(ids("blue shirt")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+
+        // Enough updates to compact the postings lists.
+        for (int version = 0; version < 1500; version++) {
+            index.put(product(1L, version % 2 == 0 ? "Blue shirt" : "Green shirt", null, 1L));
+        }
+        index.put(product(3L, "Green dress", null, 1L));
+        assertThat(ids("shirt")).containsExactly(1L);
+        assertThat(ids("green")).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(ids("blue")).isEmpty();
+    }
+
+    @Test
+    void updatesTheCategoryOfCopiesOfTheIndexedProducts() {
+        index.putAll(List.of(product(1L, "Red shirt", null, 1L), product(2L, "Red dress", null, 2L)));
+        ProductDTO before = search("shirt").get(0);
+        ProductDTO otherCategory = search("dress").get(0);
+
+        ProductCategoryDTO renamed = category(1L);
+        renamed.setName("Renamed");
+        index.updateCategory(renamed);
+
+        ProductDTO after = search("shirt").get(0);
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.getProductCategory().getName()).isEqualTo("Renamed");
+        assertThat(after.getName()).isEqualTo("Red shirt");
+        // The instances handed out earlier are left untouched.
+        assertThat(before.getProductCategory().getName()).isEqualTo("Category 1");
+        assertThat(search("dress").get(0)).isSameAs(otherCategory);
+    }
+
+    private List<ProductDTO> search(String query) {
+        return index.search(query, PageRequest.of(0, 100)).getContent();
+    }
+
+    private List<Long> ids(String query) {
+        return search(query).stream().map(ProductDTO::getId).collect(Collectors.toList());
+    }
+
+    private static ProductDTO product(Long id, String name, String description, Long categoryId) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setProductCategory(category(categoryId));
+        return product;
+    }
+
+    private static ProductCategoryDTO category(Long id) {
+        ProductCategoryDTO category = new ProductCategoryDTO();
+        category.setId(id);
+        category.setName("Category " + id);
+        return category;
+    }
+}
@@ -0,0 +1,106 @@
+package com.poc.redis.infrastructure.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.poc.redis.application.dto.ProductSuggestionDTO;
+import com.poc.redis.application.mapper.ProductMapperImpl;
+import com.poc.redis.domain.model.Product;
+import com.poc.redis.infrastructure.cache.RedisCircuitBreaker;
+import com.poc.redis.infrastructure.config.ApplicationProperties;
+import com.poc.redis.infrastructure.repository.Keyset;
+import com.poc.redis.infrastructure.repository.ProductCategoryRepository;
+import com.poc.redis.infrastructure.repository.ProductOrderRepository;
+import com.poc.redis.infrastructure.repository.ProductRepository;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.domain.SliceImpl;
+
+class ProductSearchServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+
+    private final ProductCategoryRepository productCategoryRepository = mock(ProductCategoryRepository.class);
+
+    private final ProductOrderRepository productOrderRepository = mock(ProductOrderRepository.class);
+
+    private final RTopic topic = mock(RTopic.class);
+
+    private RedisCircuitBreaker circuitBreaker;
+
+    private ProductSearchService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(productRepository.findAll(any(Keyset.class), any(String.class)))
+            .thenReturn(new SliceImpl<>(List.of(product(1L, "Red shirt"), product(2L, "Red dress"))));
+        when(productCategoryRepository.findAll(any(Keyset.class))).thenReturn(new SliceImpl<>(List.of()));
+        when(productOrderRepository.sumQuantityGroupByProductId()).thenReturn(List.<Object[]>of(new Object[] { 1L, 5L }));
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getTopic(ProductSearchService.INDEX_UPDATE_TOPIC)).thenReturn(topic);
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getSearch().setPopularityInterval(Duration.ofMillis(200));
+        circuitBreaker = new RedisCircuitBreaker(properties.getCache().getCircuitBreaker());
+        service =
+            new ProductSearchService(
+                productRepository,
+                productCategoryRepository,
+                productOrderRepository,
+                new ProductMapperImpl(),
+                redissonClient,
+                circuitBreaker,
+                properties
+            );
+        service.run(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+        circuitBreaker.destroy();
+    }
+
+    @Test
+    void updatesThePopularitiesOfTheOrdersOfAnIntervalTogether() throws InterruptedException {
+        when(productOrderRepository.sumQuantityGroupByProductId(anyCollection()))
+            .thenReturn(List.<Object[]>of(new Object[] { 1L, 5L }, new Object[] { 2L, 9L }));
+        assertThat(names("red")).containsExactly("Red shirt", "Red dress");
+
+        service.productsOrdered(List.of(2L));
+        service.productsOrdered(List.of(1L, 2L));
+        service.productsOrdered(List.of(2L));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!names("red").get(0).equals("Red dress") && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(names("red")).containsExactly("Red dress", "Red shirt");
+        verify(productOrderRepository, times(1)).sumQuantityGroupByProductId(anyCollection());
+        verify(topic, times(1)).publish(any(ProductSearchService.IndexUpdate.class));
+        // Neither read again nor indexed again for search.
+        verify(productRepository, never()).findAllWithEagerRelationships(anyCollection());
+    }
+
+    private List<String> names(String prefix) {
+        return service.suggest(prefix, 10).stream().map(ProductSuggestionDTO::getName).collect(Collectors.toList());
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
@@ -0,0 +1,104 @@
+package com.poc.redis.infrastructure.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.redis.application.dto.ProductCategoryDTO;
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.application.dto.ProductSuggestionDTO;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class ProductSuggestIndexTest {
+
+    private final ProductSuggestIndex index = new ProductSuggestIndex();
+
+    @Test
+    void suggestsTheWordsStartingWithThePrefixMostPopularFirst() {
+        index.putProducts(
+            List.of(product(1L, "Trail running shoe", 1L), product(2L, "Running shirt", 1L), product(3L, "Rain coat", 2L)),
+            Map.of(1L, 5L, 2L, 7L)
+        );
+        index.putCategories(List.of(category(1L, "Running"), category(2L, "Rainwear")));
+
+        assertThat(names("run")).containsExactly("Running", "Running shirt", "Trail running shoe");
+        assertThat(names("running s")).containsExactly("Running shirt", "Trail running shoe");
+        assertThat(names("ra")).containsExactly("Rain coat", "Rainwear");
+        assertThat(names("sho")).containsExactly("Trail running shoe");
+        assertThat(names("x")).isEmpty();
+    }
+
+    @Test
+    void updatesThePopularityOfProductsAndTheirCategories() {
+        index.putProducts(List.of(product(1L, "Red shirt", 1L), product(2L, "Red dress", 2L)), Map.of(1L, 5L));
+        index.putCategories(List.of(category(1L, "Red tops"), category(2L, "Red dresses")));
+        assertThat(names("red")).containsExactly("Red shirt", "Red tops", "Red dress", "Red dresses");
+
+        index.updatePopularities(Map.of(2L, 6L, 99L, 100L));
+
+        assertThat(names("red")).containsExactly("Red dress", "Red dresses", "Red shirt", "Red tops");
+        assertThat(names("dress")).containsExactly("Red dress", "Red dresses");
+
+        index.updatePopularities(Map.of(1L, 10L, 2L, 0L));
+        assertThat(names("red")).containsExactly("Red shirt", "Red tops", "Red dress", "Red dresses");
+    }
+
+    @Test
+    void updatedPopularitiesRankAsIfIndexedWithThem() {
+        Random random = new Random(11);
+        String[] words = { "alpha", "beta", "gamma", "delta", "epsilon" };
+        List<ProductDTO> products = new ArrayList<>();
+        Map<Long, Long> quantities = new HashMap<>();
+        for (long id = 1; id <= 300; id++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + id;
+            products.add(product(id, name, id % 7));
+            quantities.put(id, (long) random.nextInt(50));
+        }
+        List<ProductCategoryDTO> categories = new ArrayList<>();
+        for (long id = 0; id < 7; id++) {
+            categories.add(category(id, words[(int) id % words.length] + " category " + id));
+        }
+        index.putProducts(products, quantities);
+        index.putCategories(categories);
+
+        for (int round = 0; round < 10; round++) {
+            Map<Long, Long> updates = new HashMap<>();
+            for (int k = 0; k < 20; k++) {
+                updates.put(1L + random.nextInt(300), (long) random.nextInt(100));
+            }
+            index.updatePopularities(updates);
+            quantities.putAll(updates);
+
+            ProductSuggestIndex rebuilt = new ProductSuggestIndex();
+            rebuilt.putProducts(products, quantities);
+            rebuilt.putCategories(categories);
+            for (String prefix : words) {
+                assertThat(index.suggest(prefix, ProductSuggestIndex.MAX_SUGGESTIONS))
+                    .isEqualTo(rebuilt.suggest(prefix, ProductSuggestIndex.MAX_SUGGESTIONS));
+            }
+        }
+    }
+
+    private List<String> names(String prefix) {
+        return index.suggest(prefix, 10).stream().map(ProductSuggestionDTO::getName).collect(Collectors.toList());
+    }
+
+    private static ProductDTO product(Long id, String name, Long categoryId) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName(name);
+        product.setProductCategory(category(categoryId, null));
+        return product;
+    }
+
+    private static ProductCategoryDTO category(Long id, String name) {
+        ProductCategoryDTO category = new ProductCategoryDTO();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+}
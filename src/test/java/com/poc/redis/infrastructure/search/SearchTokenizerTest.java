@@ -0,0 +1,35 @@
+package com.poc.redis.infrastructure.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SearchTokenizerTest {
+
+    @Test
+    void splitsOnAnythingButLettersAndDigits() {
+        assertThat(SearchTokenizer.tokenize("T-shirt, size XL (2 pack)!")).containsExactly("t", "shirt", "size", "xl", "2", "pack");
+        assertThat(SearchTokenizer.tokenize("  leading and trailing  ")).containsExactly("leading", "and", "trailing");
+        assertThat(SearchTokenizer.tokenize("abc123def")).containsExactly("abc123def");
+    }
+
+    @Test
+    void dropsCaseAndAccents() {
+        assertThat(SearchTokenizer.tokenize("Café-Crème")).containsExactly("cafe", "creme");
+        assertThat(SearchTokenizer.tokenize("NAÏVE Façade")).containsExactly("naive", "facade");
+        // Composed and decomposed forms give the same term.
+        assertThat(SearchTokenizer.tokenize("\u00e9t\u00e9")).isEqualTo(SearchTokenizer.tokenize("e\u0301te\u0301")).containsExactly("ete");
+    }
+
+    @Test
+    void keepsTheOrderAndTheDuplicates() {
+        assertThat(SearchTokenizer.tokenize("red shirt, red")).containsExactly("red", "shirt", "red");
+    }
+
+    @Test
+    void givesNoTermsForBlankText() {
+        assertThat(SearchTokenizer.tokenize(null)).isEmpty();
+        assertThat(SearchTokenizer.tokenize("")).isEmpty();
+        assertThat(SearchTokenizer.tokenize(" -- / ")).isEmpty();
+    }
+}
@@ -0,0 +1,79 @@
+package com.poc.redis.web.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.poc.redis.application.dto.ProductDTO;
+import com.poc.redis.infrastructure.repository.Keyset;
+import com.poc.redis.web.errors.BadRequestAlertException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+class KeysetPaginationUtilTest {
+
+    private static final Set<String> SORT_PROPERTIES = Set.of("name", "price");
+
+    private static final Pageable BY_PRICE = PageRequest.of(0, 20, Sort.by("price"));
+
+    @Test
+    void readsTheCursorOfTheNextLink() {
+        ProductDTO last = new ProductDTO();
+        last.setId(12L);
+        last.setPrice(new BigDecimal("9.99"));
+        Keyset first = keyset("", BY_PRICE);
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(
+            UriComponentsBuilder.fromUriString("http://localhost/api/products?sort=price&after="),
+            first,
+            new SliceImpl<>(List.of(last), PageRequest.of(0, 20), true)
+        );
+        String link = headers.getFirst(HttpHeaders.LINK);
+        String after = link.substring(link.indexOf("after=") + 6, link.indexOf('>'));
+
+        Keyset next = keyset(after, BY_PRICE);
+
+        assertThat(first.isFirst()).isTrue();
+        assertThat(next.getProperty()).isEqualTo("price");
+        assertThat(next.getId()).isEqualTo("12");
+        assertThat(next.getValue()).isEqualTo("9.99");
+    }
+
+    @Test
+    void rejectsTamperedCursorsAsBadRequests() {
+        assertInvalid(cursor("price|ASC|12|cheap"));
+        assertInvalid(cursor("price|ASC|twelve|9.99"));
+        assertInvalid(cursor("price|ASC||9.99"));
+        assertInvalid(cursor("price|ASC|12"));
+        assertInvalid(cursor("name|ASC|12|Shirt"));
+        assertInvalid("not base64!");
+        assertThat(keyset(cursor("price|ASC|12|9.99"), BY_PRICE).getValue()).isEqualTo("9.99");
+    }
+
+    @Test
+    void rejectsTheUnsupportedSorts() {
+        assertThatThrownBy(() -> keyset("", PageRequest.of(0, 20, Sort.by("description"))))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasMessage("Unsupported sort property for cursor pagination");
+    }
+
+    private static void assertInvalid(String after) {
+        assertThatThrownBy(() -> keyset(after, BY_PRICE)).isInstanceOf(BadRequestAlertException.class).hasMessage("Invalid cursor");
+    }
+
+    private static Keyset keyset(String after, Pageable pageable) {
+        return KeysetPaginationUtil.keyset(after, pageable, SORT_PROPERTIES, ProductDTO.class, "product");
+    }
+
+    private static String cursor(String content) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+    }
+}